@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.savantbuild.util.Graph.Edge;
+import org.savantbuild.util.HashGraph;
+
+/**
+ * Benchmarks the Graph operations that modify the graph on every {@link GraphShape} at 1,000, 10,000 and 100,000
+ * nodes. Since each call changes the graph, every call gets a new copy of the graph and is timed by itself
+ * (SingleShotTime), which is why this runs many more iterations than {@link GraphQueryBenchmark}.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(1)
+@Measurement(iterations = 20)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+public class GraphMutationBenchmark {
+  public List<Edge<Integer, String>> edges;
+
+  @Param({"1000", "10000", "100000"})
+  public int nodes;
+
+  @Param({"CHAIN", "FAN_OUT", "DIAMONDS", "DEPENDENCIES"})
+  public GraphShape shape;
+
+  /**
+   * Builds the graph one edge at a time.
+   */
+  @Benchmark
+  public HashGraph<Integer, String> addEdge() {
+    HashGraph<Integer, String> graph = new HashGraph<>();
+    for (Edge<Integer, String> edge : edges) {
+      graph.addEdge(edge.getOrigin(), edge.getDestination(), edge.getValue());
+    }
+    return graph;
+  }
+
+  /**
+   * Builds the graph in bulk.
+   */
+  @Benchmark
+  public HashGraph<Integer, String> addEdges() {
+    HashGraph<Integer, String> graph = new HashGraph<>();
+    graph.addEdges(edges);
+    return graph;
+  }
+
+  /**
+   * The root is the only node without inbound edges, so pruning the graph removes every node.
+   */
+  @Benchmark
+  public HashGraph<Integer, String> prune(Fresh fresh) {
+    fresh.graph.prune();
+    return fresh.graph;
+  }
+
+  /**
+   * Removes every outbound edge of the root.
+   */
+  @Benchmark
+  public HashGraph<Integer, String> removeEdge(Fresh fresh) {
+    for (Edge<Integer, String> edge : fresh.rootEdges) {
+      fresh.graph.removeEdge(edge.getOrigin(), edge.getDestination(), edge.getValue());
+    }
+    return fresh.graph;
+  }
+
+  /**
+   * Removes the node in the middle of the graph along with everything it orphans.
+   */
+  @Benchmark
+  public HashGraph<Integer, String> removeNode(Fresh fresh) {
+    fresh.graph.removeNode(nodes / 2);
+    return fresh.graph;
+  }
+
+  /**
+   * Removes the root, which orphans and removes every other node.
+   */
+  @Benchmark
+  public HashGraph<Integer, String> removeRoot(Fresh fresh) {
+    fresh.graph.removeNode(0);
+    return fresh.graph;
+  }
+
+  @Setup
+  public void setup() {
+    edges = shape.edges(nodes);
+  }
+
+  /**
+   * A new copy of the graph for every call.
+   */
+  @State(Scope.Thread)
+  public static class Fresh {
+    public HashGraph<Integer, String> graph;
+
+    public List<Edge<Integer, String>> rootEdges;
+
+    @Setup(Level.Invocation)
+    public void setup(GraphMutationBenchmark benchmark) {
+      graph = HashGraph.<Integer, String>builder(benchmark.nodes, benchmark.edges.size()).addEdges(benchmark.edges).build();
+      rootEdges = new ArrayList<>(graph.getOutboundEdges(0));
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.savantbuild.util.CompactGraph;
+import org.savantbuild.util.Graph;
+import org.savantbuild.util.GraphDiff;
+import org.savantbuild.util.GraphStats;
+import org.savantbuild.util.HashGraph;
+import org.savantbuild.util.ReachabilityIndex;
+
+/**
+ * Benchmarks the Graph operations that don't modify the graph on every {@link GraphShape} at 1,000, 10,000 and 100,000
+ * nodes. The traversals start from the root (node 0) and visit each node once, so they are linear in the size of the
+ * graph. The operations that enumerate every path start from {@link GraphShape#pathOrigin} instead, which has at most
+ * {@link #MAX_PATHS} paths to the last node, and countPaths starts from the lowest node whose count doesn't overflow a
+ * long. Use -Djmh.args to run a subset, for example
+ * {@code sb bench -Djmh.args="GraphQueryBenchmark.topological -p shape=DEPENDENCIES"}.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class GraphQueryBenchmark {
+  public static final long MAX_PATHS = 1024;
+
+  public HashGraph<Integer, String> copy;
+
+  public int countOrigin;
+
+  public int destination;
+
+  public HashGraph<Integer, String> graph;
+
+  public int middle;
+
+  @Param({"1000", "10000", "100000"})
+  public int nodes;
+
+  public int pathOrigin;
+
+  @Param({"CHAIN", "FAN_OUT", "DIAMONDS", "DEPENDENCIES"})
+  public GraphShape shape;
+
+  @Benchmark
+  public Graph<?, String> condensation() {
+    return graph.condensation();
+  }
+
+  @Benchmark
+  public void contains(Blackhole blackhole) {
+    blackhole.consume(graph.contains(middle));
+    blackhole.consume(graph.contains(-1));
+  }
+
+  @Benchmark
+  public long countPaths() {
+    return graph.countPaths(countOrigin, destination);
+  }
+
+  @Benchmark
+  public Object cycles() {
+    return graph.cycles();
+  }
+
+  @Benchmark
+  public GraphDiff<Integer, String> diff() {
+    return graph.diff(copy);
+  }
+
+  @Benchmark
+  public Integer find() {
+    return graph.find(0, (value) -> value == destination);
+  }
+
+  @Benchmark
+  public void forEachInbound(Blackhole blackhole) {
+    graph.forEachInbound(destination, blackhole::consume);
+  }
+
+  @Benchmark
+  public void forEachOutbound(Blackhole blackhole) {
+    graph.forEachOutbound(0, blackhole::consume);
+  }
+
+  @Benchmark
+  public CompactGraph<Integer, String> freeze() {
+    return graph.freeze();
+  }
+
+  @Benchmark
+  public Object getInboundEdges() {
+    return graph.getInboundEdges(destination);
+  }
+
+  @Benchmark
+  public Object getOutboundEdges() {
+    return graph.getOutboundEdges(0);
+  }
+
+  @Benchmark
+  public Object getPaths() {
+    return graph.getPaths(pathOrigin, destination);
+  }
+
+  @Benchmark
+  public boolean reachabilityIndex() {
+    ReachabilityIndex<Integer> index = graph.reachabilityIndex();
+    return index.reaches(0, destination);
+  }
+
+  @Benchmark
+  public int reachableView() {
+    return graph.reachableView(middle, (edge, entryPoint) -> edge.getValue().equals("compile")).size();
+  }
+
+  @Benchmark
+  public Integer reduceUp() {
+    return graph.reduceUp(0, (value) -> 1, Integer::sum);
+  }
+
+  @Setup
+  public void setup() {
+    graph = shape.graph(nodes);
+    copy = shape.graph(nodes);
+    copy.removeEdge(0, 1, "compile");
+    copy.addEdge(0, 1, "runtime");
+
+    destination = nodes - 1;
+    middle = nodes / 2;
+    pathOrigin = GraphShape.pathOrigin(graph, destination, MAX_PATHS);
+    countOrigin = GraphShape.pathOrigin(graph, destination, Long.MAX_VALUE - 1);
+  }
+
+  @Benchmark
+  public Object shortestPath() {
+    return graph.shortestPath(0, destination);
+  }
+
+  @Benchmark
+  public Object shortestPathWeighted() {
+    return graph.shortestPath(0, destination, (value) -> value.equals("compile") ? 1 : 2);
+  }
+
+  @Benchmark
+  public int size() {
+    return graph.size();
+  }
+
+  @Benchmark
+  public GraphStats stats() {
+    return graph.stats();
+  }
+
+  @Benchmark
+  public long streamBreadthFirst() {
+    return graph.stream(0, Graph.TraversalOrder.BREADTH_FIRST).count();
+  }
+
+  @Benchmark
+  public long streamPaths() {
+    return graph.streamPaths(pathOrigin, destination).count();
+  }
+
+  @Benchmark
+  public long streamPreOrder() {
+    return graph.stream(pathOrigin, Graph.TraversalOrder.PRE_ORDER).count();
+  }
+
+  @Benchmark
+  public Object stronglyConnectedComponents() {
+    return graph.stronglyConnectedComponents();
+  }
+
+  @Benchmark
+  public Object topologicalLevels() {
+    return graph.topologicalLevels();
+  }
+
+  @Benchmark
+  public Object topologicalSort() {
+    return graph.topologicalSort();
+  }
+
+  @Benchmark
+  public void traverse(Blackhole blackhole) {
+    graph.traverse(0, true, null, (origin, destination, value, depth, isLast) -> {
+      blackhole.consume(destination);
+      return true;
+    });
+  }
+
+  @Benchmark
+  public void traverseAllPaths(Blackhole blackhole) {
+    graph.traverse(pathOrigin, false, null, (origin, destination, value, depth, isLast) -> {
+      blackhole.consume(destination);
+      return true;
+    });
+  }
+
+  @Benchmark
+  public void traverseUp(Blackhole blackhole) {
+    graph.traverseUp(pathOrigin, (origin, destination, value, depth) -> blackhole.consume(destination));
+  }
+
+  @Benchmark
+  public Object values() {
+    return graph.values();
+  }
+}
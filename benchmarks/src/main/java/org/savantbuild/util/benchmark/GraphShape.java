@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.savantbuild.util.Graph;
+import org.savantbuild.util.Graph.Edge;
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+import org.savantbuild.util.HashGraph;
+
+/**
+ * The synthetic graphs that the benchmarks run against. Every shape generates an acyclic graph of Integer nodes from 0
+ * to nodes - 1 where node 0 is the root, every node is reachable from the root and every edge goes from a lower node to
+ * a higher one (so the node values are also a topological order). The edge values are "compile" and "runtime".
+ * Generating a shape with the same number of nodes always produces the same edges.
+ *
+ * @author Brian Pontarelli
+ */
+public enum GraphShape {
+  /**
+   * A single path from the root to the last node.
+   */
+  CHAIN {
+    @Override
+    public List<Edge<Integer, String>> edges(int nodes) {
+      List<Edge<Integer, String>> edges = new ArrayList<>(nodes);
+      for (int i = 0; i < nodes - 1; i++) {
+        edges.add(new BaseEdge<>(i, i + 1, "compile"));
+      }
+      return edges;
+    }
+  },
+
+  /**
+   * The root with an edge to every other node.
+   */
+  FAN_OUT {
+    @Override
+    public List<Edge<Integer, String>> edges(int nodes) {
+      List<Edge<Integer, String>> edges = new ArrayList<>(nodes);
+      for (int i = 1; i < nodes; i++) {
+        edges.add(new BaseEdge<>(0, i, i % 5 == 0 ? "runtime" : "compile"));
+      }
+      return edges;
+    }
+  },
+
+  /**
+   * A lattice of diamonds where the bottom of each diamond is the top of the next one. The number of paths doubles
+   * with every diamond, so this is the worst case for the operations that enumerate paths.
+   */
+  DIAMONDS {
+    @Override
+    public List<Edge<Integer, String>> edges(int nodes) {
+      List<Edge<Integer, String>> edges = new ArrayList<>(nodes * 4 / 3);
+      for (int top = 0; top + 3 < nodes; top += 3) {
+        edges.add(new BaseEdge<>(top, top + 1, "compile"));
+        edges.add(new BaseEdge<>(top, top + 2, "runtime"));
+        edges.add(new BaseEdge<>(top + 1, top + 3, "compile"));
+        edges.add(new BaseEdge<>(top + 2, top + 3, "compile"));
+      }
+      return edges;
+    }
+  },
+
+  /**
+   * A graph shaped like the dependencies of a real project. Each node is the dependency of a random lower node, which
+   * makes a tree that is about ln(nodes) deep, and also depends on up to 3 more nodes that are picked mostly from the
+   * highest nodes. This gives a few "popular" libraries near the bottom of the graph a large number of inbound edges
+   * and many paths, like the logging and commons libraries of a real project.
+   */
+  DEPENDENCIES {
+    @Override
+    public List<Edge<Integer, String>> edges(int nodes) {
+      Random random = new Random(42);
+      List<Edge<Integer, String>> edges = new ArrayList<>(nodes * 2);
+      for (int i = 1; i < nodes; i++) {
+        edges.add(new BaseEdge<>(random.nextInt(i), i, random.nextInt(5) == 0 ? "runtime" : "compile"));
+      }
+
+      for (int i = 1; i < nodes - 1; i++) {
+        int extra = random.nextInt(4);
+        for (int j = 0; j < extra; j++) {
+          // Cubing the random number skews the destinations towards the highest nodes
+          int destination = nodes - 1 - (int) (Math.pow(random.nextDouble(), 3) * (nodes - i - 1));
+          edges.add(new BaseEdge<>(i, destination, random.nextInt(5) == 0 ? "runtime" : "compile"));
+        }
+      }
+      return edges;
+    }
+  };
+
+  /**
+   * Generates the edges of the shape.
+   *
+   * @param nodes The number of nodes.
+   * @return The edges in the order they should be added to a graph.
+   */
+  public abstract List<Edge<Integer, String>> edges(int nodes);
+
+  /**
+   * Generates a HashGraph of the shape.
+   *
+   * @param nodes The number of nodes.
+   * @return The graph.
+   */
+  public HashGraph<Integer, String> graph(int nodes) {
+    List<Edge<Integer, String>> edges = edges(nodes);
+    return HashGraph.<Integer, String>builder(nodes, edges.size()).addEdges(edges).build();
+  }
+
+  /**
+   * Finds the lowest node that has at most the given number of paths to the destination. The operations that
+   * enumerate every path (and would never finish from the root of the DIAMONDS and DEPENDENCIES shapes) start from
+   * this node instead of the root. This relies on the node values being a topological order.
+   *
+   * @param graph       The graph of the shape.
+   * @param destination The destination of the paths.
+   * @param maxPaths    The maximum number of paths (less than Long.MAX_VALUE).
+   * @return The node.
+   */
+  public static int pathOrigin(Graph<Integer, String> graph, int destination, long maxPaths) {
+    long[] paths = new long[destination + 1];
+    paths[destination] = 1;
+    int origin = destination;
+    for (int node = destination - 1; node >= 0; node--) {
+      long count = 0;
+      for (Edge<Integer, String> edge : graph.getOutboundEdges(node)) {
+        if (edge.getDestination() <= destination) {
+          long destinationPaths = paths[edge.getDestination()];
+          count = count > Long.MAX_VALUE - destinationPaths ? Long.MAX_VALUE : count + destinationPaths;
+        }
+      }
+
+      paths[node] = count;
+      if (count > 0 && count <= maxPaths) {
+        origin = node;
+      }
+    }
+
+    return origin;
+  }
+}
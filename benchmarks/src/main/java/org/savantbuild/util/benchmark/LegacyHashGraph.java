@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util.benchmark;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.savantbuild.util.CyclicException;
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+import org.savantbuild.util.Graph.EdgeFilter.IdentityEdgeFilter;
+import org.savantbuild.util.HashGraph;
+
+/**
+ * A HashGraph that uses the original recursive traversal, which tracks the visited nodes in HashSets of the values,
+ * filters the edges of each node using a Stream and copies every edge into a BaseEdge before passing it to the
+ * EdgeFilter. This is the baseline that the benchmarks compare the current traversal to.
+ *
+ * @author Brian Pontarelli
+ */
+public class LegacyHashGraph<T, U> extends HashGraph<T, U> {
+  @Override
+  public void traverse(T rootValue, boolean visitNodesOnce, EdgeFilter<T, U> edgeFilter, GraphConsumer<T, U> consumer) {
+    HashNode<T, U> rootNode = getNode(rootValue);
+    if (rootNode == null) {
+      throw new IllegalArgumentException("Invalid rootValue [" + rootValue + "] to start the traversal from.");
+    }
+
+    if (edgeFilter == null) {
+      edgeFilter = new IdentityEdgeFilter<>();
+    }
+
+    traverse(rootNode, null, visitNodesOnce, new HashSet<>(), new HashSet<>(), edgeFilter, consumer, 1);
+  }
+
+  private static <T, U> Edge<T, U> copy(HashEdge<T, U> edge) {
+    return new BaseEdge<>(edge.origin.value, edge.destination.value, edge.value);
+  }
+
+  private void traverse(HashNode<T, U> root, HashEdge<T, U> traversedEdge, boolean visitNodesOnce, Set<T> cycleCheck,
+                        Set<T> visited, EdgeFilter<T, U> edgeFilter, GraphConsumer<T, U> consumer, int depth) {
+    List<HashEdge<T, U>> edges = root.outbound;
+    if (traversedEdge != null) {
+      edges = root.outbound
+          .stream()
+          .filter((edge) -> edgeFilter.filter(copy(edge), copy(traversedEdge)))
+          .collect(Collectors.toList());
+    }
+
+    for (int i = 0; i < edges.size(); i++) {
+      HashEdge<T, U> edge = edges.get(i);
+      if (cycleCheck.contains(edge.destination.value)) {
+        throw new CyclicException("Encountered the graph node [" + edge.destination.value + "] twice. Your graph has a cycle");
+      }
+
+      if (visitNodesOnce && visited.contains(edge.destination.value)) {
+        continue;
+      }
+
+      cycleCheck.add(root.value);
+
+      boolean cont = consumer.consume(root.value, edge.destination.value, edge.value, depth, i + 1 == edges.size());
+      visited.add(edge.destination.value);
+
+      if (cont) {
+        traverse(edge.destination, edge, visitNodesOnce, cycleCheck, visited, edgeFilter, consumer, depth + 1);
+      }
+
+      cycleCheck.remove(root.value);
+    }
+  }
+}
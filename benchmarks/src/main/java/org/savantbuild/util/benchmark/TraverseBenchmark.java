@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.savantbuild.util.Graph.EdgeFilter;
+import org.savantbuild.util.HashGraph;
+
+/**
+ * Compares the HashGraph traversal to the original recursive traversal ({@link LegacyHashGraph}) on a layered graph
+ * with 10,201 nodes and roughly 50,000 edges. Each node in a layer has edges to 5 random nodes in the next layer and
+ * every fifth edge is "optional" so that the filtered benchmarks prune part of the graph.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class TraverseBenchmark {
+  public static final int EDGES_PER_NODE = 5;
+
+  public static final int LAYERS = 51;
+
+  public static final int NODES_PER_LAYER = 200;
+
+  public final EdgeFilter<Integer, String> filter = (edge, entryPoint) -> !edge.getValue().equals("optional");
+
+  public HashGraph<Integer, String> graph;
+
+  public LegacyHashGraph<Integer, String> legacyGraph;
+
+  @Benchmark
+  public void legacyTraverse(Blackhole blackhole) {
+    traverse(legacyGraph, null, blackhole);
+  }
+
+  @Benchmark
+  public void legacyTraverseFiltered(Blackhole blackhole) {
+    traverse(legacyGraph, filter, blackhole);
+  }
+
+  @Setup
+  public void setup() {
+    graph = new HashGraph<>();
+    legacyGraph = new LegacyHashGraph<>();
+
+    Random random = new Random(42);
+    int edge = 0;
+    for (int node = 0; node < NODES_PER_LAYER; node++) {
+      graph.addEdge(-1, node, "compile");
+      legacyGraph.addEdge(-1, node, "compile");
+    }
+
+    for (int layer = 0; layer < LAYERS - 1; layer++) {
+      for (int i = 0; i < NODES_PER_LAYER; i++) {
+        int origin = layer * NODES_PER_LAYER + i;
+        for (int j = 0; j < EDGES_PER_NODE; j++) {
+          int destination = (layer + 1) * NODES_PER_LAYER + random.nextInt(NODES_PER_LAYER);
+          String value = edge++ % 5 == 0 ? "optional" : "compile";
+          graph.addEdge(origin, destination, value);
+          legacyGraph.addEdge(origin, destination, value);
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void traverse(Blackhole blackhole) {
+    traverse(graph, null, blackhole);
+  }
+
+  @Benchmark
+  public void traverseFiltered(Blackhole blackhole) {
+    traverse(graph, filter, blackhole);
+  }
+
+  private void traverse(HashGraph<Integer, String> graph, EdgeFilter<Integer, String> filter, Blackhole blackhole) {
+    graph.traverse(-1, true, filter, (origin, destination, value, depth, isLast) -> {
+      blackhole.consume(destination);
+      return true;
+    });
+  }
+}
@@ -0,0 +1,709 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+
+/**
+ * <p>
+ * An immutable graph that stores its nodes and edges in primitive arrays rather than objects. This is useful for large
+ * graphs that are built once (usually from a {@link HashGraph}) and then traversed many times.
+ * </p>
+ * <h3>Internals</h3>
+ * <p>
+ * Each node value is interned to a dense int id. The outbound edges of all the nodes are stored in a single array of
+ * destination ids that is ordered by origin id, and an offsets array gives the range of that array that belongs to each
+ * node (this is often called the compressed sparse row format). The edge values are stored in an array that is
+ * parallel to the destination array. The inbound edges are stored the same way, except that they reference the index
+ * of the outbound edge so that the edge values are only stored once.
+ * </p>
+ * <p>
+ * The outbound edges of a node are kept in the order they were added. The inbound edges of a node are ordered by the
+ * order the edges were added to the graph. A graph that is created by {@link HashGraph#freeze()} has the inbound edges
+ * in the same order as the HashGraph.
+ * </p>
+ * <h3>Mutation</h3>
+ * <p>
+ * This graph cannot be modified. All of the methods that modify the graph throw an UnsupportedOperationException.
+ * </p>
+ * <h3>Thread safety</h3>
+ * <p>
+ * This graph is thread safe. All of its state is held in final fields that are never modified after the constructor
+ * returns, so a CompactGraph can be shared with any number of threads without locking, even if it is published without
+ * synchronization. Every read (including traversals) keeps its bookkeeping in local variables. The only lazily created
+ * state is the {@link ReachabilityIndex}, which is immutable and published through a volatile field.
+ * </p>
+ *
+ * @author Brian Pontarelli
+ */
+public class CompactGraph<T, U> implements Graph<T, U> {
+  final Object[] edgeValues;
+
+  final int[] inboundEdges;
+
+  final int[] inboundOffsets;
+
+  final int[] inboundOrigins;
+
+  final ValueTable<T> nodes;
+
+  final int[] outboundDestinations;
+
+  final int[] outboundOffsets;
+
+  private volatile ReachabilityIndex<T> reachabilityIndex;
+
+  CompactGraph(ValueTable<T> nodes, int[] origins, int[] destinations, Object[] values, int edgeCount) {
+    this(nodes, origins, destinations, values, edgeCount, null);
+  }
+
+  /**
+   * @param inboundOrder The indexes of the edges in the order that they are added to the inbound edges of their
+   *                     destinations, or null to use the order of the edges.
+   */
+  CompactGraph(ValueTable<T> nodes, int[] origins, int[] destinations, Object[] values, int edgeCount, int[] inboundOrder) {
+    int nodeCount = nodes.size();
+    this.nodes = nodes;
+    this.outboundOffsets = new int[nodeCount + 1];
+    this.outboundDestinations = new int[edgeCount];
+    this.edgeValues = new Object[edgeCount];
+    this.inboundOffsets = new int[nodeCount + 1];
+    this.inboundOrigins = new int[edgeCount];
+    this.inboundEdges = new int[edgeCount];
+
+    // Counting sort the edges by origin and by destination. Both are stable, so the edges stay in the order they were
+    // added (or the inbound order)
+    for (int i = 0; i < edgeCount; i++) {
+      outboundOffsets[origins[i] + 1]++;
+      inboundOffsets[destinations[i] + 1]++;
+    }
+    for (int i = 0; i < nodeCount; i++) {
+      outboundOffsets[i + 1] += outboundOffsets[i];
+      inboundOffsets[i + 1] += inboundOffsets[i];
+    }
+
+    int[] outboundCursors = Arrays.copyOf(outboundOffsets, nodeCount);
+    int[] edgeIndexes = new int[edgeCount];
+    for (int i = 0; i < edgeCount; i++) {
+      int index = outboundCursors[origins[i]]++;
+      outboundDestinations[index] = destinations[i];
+      edgeValues[index] = values[i];
+      edgeIndexes[i] = index;
+    }
+
+    int[] inboundCursors = Arrays.copyOf(inboundOffsets, nodeCount);
+    for (int j = 0; j < edgeCount; j++) {
+      int i = inboundOrder != null ? inboundOrder[j] : j;
+      int index = inboundCursors[destinations[i]]++;
+      inboundOrigins[index] = origins[i];
+      inboundEdges[index] = edgeIndexes[i];
+    }
+  }
+
+  /**
+   * Creates a new Builder for a CompactGraph.
+   *
+   * @param <T> The node value type.
+   * @param <U> The edge value type.
+   * @return The Builder.
+   */
+  public static <T, U> Builder<T, U> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Copies the given graph into a new CompactGraph. The nodes are assigned ids in the iteration order of the graph's
+   * {@link Graph#values()} and the outbound edges of each node are added in the order the graph returns them. A
+   * HashGraph is copied using {@link HashGraph#freeze()}.
+   *
+   * @param graph The graph to copy.
+   * @param <T>   The node value type.
+   * @param <U>   The edge value type.
+   * @return The CompactGraph.
+   */
+  public static <T, U> CompactGraph<T, U> copyOf(Graph<T, U> graph) {
+    if (graph instanceof HashGraph) {
+      return ((HashGraph<T, U>) graph).freeze();
+    }
+
+    Set<T> values = graph.values();
+    Builder<T, U> builder = new Builder<>(values.size(), values.size() * 2);
+    values.forEach(builder::addNode);
+    values.forEach((value) -> graph.getOutboundEdges(value).forEach((edge) -> builder.addEdge(edge.getOrigin(), edge.getDestination(), edge.getValue())));
+    return builder.build();
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable.
+   */
+  @Override
+  public void addEdge(T origin, T destination, U edgeValue) {
+    throw new UnsupportedOperationException("A CompactGraph cannot be modified");
+  }
+
+  @Override
+  public boolean contains(T value) {
+    return nodes.indexOf(value) >= 0;
+  }
+
+  /**
+   * Finds the first node in the graph that satisfies the predicate using a depth first traversal of the graph. Nodes
+   * that have already been searched are not searched again.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param predicate The predicate used to find the node.
+   * @return The value of the first node that matches the predicate starting at the rootValue node. Null if the
+   * rootValue not doesn't exist or if no nodes match the predicate.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public T find(T rootValue, Predicate<T> predicate) throws CyclicException {
+    int root = nodes.indexOf(rootValue);
+    if (root < 0) {
+      return null;
+    }
+
+    if (predicate.test(rootValue)) {
+      return rootValue;
+    }
+
+    int nodeCount = nodes.size();
+    boolean[] onPath = new boolean[nodeCount];
+    boolean[] searched = new boolean[nodeCount];
+    int[] stack = new int[16];
+    int[] cursors = new int[16];
+    int top = 0;
+    stack[0] = root;
+    cursors[0] = outboundOffsets[root];
+
+    while (top >= 0) {
+      int node = stack[top];
+      if (cursors[top] == outboundOffsets[node + 1]) {
+        searched[node] = true;
+        top--;
+        if (top >= 0) {
+          onPath[stack[top]] = false;
+        }
+        continue;
+      }
+
+      int destination = outboundDestinations[cursors[top]++];
+      if (onPath[destination]) {
+        throw new CyclicException("Encountered the graph node [" + nodes.get(destination) + "] twice. Your graph has a cycle");
+      }
+
+      if (searched[destination]) {
+        continue;
+      }
+
+      T value = nodes.get(destination);
+      if (predicate.test(value)) {
+        return value;
+      }
+
+      onPath[node] = true;
+      top++;
+      if (top == stack.length) {
+        stack = Arrays.copyOf(stack, top * 2);
+        cursors = Arrays.copyOf(cursors, top * 2);
+      }
+      stack[top] = destination;
+      cursors[top] = outboundOffsets[destination];
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns a read-only list of the inbound edges for the node. The Edge objects are created when they are retrieved
+   * from the list.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or an empty list if the node exists and has no edges or null if the node does not exist.
+   */
+  @Override
+  public List<Edge<T, U>> getInboundEdges(T value) {
+    int node = nodes.indexOf(value);
+    if (node < 0) {
+      return null;
+    }
+
+    int start = inboundOffsets[node];
+    int end = inboundOffsets[node + 1];
+    return new AbstractList<>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public Edge<T, U> get(int index) {
+        int i = start + index;
+        if (index < 0 || i >= end) {
+          throw new IndexOutOfBoundsException("Index [" + index + "] is out of bounds");
+        }
+
+        return new BaseEdge<>(nodes.get(inboundOrigins[i]), value, (U) edgeValues[inboundEdges[i]]);
+      }
+
+      @Override
+      public int size() {
+        return end - start;
+      }
+    };
+  }
+
+  /**
+   * Returns a read-only list of the outbound edges for the node. The Edge objects are created when they are retrieved
+   * from the list.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or an empty list if the node exists and has no edges or null if the node does not exist.
+   */
+  @Override
+  public List<Edge<T, U>> getOutboundEdges(T value) {
+    int node = nodes.indexOf(value);
+    if (node < 0) {
+      return null;
+    }
+
+    int start = outboundOffsets[node];
+    int end = outboundOffsets[node + 1];
+    return new AbstractList<>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public Edge<T, U> get(int index) {
+        int i = start + index;
+        if (index < 0 || i >= end) {
+          throw new IndexOutOfBoundsException("Index [" + index + "] is out of bounds");
+        }
+
+        return new BaseEdge<>(value, nodes.get(outboundDestinations[i]), (U) edgeValues[i]);
+      }
+
+      @Override
+      public int size() {
+        return end - start;
+      }
+    };
+  }
+
+  /**
+   * Determines all the paths from the origin to the destination. The traversal stops at the destination, so a path
+   * never goes through the destination node.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @return A list of all the paths between the two nodes or an empty list if there are none or null if either of the
+   * nodes don't exist.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public List<Path<T>> getPaths(T origin, T destination) {
+    int start = nodes.indexOf(origin);
+    int end = nodes.indexOf(destination);
+    if (start < 0 || end < 0) {
+      return null;
+    }
+
+    List<Path<T>> paths = new ArrayList<>();
+    boolean[] onPath = new boolean[nodes.size()];
+    int[] stack = new int[16];
+    int[] cursors = new int[16];
+    int top = 0;
+    stack[0] = start;
+    cursors[0] = outboundOffsets[start];
+    onPath[start] = true;
+
+    while (top >= 0) {
+      int node = stack[top];
+      if (cursors[top] == outboundOffsets[node + 1]) {
+        onPath[node] = false;
+        top--;
+        continue;
+      }
+
+      int next = outboundDestinations[cursors[top]++];
+      if (onPath[next]) {
+        throw new CyclicException("Encountered the graph node [" + nodes.get(next) + "] twice. Your graph has a cycle");
+      }
+
+      if (next == end) {
+        List<T> path = new ArrayList<>(top + 2);
+        for (int i = 0; i <= top; i++) {
+          path.add(nodes.get(stack[i]));
+        }
+        path.add(destination);
+        paths.add(new BasePath<>(path));
+        continue;
+      }
+
+      top++;
+      if (top == stack.length) {
+        stack = Arrays.copyOf(stack, top * 2);
+        cursors = Arrays.copyOf(cursors, top * 2);
+      }
+      stack[top] = next;
+      cursors[top] = outboundOffsets[next];
+      onPath[next] = true;
+    }
+
+    return paths;
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void prune(T... excludes) {
+    throw new UnsupportedOperationException("A CompactGraph cannot be modified");
+  }
+
+  /**
+   * Returns the reachability index for the graph. Since the graph cannot be modified, the index is built once and
+   * cached.
+   *
+   * @return The index.
+   */
+  @Override
+  public ReachabilityIndex<T> reachabilityIndex() {
+    ReachabilityIndex<T> index = reachabilityIndex;
+    if (index == null) {
+      index = new ReachabilityIndex<>(this);
+      reachabilityIndex = index;
+    }
+
+    return index;
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable.
+   */
+  @Override
+  public void removeEdge(T origin, T destination, U value) {
+    throw new UnsupportedOperationException("A CompactGraph cannot be modified");
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable.
+   */
+  @Override
+  public void removeNode(T value) throws CyclicException {
+    throw new UnsupportedOperationException("A CompactGraph cannot be modified");
+  }
+
+  @Override
+  public int size() {
+    return nodes.size();
+  }
+
+  /**
+   * Performs a depth first traversal of the graph using the same rules as {@link HashGraph#traverse}. If the edge
+   * filter is null, the traversal does not allocate any Edge objects. Otherwise, the edges are created so they can be
+   * passed to the filter.
+   *
+   * @param rootValue      The value of the node to start the traversal from.
+   * @param visitNodesOnce Determines if nodes are visited once if they have multiple links.
+   * @param edgeFilter     The EdgeFilter that is used to control the traversal.
+   * @param consumer       The GraphConsumer that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void traverse(T rootValue, boolean visitNodesOnce, EdgeFilter<T, U> edgeFilter, GraphConsumer<T, U> consumer) throws CyclicException {
+    int root = nodes.indexOf(rootValue);
+    if (root < 0) {
+      throw new IllegalArgumentException("Invalid rootValue [" + rootValue + "] to start the traversal from.");
+    }
+
+    int nodeCount = nodes.size();
+    boolean[] onPath = new boolean[nodeCount];
+    boolean[] visited = new boolean[nodeCount];
+
+    // Each frame is a node and a window into the edge buffer that contains the indexes of its (filtered) outbound edges
+    int[] frameNodes = new int[16];
+    int[] frameCursors = new int[16];
+    int[] frameEnds = new int[16];
+    int[] edgeBuffer = new int[64];
+    int edgeTop = 0;
+    int top = 0;
+
+    frameNodes[0] = root;
+    for (int i = outboundOffsets[root]; i < outboundOffsets[root + 1]; i++) {
+      if (edgeTop == edgeBuffer.length) {
+        edgeBuffer = Arrays.copyOf(edgeBuffer, edgeTop * 2);
+      }
+      edgeBuffer[edgeTop++] = i;
+    }
+    frameEnds[0] = edgeTop;
+
+    while (top >= 0) {
+      int node = frameNodes[top];
+      if (frameCursors[top] == frameEnds[top]) {
+        top--;
+        if (top >= 0) {
+          edgeTop = frameEnds[top];
+          onPath[frameNodes[top]] = false;
+        }
+        continue;
+      }
+
+      int edge = edgeBuffer[frameCursors[top]++];
+      int destination = outboundDestinations[edge];
+      if (onPath[destination]) {
+        throw new CyclicException("Encountered the graph node [" + nodes.get(destination) + "] twice. Your graph has a cycle");
+      }
+
+      if (visitNodesOnce && visited[destination]) {
+        continue;
+      }
+
+      onPath[node] = true;
+
+      boolean cont = consumer.consume(nodes.get(node), nodes.get(destination), (U) edgeValues[edge], top + 1, frameCursors[top] == frameEnds[top]);
+      visited[destination] = true;
+
+      if (!cont) {
+        onPath[node] = false;
+        continue;
+      }
+
+      // Push the destination's frame. The node stays on the path until the frame is popped
+      top++;
+      if (top == frameNodes.length) {
+        frameNodes = Arrays.copyOf(frameNodes, top * 2);
+        frameCursors = Arrays.copyOf(frameCursors, top * 2);
+        frameEnds = Arrays.copyOf(frameEnds, top * 2);
+      }
+
+      int needed = edgeTop + outboundOffsets[destination + 1] - outboundOffsets[destination];
+      if (needed > edgeBuffer.length) {
+        edgeBuffer = Arrays.copyOf(edgeBuffer, Math.max(needed, edgeBuffer.length * 2));
+      }
+
+      frameNodes[top] = destination;
+      frameCursors[top] = edgeTop;
+      if (edgeFilter == null) {
+        for (int i = outboundOffsets[destination]; i < outboundOffsets[destination + 1]; i++) {
+          edgeBuffer[edgeTop++] = i;
+        }
+      } else {
+        Edge<T, U> entryPoint = new BaseEdge<>(nodes.get(node), nodes.get(destination), (U) edgeValues[edge]);
+        for (int i = outboundOffsets[destination]; i < outboundOffsets[destination + 1]; i++) {
+          if (edgeFilter.filter(new BaseEdge<>(entryPoint.getDestination(), nodes.get(outboundDestinations[i]), (U) edgeValues[i]), entryPoint)) {
+            edgeBuffer[edgeTop++] = i;
+          }
+        }
+      }
+      frameEnds[top] = edgeTop;
+    }
+  }
+
+  /**
+   * Performs a depth first traversal of the graph using the same rules as {@link HashGraph#traverseUp}.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param visitor   The GraphVisitor that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void traverseUp(T rootValue, GraphVisitor<T, U> visitor) throws CyclicException {
+    int root = nodes.indexOf(rootValue);
+    if (root < 0) {
+      throw new IllegalArgumentException("Invalid rootValue [" + rootValue + "] to start the traversal from.");
+    }
+
+    boolean[] onPath = new boolean[nodes.size()];
+    int[] stack = new int[16];
+    int[] cursors = new int[16];
+    int top = 0;
+    stack[0] = root;
+    cursors[0] = outboundOffsets[root];
+
+    while (top >= 0) {
+      int node = stack[top];
+      if (cursors[top] == outboundOffsets[node + 1]) {
+        top--;
+        if (top >= 0) {
+          // Visit the edge that led to the popped node on the way back up
+          int parent = stack[top];
+          int edge = cursors[top] - 1;
+          onPath[parent] = false;
+          visitor.visit(nodes.get(parent), nodes.get(node), (U) edgeValues[edge], top + 1);
+        }
+        continue;
+      }
+
+      int destination = outboundDestinations[cursors[top]++];
+      if (onPath[destination]) {
+        throw new CyclicException("Encountered the graph node [" + nodes.get(destination) + "] twice. Your graph has a cycle");
+      }
+
+      onPath[node] = true;
+      top++;
+      if (top == stack.length) {
+        stack = Arrays.copyOf(stack, top * 2);
+        cursors = Arrays.copyOf(cursors, top * 2);
+      }
+      stack[top] = destination;
+      cursors[top] = outboundOffsets[destination];
+    }
+  }
+
+  /**
+   * Returns a Set that contains all of the unique values contained in the graph in id order.
+   *
+   * @return All the values.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Set<T> values() {
+    Set<T> values = new LinkedHashSet<>();
+    for (Object value : nodes.copyValues()) {
+      values.add((T) value);
+    }
+    return values;
+  }
+
+  /**
+   * Builds CompactGraphs. Edges are de-duplicated the same way that the {@link HashGraph} de-duplicates them (the
+   * origin, destination and edge value are all equal).
+   *
+   * @param <T> The node value type.
+   * @param <U> The edge value type.
+   */
+  public static class Builder<T, U> {
+    final ValueTable<T> nodes;
+
+    private int[] destinations;
+
+    private int edgeCount;
+
+    private int edgeMask;
+
+    private int[] edgeSlots;
+
+    private int[] origins;
+
+    private Object[] values;
+
+    public Builder() {
+      this(16, 16);
+    }
+
+    public Builder(int expectedNodes, int expectedEdges) {
+      int capacity = Math.max(expectedEdges, 4);
+      this.nodes = new ValueTable<>(expectedNodes);
+      this.origins = new int[capacity];
+      this.destinations = new int[capacity];
+      this.values = new Object[capacity];
+
+      int slots = 8;
+      while (slots < capacity * 2) {
+        slots <<= 1;
+      }
+      this.edgeSlots = new int[slots];
+      this.edgeMask = slots - 1;
+    }
+
+    private static int hash(int origin, int destination, Object value) {
+      int h = (origin * 31 + destination) * 31 + value.hashCode();
+      h *= 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+
+    /**
+     * Adds an edge to the graph, creating the nodes if necessary.
+     *
+     * @param origin      The origin value.
+     * @param destination The destination value.
+     * @param edgeValue   The edge value.
+     * @return This Builder.
+     */
+    public Builder<T, U> addEdge(T origin, T destination, U edgeValue) {
+      int originId = nodes.add(origin);
+      int destinationId = nodes.add(destination);
+
+      int slot = hash(originId, destinationId, edgeValue) & edgeMask;
+      while (edgeSlots[slot] != 0) {
+        int edge = edgeSlots[slot] - 1;
+        if (origins[edge] == originId && destinations[edge] == destinationId && values[edge].equals(edgeValue)) {
+          return this;
+        }
+        slot = (slot + 1) & edgeMask;
+      }
+
+      if (edgeCount == origins.length) {
+        origins = Arrays.copyOf(origins, edgeCount * 2);
+        destinations = Arrays.copyOf(destinations, edgeCount * 2);
+        values = Arrays.copyOf(values, edgeCount * 2);
+      }
+
+      origins[edgeCount] = originId;
+      destinations[edgeCount] = destinationId;
+      values[edgeCount] = edgeValue;
+      edgeSlots[slot] = ++edgeCount;
+
+      if (edgeCount * 2 > edgeSlots.length) {
+        rehash();
+      }
+
+      return this;
+    }
+
+    /**
+     * Adds a node without any edges to the graph. This is mainly useful for controlling the order of the node ids or
+     * for copying graphs that have nodes without edges.
+     *
+     * @param value The node value.
+     * @return This Builder.
+     */
+    public Builder<T, U> addNode(T value) {
+      nodes.add(value);
+      return this;
+    }
+
+    /**
+     * Builds the CompactGraph. The Builder should not be used after this is called.
+     *
+     * @return The CompactGraph.
+     */
+    public CompactGraph<T, U> build() {
+      return new CompactGraph<>(nodes, origins, destinations, values, edgeCount);
+    }
+
+    private void rehash() {
+      int[] newSlots = new int[edgeSlots.length * 2];
+      int newMask = newSlots.length - 1;
+      for (int edge = 0; edge < edgeCount; edge++) {
+        int slot = hash(origins[edge], destinations[edge], values[edge]) & newMask;
+        while (newSlots[slot] != 0) {
+          slot = (slot + 1) & newMask;
+        }
+        newSlots[slot] = edge + 1;
+      }
+
+      edgeSlots = newSlots;
+      edgeMask = newMask;
+    }
+  }
+}
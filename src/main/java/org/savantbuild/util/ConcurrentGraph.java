@@ -0,0 +1,533 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+
+import static java.util.Arrays.asList;
+
+/**
+ * <p>
+ * A graph that can be read and modified by many threads at once. It is meant for graphs that are discovered in
+ * parallel, like the dependency graph during artifact resolution, where many threads add edges at the same time.
+ * </p>
+ * <h3>Internals</h3>
+ * <p>
+ * The nodes are stored in a ConcurrentHashMap. The edges of each node are stored in an append-only array that is
+ * published as an immutable snapshot through a volatile field. Adding an edge only locks the edge lists of the origin
+ * and the destination (the locks are striped by node), so threads that add edges to different nodes don't contend with
+ * each other. Reads never lock.
+ * </p>
+ * <p>
+ * Removing edges and nodes is rare, so it is handled by a graph-wide {@link StructureLock}. Adding an edge holds the
+ * lock shared and removing holds it exclusively, which makes removals atomic with respect to the additions. The shared
+ * side is biased towards the additions: each thread counts itself in one of several stripes that sit on separate cache
+ * lines rather than in the single counter of a read/write lock, so the threads that add edges don't contend on the
+ * lock. Removing waits for every stripe to drain.
+ * </p>
+ * <h3>Consistency model</h3>
+ * <ul>
+ *   <li>Once {@link #addEdge} returns, the edge (and its nodes) is visible to every thread in the outbound edges of the
+ *   origin and the inbound edges of the destination. While the call is in progress, another thread might see the edge
+ *   in the outbound edges of the origin before it sees it in the inbound edges of the destination.</li>
+ *   <li>Adding the same edge from multiple threads at once adds it exactly once.</li>
+ *   <li>The Lists returned by {@link #getOutboundEdges} and {@link #getInboundEdges} are immutable snapshots. They
+ *   never change, even if edges are added or removed later, and they can be iterated while the graph is modified.</li>
+ *   <li>{@link #values()} is a snapshot of the nodes in the order they were added to the graph.</li>
+ *   <li>Traversals ({@link #traverse}, {@link #traverseUp}, {@link #find} and {@link #getPaths}) are weakly
+ *   consistent. They see every edge that was added before they started and not removed during the traversal. The
+ *   outbound edges of each node are read once, when the traversal reaches the node, so an edge that is added while the
+ *   traversal is running may or may not be seen. A node that is removed during the traversal is treated as a leaf. A
+ *   traversal can throw a CyclicException if another thread adds an edge that creates a cycle.</li>
+ *   <li>The whole graph algorithms in {@link GraphTools} (topological sorts, strongly connected components, etc.) copy
+ *   the graph node by node, so they should only be used when no other threads are modifying the graph.</li>
+ * </ul>
+ * <h3>Node values</h3>
+ * <p>
+ * Just like the {@link HashGraph}, all values must have a good equal and hashcode implementation.
+ * </p>
+ *
+ * @author Brian Pontarelli
+ */
+public class ConcurrentGraph<T, U> implements Graph<T, U> {
+  private final StructureLock lock = new StructureLock();
+
+  private final AtomicLong nodeSequence = new AtomicLong();
+
+  private final Map<T, ConcurrentNode<T, U>> nodes = new ConcurrentHashMap<>();
+
+  @Override
+  public void addEdge(T origin, T destination, U value) {
+    int stripe = lock.lockShared();
+    try {
+      ConcurrentNode<T, U> originNode = addNode(origin);
+      ConcurrentNode<T, U> destinationNode = addNode(destination);
+
+      // The origin and destination share the same edge instance
+      Edge<T, U> edge = new BaseEdge<>(origin, destination, value);
+      if (originNode.outbound.add(edge)) {
+        destinationNode.inbound.add(edge);
+      }
+    } finally {
+      lock.unlockShared(stripe);
+    }
+  }
+
+  @Override
+  public boolean contains(T value) {
+    return nodes.containsKey(value);
+  }
+
+  /**
+   * Finds the first node in the graph that satisfies the predicate using {@link GraphTools#find}.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param predicate The predicate used to find the node.
+   * @return The value of the first node that matches the predicate starting at the rootValue node. Null if the
+   * rootValue not doesn't exist or if no nodes match the predicate.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public T find(T rootValue, Predicate<T> predicate) throws CyclicException {
+    return GraphTools.find(this, rootValue, predicate);
+  }
+
+  /**
+   * Returns an immutable snapshot of the inbound edges of the node. The snapshot is not copied, so this doesn't
+   * allocate.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or null if the node does not exist.
+   */
+  @Override
+  public List<Edge<T, U>> getInboundEdges(T value) {
+    ConcurrentNode<T, U> node = nodes.get(value);
+    if (node == null) {
+      return null;
+    }
+
+    return node.inbound.snapshot;
+  }
+
+  /**
+   * Returns an immutable snapshot of the outbound edges of the node. The snapshot is not copied, so this doesn't
+   * allocate.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or null if the node does not exist.
+   */
+  @Override
+  public List<Edge<T, U>> getOutboundEdges(T value) {
+    ConcurrentNode<T, U> node = nodes.get(value);
+    if (node == null) {
+      return null;
+    }
+
+    return node.outbound.snapshot;
+  }
+
+  /**
+   * Determines all the paths from the origin to the destination using {@link GraphTools#streamPaths}.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @return A list of all the paths between the two nodes or an empty list if there are none or null if either of the
+   * nodes don't exist.
+   * @throws CyclicException If there is a cycle between the origin and the destination.
+   */
+  @Override
+  public List<Path<T>> getPaths(T origin, T destination) {
+    if (!nodes.containsKey(origin) || !nodes.containsKey(destination)) {
+      return null;
+    }
+
+    return GraphTools.streamPaths(this, origin, destination).collect(Collectors.toList());
+  }
+
+  /**
+   * Removes all the nodes that have no inbound edges (except the given nodes) along with all the nodes that are
+   * orphaned by removing them. This holds the structure lock exclusively, so it waits for the edges that are being
+   * added.
+   *
+   * @param excludes The nodes to exclude from pruning.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void prune(T... excludes) {
+    lock.lockExclusive();
+    try {
+      Set<T> excludeValues = new HashSet<>(asList(excludes));
+      List<ConcurrentNode<T, U>> orphans = new ArrayList<>();
+      nodes.values().forEach((node) -> {
+        if (!excludeValues.contains(node.value) && node.inbound.snapshot.isEmpty()) {
+          orphans.add(node);
+        }
+      });
+
+      removeNodes(orphans);
+    } finally {
+      lock.unlockExclusive();
+    }
+  }
+
+  @Override
+  public void removeEdge(T origin, T destination, U value) {
+    lock.lockExclusive();
+    try {
+      ConcurrentNode<T, U> originNode = nodes.get(origin);
+      ConcurrentNode<T, U> destinationNode = nodes.get(destination);
+      if (originNode == null || destinationNode == null) {
+        return;
+      }
+
+      Edge<T, U> edge = new BaseEdge<>(origin, destination, value);
+      if (originNode.outbound.removeIf(edge::equals)) {
+        destinationNode.inbound.removeIf(edge::equals);
+      }
+    } finally {
+      lock.unlockExclusive();
+    }
+  }
+
+  /**
+   * Removes the node and every node that is orphaned by removing it. This holds the structure lock exclusively, so it
+   * waits for the edges that are being added.
+   *
+   * @param value The value to remove.
+   */
+  @Override
+  public void removeNode(T value) {
+    lock.lockExclusive();
+    try {
+      ConcurrentNode<T, U> node = nodes.get(value);
+      if (node != null) {
+        removeNodes(Collections.singletonList(node));
+      }
+    } finally {
+      lock.unlockExclusive();
+    }
+  }
+
+  @Override
+  public int size() {
+    return nodes.size();
+  }
+
+  /**
+   * Performs a depth first traversal of the graph using {@link GraphTools#traverse}. See the class documentation for
+   * how the traversal behaves while other threads modify the graph.
+   *
+   * @param rootValue      The value of the node to start the traversal from.
+   * @param visitNodesOnce Determines if nodes are visited once if they have multiple links.
+   * @param edgeFilter     The EdgeFilter that is used to control the traversal.
+   * @param consumer       The GraphConsumer that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public void traverse(T rootValue, boolean visitNodesOnce, EdgeFilter<T, U> edgeFilter, GraphConsumer<T, U> consumer) throws CyclicException {
+    GraphTools.traverse(this, rootValue, visitNodesOnce, edgeFilter, consumer);
+  }
+
+  /**
+   * Performs a depth first traversal of the graph using {@link GraphTools#traverseUp}. See the class documentation for
+   * how the traversal behaves while other threads modify the graph.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param visitor   The GraphVisitor that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public void traverseUp(T rootValue, GraphVisitor<T, U> visitor) throws CyclicException {
+    GraphTools.traverseUp(this, rootValue, visitor);
+  }
+
+  /**
+   * Returns a snapshot of the values in the graph in the order the nodes were added to the graph.
+   *
+   * @return All the values.
+   */
+  @Override
+  public Set<T> values() {
+    List<ConcurrentNode<T, U>> sorted = new ArrayList<>(nodes.values());
+    sorted.sort(Comparator.comparingLong((node) -> node.sequence));
+
+    Set<T> values = new LinkedHashSet<>();
+    sorted.forEach((node) -> values.add(node.value));
+    return values;
+  }
+
+  private ConcurrentNode<T, U> addNode(T value) {
+    ConcurrentNode<T, U> node = nodes.get(value);
+    if (node != null) {
+      return node;
+    }
+
+    return nodes.computeIfAbsent(value, (key) -> new ConcurrentNode<>(key, nodeSequence.getAndIncrement()));
+  }
+
+  /**
+   * Removes the given nodes and every node that is orphaned by removing them using the same reference counting pass as
+   * {@link HashGraph#removeNodes}. This must be called while holding the structure lock exclusively.
+   *
+   * @param seeds The nodes to remove.
+   */
+  private void removeNodes(Collection<ConcurrentNode<T, U>> seeds) {
+    Set<ConcurrentNode<T, U>> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    Map<ConcurrentNode<T, U>, int[]> remainingInbound = new IdentityHashMap<>();
+    Deque<ConcurrentNode<T, U>> queue = new ArrayDeque<>();
+    for (ConcurrentNode<T, U> seed : seeds) {
+      if (removed.add(seed)) {
+        queue.add(seed);
+      }
+    }
+
+    while (!queue.isEmpty()) {
+      ConcurrentNode<T, U> node = queue.poll();
+      for (Edge<T, U> edge : node.outbound.snapshot) {
+        ConcurrentNode<T, U> destination = nodes.get(edge.getDestination());
+        if (removed.contains(destination)) {
+          continue;
+        }
+
+        int[] count = remainingInbound.computeIfAbsent(destination, (key) -> new int[]{key.inbound.snapshot.size()});
+        if (--count[0] == 0) {
+          removed.add(destination);
+          queue.add(destination);
+        }
+      }
+    }
+
+    // Find the remaining nodes that have edges to or from the removed nodes and then remove those edges
+    Set<T> removedValues = new HashSet<>();
+    removed.forEach((node) -> removedValues.add(node.value));
+    Set<ConcurrentNode<T, U>> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (ConcurrentNode<T, U> node : removed) {
+      node.outbound.snapshot.stream().map((edge) -> nodes.get(edge.getDestination())).filter((other) -> !removed.contains(other)).forEach(affected::add);
+      node.inbound.snapshot.stream().map((edge) -> nodes.get(edge.getOrigin())).filter((other) -> !removed.contains(other)).forEach(affected::add);
+    }
+
+    for (ConcurrentNode<T, U> node : affected) {
+      node.inbound.removeIf((edge) -> removedValues.contains(edge.getOrigin()));
+      node.outbound.removeIf((edge) -> removedValues.contains(edge.getDestination()));
+    }
+
+    removed.forEach((node) -> nodes.remove(node.value));
+  }
+
+  /**
+   * A node in the ConcurrentGraph. The sequence is the order the node was added to the graph.
+   */
+  private static class ConcurrentNode<T, U> {
+    public final EdgeList<T, U> inbound = new EdgeList<>(false);
+
+    public final EdgeList<T, U> outbound = new EdgeList<>(true);
+
+    public final long sequence;
+
+    public final T value;
+
+    public ConcurrentNode(T value, long sequence) {
+      this.value = value;
+      this.sequence = sequence;
+    }
+  }
+
+  /**
+   * The edges of a single node. The edges are appended to an array while holding the lock of the EdgeList and each
+   * append publishes a new {@link EdgeSnapshot} through the volatile snapshot field. Older snapshots share the array,
+   * but they never read past their own size, so appending doesn't affect them. Removing an edge copies the array.
+   */
+  private static class EdgeList<T, U> {
+    private final Set<Edge<T, U>> index;
+
+    @SuppressWarnings("unchecked")
+    public volatile EdgeSnapshot<T, U> snapshot = new EdgeSnapshot<>(new Edge[0], 0);
+
+    /**
+     * @param indexed Determines if the EdgeList keeps a hash index of its edges to reject duplicates. The inbound edges
+     *                don't need an index because an edge is only added to them if it was added to the outbound edges
+     *                of the origin.
+     */
+    public EdgeList(boolean indexed) {
+      this.index = indexed ? new HashSet<>() : null;
+    }
+
+    public synchronized boolean add(Edge<T, U> edge) {
+      if (index != null && !index.add(edge)) {
+        return false;
+      }
+
+      EdgeSnapshot<T, U> current = snapshot;
+      Edge<T, U>[] edges = current.edges;
+      if (current.size == edges.length) {
+        edges = Arrays.copyOf(edges, Math.max(4, edges.length * 2));
+      }
+
+      edges[current.size] = edge;
+      snapshot = new EdgeSnapshot<>(edges, current.size + 1);
+      return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized boolean removeIf(Predicate<Edge<T, U>> predicate) {
+      EdgeSnapshot<T, U> current = snapshot;
+      List<Edge<T, U>> kept = new ArrayList<>(current.size);
+      for (Edge<T, U> edge : current) {
+        if (!predicate.test(edge)) {
+          kept.add(edge);
+        } else if (index != null) {
+          index.remove(edge);
+        }
+      }
+
+      if (kept.size() == current.size) {
+        return false;
+      }
+
+      snapshot = new EdgeSnapshot<>(kept.toArray(new Edge[0]), kept.size());
+      return true;
+    }
+  }
+
+  /**
+   * An immutable List of the first size edges of the array.
+   */
+  private static class EdgeSnapshot<T, U> extends AbstractList<Edge<T, U>> implements RandomAccess {
+    public final Edge<T, U>[] edges;
+
+    public final int size;
+
+    public EdgeSnapshot(Edge<T, U>[] edges, int size) {
+      this.edges = edges;
+      this.size = size;
+    }
+
+    @Override
+    public Edge<T, U> get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index [" + index + "] is out of bounds");
+      }
+
+      return edges[index];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  /**
+   * The graph-wide lock that makes removals atomic with respect to the additions. It is biased towards the shared side,
+   * which is taken for every edge that is added:
+   * <ul>
+   *   <li>Taking the lock shared increments the counter of the thread's stripe and then checks that no thread holds it
+   *   exclusively. If one does, it decrements the counter and waits for the exclusive holder to finish.</li>
+   *   <li>Taking the lock exclusively serializes the exclusive holders with a ReentrantLock, announces the exclusive
+   *   holder and then waits until the counters of every stripe are zero.</li>
+   * </ul>
+   * The stripes are padded so that each one is on its own cache line. Since the counters and the flag are volatile,
+   * either the thread that takes the lock shared sees the flag or the exclusive holder sees its counter.
+   */
+  private static class StructureLock {
+    /**
+     * The number of ints between two stripes (64 bytes, the size of a cache line).
+     */
+    private static final int PADDING = 16;
+
+    private static final int STRIPES = stripes();
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(STRIPES * PADDING);
+
+    private final ReentrantLock exclusiveLock = new ReentrantLock();
+
+    private volatile boolean exclusive;
+
+    public void lockExclusive() {
+      exclusiveLock.lock();
+      exclusive = true;
+      for (int stripe = 0; stripe < STRIPES; stripe++) {
+        while (counts.get(stripe * PADDING) != 0) {
+          Thread.yield();
+        }
+      }
+    }
+
+    /**
+     * Takes the lock shared.
+     *
+     * @return The index of the counter that was incremented, which must be passed to {@link #unlockShared}.
+     */
+    public int lockShared() {
+      long id = Thread.currentThread().getId();
+      int index = (int) ((id ^ (id >>> 16)) & (STRIPES - 1)) * PADDING;
+      while (true) {
+        counts.incrementAndGet(index);
+        if (!exclusive) {
+          return index;
+        }
+
+        // Back out and wait for the exclusive holder to finish
+        counts.decrementAndGet(index);
+        exclusiveLock.lock();
+        exclusiveLock.unlock();
+      }
+    }
+
+    public void unlockExclusive() {
+      exclusive = false;
+      exclusiveLock.unlock();
+    }
+
+    public void unlockShared(int index) {
+      counts.decrementAndGet(index);
+    }
+
+    /**
+     * @return The smallest power of two that is at least twice the number of processors.
+     */
+    private static int stripes() {
+      int stripes = 1;
+      while (stripes < Runtime.getRuntime().availableProcessors() * 2) {
+        stripes <<= 1;
+      }
+
+      return stripes;
+    }
+  }
+}
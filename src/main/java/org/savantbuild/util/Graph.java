@@ -20,7 +20,12 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
 
 /**
  * <p>
@@ -63,6 +68,16 @@ public interface Graph<T, U> {
    */
   void addEdge(T origin, T destination, U edgeValue);
 
+  /**
+   * Collapses each strongly connected component of the graph into a single node, which produces an acyclic graph.
+   *
+   * @return The condensation graph whose node values are the Sets of values in each component.
+   * @see GraphTools#condensation(Graph)
+   */
+  default Graph<Set<T>, U> condensation() {
+    return GraphTools.condensation(this);
+  }
+
   /**
    * Determines if the Graph contains the given value or not.
    *
@@ -71,6 +86,41 @@ public interface Graph<T, U> {
    */
   boolean contains(T value);
 
+  /**
+   * Counts the paths from the origin to the destination without enumerating them. The paths end at the destination.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @return The number of paths or zero if either of the nodes don't exist.
+   * @throws CyclicException If there is a cycle between the origin and the destination.
+   * @throws ArithmeticException If the number of paths overflows a long.
+   * @see GraphTools#countPaths(Graph, Object, Object)
+   */
+  default long countPaths(T origin, T destination) throws CyclicException {
+    return GraphTools.countPaths(this, origin, destination);
+  }
+
+  /**
+   * Finds all of the cycles in the graph in a single pass.
+   *
+   * @return The strongly connected components that contain cycles.
+   * @see GraphTools#cycles(Graph)
+   */
+  default List<Set<T>> cycles() {
+    return GraphTools.cycles(this);
+  }
+
+  /**
+   * Computes the differences between this graph and the given graph.
+   *
+   * @param other The new graph.
+   * @return The diff that turns this graph into the other graph.
+   * @see GraphTools#diff(Graph, Graph)
+   */
+  default GraphDiff<T, U> diff(Graph<T, U> other) {
+    return GraphTools.diff(this, other);
+  }
+
   /**
    * Finds the first node in the graph that satisfies the predicate using a depth first traversal of the graph.
    *
@@ -81,6 +131,34 @@ public interface Graph<T, U> {
    */
   T find(T rootValue, Predicate<T> predicate) throws CyclicException;
 
+  /**
+   * Calls the consumer for each inbound edge of the node whose value is given. Implementations can override this to
+   * iterate over their stored edges without creating a List.
+   *
+   * @param value    The value to find the edges for.
+   * @param consumer The consumer that is called for each edge. This is not called if the node does not exist.
+   */
+  default void forEachInbound(T value, Consumer<? super Edge<T, U>> consumer) {
+    List<Edge<T, U>> edges = getInboundEdges(value);
+    if (edges != null) {
+      edges.forEach(consumer);
+    }
+  }
+
+  /**
+   * Calls the consumer for each outbound edge of the node whose value is given. Implementations can override this to
+   * iterate over their stored edges without creating a List.
+   *
+   * @param value    The value to find the edges for.
+   * @param consumer The consumer that is called for each edge. This is not called if the node does not exist.
+   */
+  default void forEachOutbound(T value, Consumer<? super Edge<T, U>> consumer) {
+    List<Edge<T, U>> edges = getOutboundEdges(value);
+    if (edges != null) {
+      edges.forEach(consumer);
+    }
+  }
+
   /**
    * Returns a list of all the inbound edges for the node whose value is given. This locates the first node with the
    * value.
@@ -117,6 +195,53 @@ public interface Graph<T, U> {
   @SuppressWarnings("unchecked")
   void prune(T... excludes);
 
+  /**
+   * Returns an index that answers reachability questions (does one node transitively depend on another) for the
+   * current state of the graph without traversing it. Building the index is linear in the size of the graph.
+   * Implementations may cache the index until the graph is modified.
+   *
+   * @return The index.
+   */
+  default ReachabilityIndex<T> reachabilityIndex() {
+    return new ReachabilityIndex<>(this);
+  }
+
+  /**
+   * Returns a read-only view of the part of the graph that is reachable from the root, which contains the same edges
+   * that {@link #traverse} traverses from the root using the EdgeFilter. The reachable nodes and edges are found once,
+   * in time linear to the size of the view, and the view shares the nodes and edges of this graph rather than copying
+   * them.
+   *
+   * @param root       The value of the root node.
+   * @param edgeFilter The EdgeFilter that determines which edges are in the view or null to include every reachable
+   *                   edge.
+   * @return The view.
+   * @throws IllegalArgumentException If the root doesn't exist.
+   * @see ReachableGraph
+   */
+  default Graph<T, U> reachableView(T root, EdgeFilter<T, U> edgeFilter) {
+    return new ReachableGraph<>(this, root, edgeFilter, null);
+  }
+
+  /**
+   * Reduces the graph below the root from the bottom up, computing independent subtrees in parallel. The result for a
+   * node is <code>leaf.apply(node)</code> combined with the result of each of its dependencies, and each node is only
+   * computed once.
+   *
+   * @param root    The value of the node to start from.
+   * @param leaf    Computes the result of a node by itself.
+   * @param combine Combines a result with the result of a dependency.
+   * @param <R>     The result type.
+   * @return The result for the root.
+   * @throws IllegalArgumentException If the root doesn't exist.
+   * @throws CyclicException          If there is a cycle below the root.
+   * @see GraphTools#reduceUp(Graph, Object, Function, BiFunction)
+   */
+  default <R> R reduceUp(T root, Function<? super T, ? extends R> leaf, BiFunction<? super R, ? super R, ? extends R> combine)
+      throws CyclicException {
+    return GraphTools.reduceUp(this, root, leaf, combine);
+  }
+
   /**
    * Removes the edge between the two nodes from the graph.
    *
@@ -134,11 +259,113 @@ public interface Graph<T, U> {
    */
   void removeNode(T value) throws CyclicException;
 
+  /**
+   * Finds a path with the fewest edges from the origin to the destination.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @return The path or null if either of the nodes don't exist or the destination can't be reached from the origin.
+   * @see GraphTools#shortestPath(Graph, Object, Object)
+   */
+  default Path<T> shortestPath(T origin, T destination) {
+    return GraphTools.shortestPath(this, origin, destination);
+  }
+
+  /**
+   * Finds the cheapest path from the origin to the destination, where the cost of a path is the sum of the costs of its
+   * edges.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @param cost        Returns the cost of an edge from its value. Costs must not be negative.
+   * @return The path or null if either of the nodes don't exist or the destination can't be reached from the origin.
+   * @throws IllegalArgumentException If the cost of an edge is negative or NaN.
+   * @see GraphTools#shortestPath(Graph, Object, Object, ToDoubleFunction)
+   */
+  default Path<T> shortestPath(T origin, T destination, ToDoubleFunction<? super U> cost) {
+    return GraphTools.shortestPath(this, origin, destination, cost);
+  }
+
   /**
    * @return The size of the graph (number of nodes).
    */
   int size();
 
+  /**
+   * Returns a snapshot of the size and shape of the graph. Implementations may also estimate their memory and include
+   * the statistics of their operations.
+   *
+   * @return The statistics.
+   * @see GraphTools#stats(Graph)
+   */
+  default GraphStats stats() {
+    return GraphTools.stats(this);
+  }
+
+  /**
+   * Returns a lazy Stream of the edges that a traversal from the root visits, in the given order. Unlike
+   * {@link #traverse} and {@link #traverseUp}, the traversal can be stopped at any point using the Stream operations
+   * (for example <code>filter(...).findFirst()</code>) and the depth first orders can be traversed in parallel, because
+   * the Stream's Spliterator splits the root's outbound edges so that each subtree is traversed separately.
+   *
+   * @param root  The value of the node to start the traversal from.
+   * @param order The order of the traversal.
+   * @return The Stream.
+   * @throws IllegalArgumentException If the root doesn't exist.
+   * @throws CyclicException          (When the Stream is consumed) If a depth first traversal encounters a cycle.
+   * @see GraphTools#stream(Graph, Object, TraversalOrder)
+   */
+  default Stream<Visit<T, U>> stream(T root, TraversalOrder order) {
+    return GraphTools.stream(this, root, order);
+  }
+
+  /**
+   * Returns a lazy Stream of the paths from the origin to the destination in depth first order. Nodes that cannot reach
+   * the destination are never visited and the paths share their common prefixes rather than copying them.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @return The paths or an empty Stream if either of the nodes don't exist.
+   * @throws CyclicException (When the Stream is consumed) If there is a cycle between the origin and the destination.
+   * @see GraphTools#streamPaths(Graph, Object, Object)
+   */
+  default Stream<Path<T>> streamPaths(T origin, T destination) throws CyclicException {
+    return GraphTools.streamPaths(this, origin, destination);
+  }
+
+  /**
+   * Finds the strongly connected components of the graph in a single pass.
+   *
+   * @return The components in reverse topological order.
+   * @see GraphTools#stronglyConnectedComponents(Graph)
+   */
+  default List<Set<T>> stronglyConnectedComponents() {
+    return GraphTools.stronglyConnectedComponents(this);
+  }
+
+  /**
+   * Partitions the nodes of the graph into levels where each level only contains nodes whose outbound edges point to
+   * nodes in earlier levels. The nodes in a level don't depend on each other and can be processed in parallel.
+   *
+   * @return The levels, starting with the nodes that have no outbound edges.
+   * @throws CyclicException If there is a cycle in the graph. The message contains the nodes of the cycle.
+   * @see GraphTools#topologicalLevels(Graph)
+   */
+  default List<Set<T>> topologicalLevels() throws CyclicException {
+    return GraphTools.topologicalLevels(this);
+  }
+
+  /**
+   * Sorts the nodes of the graph so that every node comes after all the nodes it has outbound edges to.
+   *
+   * @return The nodes in topological order.
+   * @throws CyclicException If there is a cycle in the graph. The message contains the nodes of the cycle.
+   * @see GraphTools#topologicalSort(Graph)
+   */
+  default List<T> topologicalSort() throws CyclicException {
+    return GraphTools.topologicalSort(this);
+  }
+
   /**
    * Traverses the graph in a depth-first manner starting at the node whose value is given. The GraphConsumer is called
    * for each edge in the graph.
@@ -174,6 +401,9 @@ public interface Graph<T, U> {
   /**
    * Interface for edges in the graph. This interface is the edge information that is used by users of a Graph and often
    * is not used internally to the graph itself. It abstracts the implementation details of the graph from the user.
+   * <p>
+   * Implementations should be equal to any Edge with the same origin, destination and value and should use the same
+   * hash code as {@link BaseEdge} so that the edges of different Graph implementations can be compared.
    *
    * @param <T> The node value type.
    * @param <U> The edge value type.
@@ -218,12 +448,12 @@ public interface Graph<T, U> {
         if (this == o) {
           return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        if (!(o instanceof Edge)) {
           return false;
         }
 
-        final BaseEdge baseEdge = (BaseEdge) o;
-        return destination.equals(baseEdge.destination) && origin.equals(baseEdge.origin) && value.equals(baseEdge.value);
+        final Edge edge = (Edge) o;
+        return destination.equals(edge.getDestination()) && origin.equals(edge.getOrigin()) && value.equals(edge.getValue());
       }
 
       /**
@@ -359,7 +589,8 @@ public interface Graph<T, U> {
   }
 
   /**
-   * Defines a path between two nodes in the graph.
+   * Defines a path between two nodes in the graph. Two paths are equal if their lists are equal and the hash code of a
+   * path is the hash code of its list.
    *
    * @param <T> The node type.
    */
@@ -388,12 +619,12 @@ public interface Graph<T, U> {
       if (this == o) {
         return true;
       }
-      if (o == null || getClass() != o.getClass()) {
+      if (!(o instanceof Path)) {
         return false;
       }
 
-      final BasePath basePath = (BasePath) o;
-      return path.equals(basePath.path);
+      final Path<?> other = (Path<?>) o;
+      return path.equals(other.get());
     }
 
     /**
@@ -409,4 +640,94 @@ public interface Graph<T, U> {
       return path.hashCode();
     }
   }
+
+  /**
+   * The orders that {@link Graph#stream} can visit the edges of a graph in.
+   */
+  enum TraversalOrder {
+    /**
+     * Depth first, where each edge is visited on the way down before the edges below it. This is the order that
+     * {@link Graph#traverse} visits the edges in when nodes can be visited more than once. A node is visited once for
+     * every path to it.
+     */
+    PRE_ORDER,
+
+    /**
+     * Depth first, where each edge is visited on the way back up after all the edges below it. This is the order that
+     * {@link Graph#traverseUp} visits the edges in. A node is visited once for every path to it.
+     */
+    POST_ORDER,
+
+    /**
+     * Breadth first, where the outbound edges of each reachable node are visited once, in the order of the distance of
+     * the node from the root. The depth of an edge is the distance of its origin from the root plus one. Cycles are
+     * allowed.
+     */
+    BREADTH_FIRST
+  }
+
+  /**
+   * An edge visited by a traversal along with the depth of the edge (the edges of the root node are at depth 1).
+   *
+   * @param <T> The node value type.
+   * @param <U> The edge value type.
+   */
+  class Visit<T, U> {
+    public final int depth;
+
+    public final T destination;
+
+    public final T origin;
+
+    public final U value;
+
+    public Visit(T origin, T destination, U value, int depth) {
+      this.origin = origin;
+      this.destination = destination;
+      this.value = value;
+      this.depth = depth;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Visit)) {
+        return false;
+      }
+
+      final Visit<?, ?> visit = (Visit<?, ?>) o;
+      return depth == visit.depth && destination.equals(visit.destination) && origin.equals(visit.origin) && value.equals(visit.value);
+    }
+
+    public int getDepth() {
+      return depth;
+    }
+
+    public T getDestination() {
+      return destination;
+    }
+
+    public T getOrigin() {
+      return origin;
+    }
+
+    public U getValue() {
+      return value;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = destination.hashCode();
+      result = 31 * result + origin.hashCode();
+      result = 31 * result + value.hashCode();
+      result = 31 * result + depth;
+      return result;
+    }
+
+    public String toString() {
+      return origin + "-(" + value + ")->" + destination + "@" + depth;
+    }
+  }
 }
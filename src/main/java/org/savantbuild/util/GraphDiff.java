@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.savantbuild.util.Graph.Edge;
+
+/**
+ * The differences between two graphs, which is computed using {@link GraphTools#diff} and applied to a graph using
+ * {@link HashGraph#apply}. The nodes and edges are in the order of the graph that they come from.
+ *
+ * @param <T> The node value type.
+ * @param <U> The edge value type.
+ * @author Brian Pontarelli
+ */
+public class GraphDiff<T, U> {
+  public final List<Edge<T, U>> addedEdges;
+
+  public final List<T> addedNodes;
+
+  public final List<Edge<T, U>> removedEdges;
+
+  public final List<T> removedNodes;
+
+  public GraphDiff(List<T> addedNodes, List<T> removedNodes, List<Edge<T, U>> addedEdges,
+                   List<Edge<T, U>> removedEdges) {
+    this.addedNodes = Collections.unmodifiableList(new ArrayList<>(addedNodes));
+    this.removedNodes = Collections.unmodifiableList(new ArrayList<>(removedNodes));
+    this.addedEdges = Collections.unmodifiableList(new ArrayList<>(addedEdges));
+    this.removedEdges = Collections.unmodifiableList(new ArrayList<>(removedEdges));
+  }
+
+  /**
+   * Returns the nodes that the diff touches, which are the added and removed nodes and both ends of every added and
+   * removed edge. These are the only nodes whose edges are different, so anything computed from the edges of the other
+   * nodes is still valid.
+   *
+   * @return The nodes.
+   */
+  public Set<T> affectedNodes() {
+    Set<T> affected = new LinkedHashSet<>(addedNodes);
+    affected.addAll(removedNodes);
+    for (Edge<T, U> edge : addedEdges) {
+      affected.add(edge.getOrigin());
+      affected.add(edge.getDestination());
+    }
+    for (Edge<T, U> edge : removedEdges) {
+      affected.add(edge.getOrigin());
+      affected.add(edge.getDestination());
+    }
+    return affected;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    final GraphDiff<?, ?> that = (GraphDiff<?, ?>) o;
+    return addedNodes.equals(that.addedNodes) && removedNodes.equals(that.removedNodes) &&
+        addedEdges.equals(that.addedEdges) && removedEdges.equals(that.removedEdges);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = addedNodes.hashCode();
+    result = 31 * result + removedNodes.hashCode();
+    result = 31 * result + addedEdges.hashCode();
+    result = 31 * result + removedEdges.hashCode();
+    return result;
+  }
+
+  /**
+   * @return The diff that undoes this diff.
+   */
+  public GraphDiff<T, U> inverse() {
+    return new GraphDiff<>(removedNodes, addedNodes, removedEdges, addedEdges);
+  }
+
+  /**
+   * @return True if the graphs are the same.
+   */
+  public boolean isEmpty() {
+    return addedNodes.isEmpty() && removedNodes.isEmpty() && addedEdges.isEmpty() && removedEdges.isEmpty();
+  }
+
+  public String toString() {
+    return "GraphDiff{addedNodes=" + addedNodes + ", removedNodes=" + removedNodes + ", addedEdges=" + addedEdges +
+        ", removedEdges=" + removedEdges + "}";
+  }
+}
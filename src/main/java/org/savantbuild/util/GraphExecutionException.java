@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+/**
+ * This class is thrown from a {@link GraphExecutor} when the task for a node fails or the execution is interrupted.
+ *
+ * @author Brian Pontarelli
+ */
+public class GraphExecutionException extends RuntimeException {
+  public GraphExecutionException(String msg, Throwable cause) {
+    super(msg, cause);
+  }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.savantbuild.util.Graph.Edge;
+
+/**
+ * <p>
+ * Executes a task for every node of a graph using an ExecutorService. A node's task is started as soon as the tasks of
+ * all the nodes it has outbound edges to (its dependencies) have completed, so independent parts of the graph run in
+ * parallel. Any ExecutorService can be used, including a virtual thread per task executor on Java 21 and later.
+ * </p>
+ * <h3>Failures</h3>
+ * <p>
+ * Execution is fail-fast. When a task throws an exception, no more tasks are started, the tasks that are running or
+ * queued are cancelled (running tasks are interrupted) and {@link #execute} throws a {@link GraphExecutionException}
+ * whose cause is the exception the task threw. If the thread calling {@link #execute} is interrupted, the tasks are
+ * cancelled the same way. Either way, {@link #execute} only throws once the tasks that were already running have
+ * returned, so a task that ignores the interrupt delays the exception until it is done.
+ * </p>
+ * <h3>Graph modification</h3>
+ * <p>
+ * The structure of the graph is copied when {@link #execute} is called, so the graph should not be modified while the
+ * tasks are running.
+ * </p>
+ *
+ * @author Brian Pontarelli
+ */
+public class GraphExecutor<T, U> {
+  private final ExecutorService executorService;
+
+  private final Graph<T, U> graph;
+
+  public GraphExecutor(Graph<T, U> graph, ExecutorService executorService) {
+    this.graph = graph;
+    this.executorService = executorService;
+  }
+
+  /**
+   * Executes the task for every node in the graph and waits for all of the tasks to complete.
+   *
+   * @param task The task.
+   * @throws CyclicException         If the graph has a cycle. This is checked before any tasks are started.
+   * @throws GraphExecutionException If a task fails or the calling thread is interrupted.
+   */
+  public void execute(NodeTask<T> task) throws CyclicException, GraphExecutionException {
+    Set<T> values = graph.values();
+    if (values.isEmpty()) {
+      return;
+    }
+
+    Execution execution = new Execution(values, task);
+    for (int id = 0; id < execution.ids.size(); id++) {
+      if (execution.remaining.get(id) == 0) {
+        execution.submit(id);
+      }
+    }
+
+    try {
+      execution.done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      execution.fail(new GraphExecutionException("The graph execution was interrupted", e));
+    }
+
+    GraphExecutionException failure = execution.failure.get();
+    if (failure != null) {
+      execution.awaitStopped();
+      throw failure;
+    }
+  }
+
+  /**
+   * The task that is executed for each node.
+   *
+   * @param <T> The node value type.
+   */
+  public interface NodeTask<T> {
+    /**
+     * Executes the task for a single node.
+     *
+     * @param value The node value.
+     * @throws Exception If the task fails. This stops the execution of the graph.
+     */
+    void execute(T value) throws Exception;
+  }
+
+  /**
+   * The state of a single call to {@link #execute}. The nodes are assigned dense ids and the graph's inbound edges are
+   * copied into arrays so that completing a task only touches the atomic dependency counters of the nodes that depend
+   * on it.
+   * <p>
+   * Each submitted task is counted in outstanding until it has run or it has been cancelled before it started.
+   * Whichever of the task and {@link #fail} claims the task first (in started) decides which of the two it is, so every
+   * submitted task is counted down exactly once. After a failure, stopped is counted down once nothing is outstanding.
+   */
+  private class Execution {
+    public final int[][] dependents;
+
+    public final CountDownLatch done = new CountDownLatch(1);
+
+    public final AtomicReference<GraphExecutionException> failure = new AtomicReference<>();
+
+    public final AtomicReferenceArray<Future<?>> futures;
+
+    public final ValueTable<T> ids;
+
+    public final AtomicInteger outstanding = new AtomicInteger();
+
+    public final AtomicInteger pending;
+
+    public final AtomicIntegerArray remaining;
+
+    public final AtomicIntegerArray started;
+
+    public final CountDownLatch stopped = new CountDownLatch(1);
+
+    public final NodeTask<T> task;
+
+    public Execution(Set<T> values, NodeTask<T> task) {
+      this.task = task;
+      this.ids = new ValueTable<>(values.size());
+      values.forEach(ids::add);
+
+      int count = ids.size();
+      this.dependents = new int[count][];
+      this.remaining = new AtomicIntegerArray(count);
+      this.futures = new AtomicReferenceArray<>(count);
+      this.pending = new AtomicInteger(count);
+      this.started = new AtomicIntegerArray(count);
+      for (int id = 0; id < count; id++) {
+        T value = ids.get(id);
+        remaining.set(id, graph.getOutboundEdges(value).size());
+
+        List<Edge<T, U>> inbound = graph.getInboundEdges(value);
+        dependents[id] = new int[inbound.size()];
+        for (int i = 0; i < inbound.size(); i++) {
+          dependents[id][i] = ids.indexOf(inbound.get(i).getOrigin());
+        }
+      }
+
+      checkForCycles();
+    }
+
+    /**
+     * Waits until every task that was submitted has either run or been cancelled. This ignores interrupts (and then
+     * restores the interrupt status), since the caller has already been interrupted once to get here.
+     */
+    public void awaitStopped() {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          stopped.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    public void fail(GraphExecutionException exception) {
+      if (!failure.compareAndSet(null, exception)) {
+        return;
+      }
+
+      for (int id = 0; id < futures.length(); id++) {
+        Future<?> future = futures.get(id);
+        if (future != null) {
+          cancel(id, future);
+        }
+      }
+
+      if (outstanding.get() == 0) {
+        stopped.countDown();
+      }
+      done.countDown();
+    }
+
+    public void run(int id) {
+      if (started.getAndSet(id, 1) != 0) {
+        return;
+      }
+
+      try {
+        if (failure.get() != null) {
+          return;
+        }
+
+        T value = ids.get(id);
+        try {
+          task.execute(value);
+        } catch (Throwable t) {
+          fail(new GraphExecutionException("The task for the graph node [" + value + "] failed", t));
+          return;
+        }
+
+        for (int dependent : dependents[id]) {
+          if (remaining.decrementAndGet(dependent) == 0) {
+            submit(dependent);
+          }
+        }
+
+        if (pending.decrementAndGet() == 0) {
+          done.countDown();
+        }
+      } finally {
+        finished();
+      }
+    }
+
+    public void submit(int id) {
+      if (failure.get() != null) {
+        return;
+      }
+
+      outstanding.incrementAndGet();
+      try {
+        futures.set(id, executorService.submit(() -> run(id)));
+      } catch (RejectedExecutionException e) {
+        fail(new GraphExecutionException("The task for the graph node [" + ids.get(id) + "] was rejected by the ExecutorService", e));
+      }
+
+      // Cancel the task if the execution failed while it was being submitted (or if it was rejected)
+      if (failure.get() != null) {
+        cancel(id, futures.get(id));
+      }
+    }
+
+    /**
+     * Cancels the task and counts it as finished if it hadn't started yet. A task that has started counts itself as
+     * finished when it returns.
+     */
+    private void cancel(int id, Future<?> future) {
+      if (future != null) {
+        future.cancel(true);
+      }
+
+      if (started.getAndSet(id, 1) == 0) {
+        finished();
+      }
+    }
+
+    /**
+     * Checks that the graph doesn't have a cycle by removing the nodes without any remaining dependencies until none
+     * are left, using a copy of the dependency counters. The nodes that are never removed are part of or depend on a
+     * cycle.
+     */
+    private void checkForCycles() {
+      int[] counts = new int[ids.size()];
+      int[] queue = new int[counts.length];
+      int tail = 0;
+      for (int id = 0; id < counts.length; id++) {
+        counts[id] = remaining.get(id);
+        if (counts[id] == 0) {
+          queue[tail++] = id;
+        }
+      }
+
+      for (int head = 0; head < tail; head++) {
+        for (int dependent : dependents[queue[head]]) {
+          if (--counts[dependent] == 0) {
+            queue[tail++] = dependent;
+          }
+        }
+      }
+
+      if (tail < counts.length) {
+        throw new CyclicException("Your graph has a cycle " + GraphTools.findCycle(graph, ids, counts));
+      }
+    }
+
+    private void finished() {
+      if (outstanding.decrementAndGet() == 0 && failure.get() != null) {
+        stopped.countDown();
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.savantbuild.util.GraphStats.Operation;
+import org.savantbuild.util.GraphStats.OperationStats;
+
+/**
+ * Records the number of calls and the time of each {@link Operation} of an instrumented graph. This isn't thread safe,
+ * so it is only used by graphs that aren't thread safe either.
+ *
+ * @author Brian Pontarelli
+ */
+final class GraphInstrumentation {
+  private static final Operation[] OPERATIONS = Operation.values();
+
+  private final long[] counts = new long[OPERATIONS.length];
+
+  private final long[] maxNanos = new long[OPERATIONS.length];
+
+  private final long[] totalNanos = new long[OPERATIONS.length];
+
+  /**
+   * Records a call to the operation.
+   *
+   * @param operation The operation.
+   * @param start     The value of {@link System#nanoTime()} when the call started.
+   */
+  void record(Operation operation, long start) {
+    long nanos = System.nanoTime() - start;
+    int index = operation.ordinal();
+    counts[index]++;
+    totalNanos[index] += nanos;
+    maxNanos[index] = Math.max(maxNanos[index], nanos);
+  }
+
+  /**
+   * @return The statistics of the operations that have been called at least once.
+   */
+  Map<Operation, OperationStats> snapshot() {
+    Map<Operation, OperationStats> operations = new EnumMap<>(Operation.class);
+    for (Operation operation : OPERATIONS) {
+      int index = operation.ordinal();
+      if (counts[index] > 0) {
+        operations.put(operation, new OperationStats(counts[index], totalNanos[index], maxNanos[index]));
+      }
+    }
+
+    return operations;
+  }
+}
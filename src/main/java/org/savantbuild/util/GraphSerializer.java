@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.savantbuild.util.Graph.Edge;
+
+/**
+ * <p>
+ * Writes graphs to a compact binary format and reads them back, either fully into a {@link CompactGraph} or lazily by
+ * mapping the file into memory as a {@link MappedGraph}. The node and edge values are converted to bytes using
+ * {@link ValueCodec}s.
+ * </p>
+ * <h3>Format</h3>
+ * <p>
+ * All the ints are big endian and all the offsets are absolute positions in the file, which limits the file to 2GB.
+ * </p>
+ * <pre>
+ *   header      magic, version, node count, edge count, string count, string offset, table offset, table slots,
+ *               adjacency offset and the total length (10 ints)
+ *   strings     the offset of each string and the end of the last one (string count + 1 ints) followed by the bytes of
+ *               the strings. The node values are the first strings (so the id of a node is the id of its string) and
+ *               the edge values follow them. Equal edge values are only stored once
+ *   table       an open addressing hash table of node id + 1 (0 is an empty slot) keyed by the hash of the node bytes
+ *   adjacency   the offset of the outbound edges of each node (node count + 1 ints), the offset of the inbound edges of
+ *               each node (node count + 1 ints) and then the edges. The edges of a node are a varint count followed by
+ *               a varint node id (the destination or origin) and a varint edge value string id for each edge
+ * </pre>
+ *
+ * @author Brian Pontarelli
+ */
+public final class GraphSerializer {
+  static final int HEADER_SIZE = 40;
+
+  static final int MAGIC = 0x53564752;
+
+  static final int VERSION = 1;
+
+  private GraphSerializer() {
+  }
+
+  /**
+   * Maps the graph in the given buffer without reading it. See {@link MappedGraph}.
+   *
+   * @param buffer     The buffer that contains the graph. The graph starts at position 0 of the buffer.
+   * @param nodeCodec  The ValueCodec for the node values.
+   * @param edgeCodec  The ValueCodec for the edge values.
+   * @param <T>        The node value type.
+   * @param <U>        The edge value type.
+   * @return The MappedGraph.
+   * @throws GraphFormatException If the buffer doesn't contain a valid graph.
+   */
+  public static <T, U> MappedGraph<T, U> map(ByteBuffer buffer, ValueCodec<T> nodeCodec, ValueCodec<U> edgeCodec) {
+    return new MappedGraph<>(buffer, nodeCodec, edgeCodec);
+  }
+
+  /**
+   * Maps the graph file into memory without reading it. See {@link MappedGraph}. The file must not be modified while
+   * the graph is in use.
+   *
+   * @param file      The file.
+   * @param nodeCodec The ValueCodec for the node values.
+   * @param edgeCodec The ValueCodec for the edge values.
+   * @param <T>       The node value type.
+   * @param <U>       The edge value type.
+   * @return The MappedGraph.
+   * @throws IOException          If the file can't be mapped.
+   * @throws GraphFormatException If the file doesn't contain a valid graph.
+   */
+  public static <T, U> MappedGraph<T, U> map(Path file, ValueCodec<T> nodeCodec, ValueCodec<U> edgeCodec)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(file)) {
+      return map(channel.map(MapMode.READ_ONLY, 0, channel.size()), nodeCodec, edgeCodec);
+    }
+  }
+
+  /**
+   * Reads the graph in the given buffer into a CompactGraph. Each distinct edge value is only decoded once, so equal
+   * edge values are the same instance in the CompactGraph.
+   *
+   * @param buffer    The buffer that contains the graph. The graph starts at position 0 of the buffer.
+   * @param nodeCodec The ValueCodec for the node values.
+   * @param edgeCodec The ValueCodec for the edge values.
+   * @param <T>       The node value type.
+   * @param <U>       The edge value type.
+   * @return The CompactGraph.
+   * @throws GraphFormatException If the buffer doesn't contain a valid graph.
+   */
+  public static <T, U> CompactGraph<T, U> read(ByteBuffer buffer, ValueCodec<T> nodeCodec, ValueCodec<U> edgeCodec) {
+    return new MappedGraph<>(buffer, nodeCodec, edgeCodec).load();
+  }
+
+  /**
+   * Reads the graph from the given InputStream into a CompactGraph. This does not close the InputStream.
+   *
+   * @param is        The InputStream.
+   * @param nodeCodec The ValueCodec for the node values.
+   * @param edgeCodec The ValueCodec for the edge values.
+   * @param <T>       The node value type.
+   * @param <U>       The edge value type.
+   * @return The CompactGraph.
+   * @throws IOException          If the InputStream can't be read.
+   * @throws GraphFormatException If the InputStream doesn't contain a valid graph.
+   */
+  public static <T, U> CompactGraph<T, U> read(InputStream is, ValueCodec<T> nodeCodec, ValueCodec<U> edgeCodec)
+      throws IOException {
+    return read(ByteBuffer.wrap(is.readAllBytes()), nodeCodec, edgeCodec);
+  }
+
+  /**
+   * Writes the graph to the given OutputStream. The nodes are written in the iteration order of the graph's
+   * {@link Graph#values()} and the edges of each node are written in the order the graph returns them, so reading the
+   * graph back preserves both. This does not close the OutputStream.
+   *
+   * @param graph     The graph.
+   * @param os        The OutputStream.
+   * @param nodeCodec The ValueCodec for the node values.
+   * @param edgeCodec The ValueCodec for the edge values.
+   * @param <T>       The node value type.
+   * @param <U>       The edge value type.
+   * @throws IOException              If the OutputStream can't be written to.
+   * @throws IllegalArgumentException If the node codec encodes two nodes to the same bytes.
+   */
+  public static <T, U> void write(Graph<T, U> graph, OutputStream os, ValueCodec<T> nodeCodec,
+                                  ValueCodec<U> edgeCodec) throws IOException {
+    // Intern the node values first so that the id of a node is the id of its string
+    List<T> values = new ArrayList<>(graph.values());
+    ValueTable<T> ids = new ValueTable<>(values.size());
+    List<byte[]> strings = new ArrayList<>(values.size());
+    Map<ByteBuffer, Integer> stringIds = new HashMap<>();
+    for (T value : values) {
+      byte[] bytes = nodeCodec.encode(value);
+      if (stringIds.putIfAbsent(ByteBuffer.wrap(bytes), strings.size()) != null) {
+        throw new IllegalArgumentException("The ValueCodec encoded the node [" + value + "] to the same bytes as another node");
+      }
+
+      ids.add(value);
+      strings.add(bytes);
+    }
+
+    int nodeCount = values.size();
+    int edgeCount = 0;
+    int[] outboundOffsets = new int[nodeCount + 1];
+    int[] inboundOffsets = new int[nodeCount + 1];
+    VarintOutputStream edges = new VarintOutputStream();
+    for (int node = 0; node < nodeCount; node++) {
+      List<Edge<T, U>> outbound = graph.getOutboundEdges(values.get(node));
+      outboundOffsets[node] = edges.size();
+      edges.writeVarint(outbound.size());
+      for (Edge<T, U> edge : outbound) {
+        edges.writeVarint(ids.indexOf(edge.getDestination()));
+        edges.writeVarint(intern(edgeCodec.encode(edge.getValue()), strings, stringIds));
+      }
+      edgeCount += outbound.size();
+    }
+    outboundOffsets[nodeCount] = edges.size();
+
+    for (int node = 0; node < nodeCount; node++) {
+      List<Edge<T, U>> inbound = graph.getInboundEdges(values.get(node));
+      inboundOffsets[node] = edges.size();
+      edges.writeVarint(inbound.size());
+      for (Edge<T, U> edge : inbound) {
+        edges.writeVarint(ids.indexOf(edge.getOrigin()));
+        edges.writeVarint(intern(edgeCodec.encode(edge.getValue()), strings, stringIds));
+      }
+    }
+    inboundOffsets[nodeCount] = edges.size();
+
+    int stringCount = strings.size();
+    long stringBytes = 0;
+    for (byte[] string : strings) {
+      stringBytes += string.length;
+    }
+
+    int tableSlots = 8;
+    while (tableSlots < nodeCount * 2) {
+      tableSlots <<= 1;
+    }
+
+    long stringOffset = HEADER_SIZE;
+    long tableOffset = stringOffset + 4L * (stringCount + 1) + stringBytes;
+    long adjacencyOffset = tableOffset + 4L * tableSlots;
+    long edgesOffset = adjacencyOffset + 8L * (nodeCount + 1);
+    long length = edgesOffset + edges.size();
+    if (length > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("The graph is too large to serialize. It would be [" + length + "] bytes");
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate((int) length);
+    buffer.putInt(MAGIC)
+          .putInt(VERSION)
+          .putInt(nodeCount)
+          .putInt(edgeCount)
+          .putInt(stringCount)
+          .putInt((int) stringOffset)
+          .putInt((int) tableOffset)
+          .putInt(tableSlots)
+          .putInt((int) adjacencyOffset)
+          .putInt((int) length);
+
+    int position = (int) (stringOffset + 4L * (stringCount + 1));
+    for (byte[] string : strings) {
+      buffer.putInt(position);
+      position += string.length;
+    }
+    buffer.putInt(position);
+    strings.forEach(buffer::put);
+
+    int mask = tableSlots - 1;
+    for (int node = 0; node < nodeCount; node++) {
+      byte[] bytes = strings.get(node);
+      int slot = hash(ByteBuffer.wrap(bytes), 0, bytes.length) & mask;
+      while (buffer.getInt((int) tableOffset + 4 * slot) != 0) {
+        slot = (slot + 1) & mask;
+      }
+      buffer.putInt((int) tableOffset + 4 * slot, node + 1);
+    }
+
+    buffer.position((int) adjacencyOffset);
+    for (int offset : outboundOffsets) {
+      buffer.putInt((int) edgesOffset + offset);
+    }
+    for (int offset : inboundOffsets) {
+      buffer.putInt((int) edgesOffset + offset);
+    }
+    edges.writeTo(buffer);
+
+    os.write(buffer.array());
+  }
+
+  /**
+   * Writes the graph to the given file, replacing the file if it exists.
+   *
+   * @param graph     The graph.
+   * @param file      The file.
+   * @param nodeCodec The ValueCodec for the node values.
+   * @param edgeCodec The ValueCodec for the edge values.
+   * @param <T>       The node value type.
+   * @param <U>       The edge value type.
+   * @throws IOException If the file can't be written.
+   * @see #write(Graph, OutputStream, ValueCodec, ValueCodec)
+   */
+  public static <T, U> void write(Graph<T, U> graph, Path file, ValueCodec<T> nodeCodec, ValueCodec<U> edgeCodec)
+      throws IOException {
+    try (OutputStream os = Files.newOutputStream(file)) {
+      write(graph, os, nodeCodec, edgeCodec);
+    }
+  }
+
+  /**
+   * Hashes the bytes in the given range of the buffer. This is used for the node table of the format, so it must never
+   * change.
+   */
+  static int hash(ByteBuffer buffer, int start, int end) {
+    int h = 1;
+    for (int i = start; i < end; i++) {
+      h = 31 * h + buffer.get(i);
+    }
+
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static int intern(byte[] bytes, List<byte[]> strings, Map<ByteBuffer, Integer> stringIds) {
+    Integer id = stringIds.putIfAbsent(ByteBuffer.wrap(bytes), strings.size());
+    if (id != null) {
+      return id;
+    }
+
+    strings.add(bytes);
+    return strings.size() - 1;
+  }
+
+  /**
+   * A ByteArrayOutputStream that writes unsigned varints (7 bits per byte, with the high bit set on every byte except
+   * the last).
+   */
+  private static final class VarintOutputStream extends ByteArrayOutputStream {
+    private VarintOutputStream() {
+      super(1024);
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+      buffer.put(buf, 0, count);
+    }
+
+    public void writeVarint(int value) {
+      while ((value & ~0x7F) != 0) {
+        write((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      write(value);
+    }
+  }
+}
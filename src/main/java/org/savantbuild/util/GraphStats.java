@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the size and shape of a graph and (if the graph is instrumented) of the cost of its
+ * operations. The snapshot is created using {@link Graph#stats()}.
+ *
+ * @author Brian Pontarelli
+ */
+public final class GraphStats {
+  /**
+   * The average number of outbound edges per node, which is also the average number of inbound edges per node.
+   */
+  public final double averageDegree;
+
+  public final long edgeCount;
+
+  /**
+   * The estimated number of bytes retained by the graph's own structure (not including the node and edge values), or
+   * -1 if the graph doesn't provide an estimate.
+   */
+  public final long estimatedBytes;
+
+  public final int maxInDegree;
+
+  public final int maxOutDegree;
+
+  public final int nodeCount;
+
+  /**
+   * The statistics of each operation that was recorded. This is empty if the graph isn't instrumented.
+   */
+  public final Map<Operation, OperationStats> operations;
+
+  public GraphStats(int nodeCount, long edgeCount, int maxInDegree, int maxOutDegree, long estimatedBytes,
+                    Map<Operation, OperationStats> operations) {
+    this.nodeCount = nodeCount;
+    this.edgeCount = edgeCount;
+    this.averageDegree = nodeCount == 0 ? 0.0 : (double) edgeCount / nodeCount;
+    this.maxInDegree = maxInDegree;
+    this.maxOutDegree = maxOutDegree;
+    this.estimatedBytes = estimatedBytes;
+    this.operations = operations.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new EnumMap<>(operations));
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder build = new StringBuilder("GraphStats{");
+    build.append("nodeCount=").append(nodeCount);
+    build.append(", edgeCount=").append(edgeCount);
+    build.append(", averageDegree=").append(String.format("%.2f", averageDegree));
+    build.append(", maxInDegree=").append(maxInDegree);
+    build.append(", maxOutDegree=").append(maxOutDegree);
+    build.append(", estimatedBytes=").append(estimatedBytes);
+    operations.forEach((operation, stats) -> build.append(", ").append(operation).append("=").append(stats));
+    return build.append("}").toString();
+  }
+
+  /**
+   * The operations of a graph that are recorded when the graph is instrumented.
+   */
+  public enum Operation {
+    ADD_EDGE,
+    PRUNE,
+    REMOVE_NODE,
+    TRAVERSE
+  }
+
+  /**
+   * The number of times an operation was called and how long the calls took.
+   *
+   * @author Brian Pontarelli
+   */
+  public static final class OperationStats {
+    public final long count;
+
+    public final long maxNanos;
+
+    public final long totalNanos;
+
+    public OperationStats(long count, long totalNanos, long maxNanos) {
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+    }
+
+    /**
+     * @return The average time of a call in nanoseconds or 0 if the operation wasn't called.
+     */
+    public double averageNanos() {
+      return count == 0 ? 0.0 : (double) totalNanos / count;
+    }
+
+    @Override
+    public String toString() {
+      return "{count=" + count + ", totalNanos=" + totalNanos + ", maxNanos=" + maxNanos + "}";
+    }
+  }
+}
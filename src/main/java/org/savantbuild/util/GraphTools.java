@@ -0,0 +1,1496 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.savantbuild.util.Graph.BasePath;
+import org.savantbuild.util.Graph.Edge;
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+import org.savantbuild.util.Graph.EdgeFilter;
+import org.savantbuild.util.Graph.EdgeFilter.IdentityEdgeFilter;
+import org.savantbuild.util.Graph.GraphConsumer;
+import org.savantbuild.util.Graph.GraphVisitor;
+import org.savantbuild.util.Graph.Path;
+import org.savantbuild.util.Graph.TraversalOrder;
+import org.savantbuild.util.Graph.Visit;
+import org.savantbuild.util.HashGraph.HashNode;
+
+/**
+ * This is a toolkit with Graph algorithms. The algorithms only use the methods of the {@link Graph} interface, so they
+ * work with any Graph implementation. Most of them are also available as default methods on the Graph interface.
+ * <p>
+ * The algorithms treat an edge as a dependency of the origin on the destination. For example, if project A depends on
+ * project B, the graph contains the edge A -&gt; B and B comes before A in a topological order.
+ *
+ * @author Brian Pontarelli
+ */
+public class GraphTools {
+  /**
+   * Collapses each strongly connected component of the graph into a single node whose value is the Set of the values in
+   * the component. The resulting graph is guaranteed to be acyclic. Every edge between nodes in different components
+   * becomes an edge between the components (with the same edge value) and edges inside a component are dropped.
+   *
+   * @param graph The graph.
+   * @param <T>   The node value type.
+   * @param <U>   The edge value type.
+   * @return The condensation graph. It contains every component, including the ones that don't have any edges.
+   */
+  public static <T, U> HashGraph<Set<T>, U> condensation(Graph<T, U> graph) {
+    CompactGraph<T, U> compact = compact(graph);
+    List<Set<T>> components = new ArrayList<>();
+    int[] componentIds = stronglyConnectedComponents(compact, components);
+
+    HashGraph<Set<T>, U> condensation = new HashGraph<>(HashGraph.EdgeStorage.LIST, components.size());
+    List<HashNode<Set<T>, U>> componentNodes = new ArrayList<>(components.size());
+    components.forEach((component) -> componentNodes.add(condensation.addNode(component)));
+
+    // Group the nodes by component, so that the edges of one component are added together and the duplicates can be
+    // found using the component ids rather than hashing the Sets
+    int[] memberOffsets = new int[components.size() + 1];
+    for (int componentId : componentIds) {
+      memberOffsets[componentId + 1]++;
+    }
+    for (int component = 0; component < components.size(); component++) {
+      memberOffsets[component + 1] += memberOffsets[component];
+    }
+    int[] members = new int[componentIds.length];
+    int[] cursors = Arrays.copyOf(memberOffsets, components.size());
+    for (int node = 0; node < componentIds.length; node++) {
+      members[cursors[componentIds[node]]++] = node;
+    }
+
+    // The values of the edges from the current component to each other component
+    int[] addedFrom = new int[components.size()];
+    Arrays.fill(addedFrom, -1);
+    List<List<U>> addedValues = new ArrayList<>(Collections.nCopies(components.size(), null));
+    for (int component = 0; component < components.size(); component++) {
+      for (int member = memberOffsets[component]; member < memberOffsets[component + 1]; member++) {
+        int node = members[member];
+        for (int edge = compact.outboundOffsets[node]; edge < compact.outboundOffsets[node + 1]; edge++) {
+          int destination = componentIds[compact.outboundDestinations[edge]];
+          if (destination == component) {
+            continue;
+          }
+
+          @SuppressWarnings("unchecked")
+          U value = (U) compact.edgeValues[edge];
+          if (addedFrom[destination] != component) {
+            addedFrom[destination] = component;
+            addedValues.set(destination, new ArrayList<>(1));
+          } else if (addedValues.get(destination).contains(value)) {
+            continue;
+          }
+
+          addedValues.get(destination).add(value);
+          condensation.addDistinctEdge(componentNodes.get(component), componentNodes.get(destination), value);
+        }
+      }
+    }
+
+    return condensation;
+  }
+
+  /**
+   * Counts the paths from the origin to the destination. The paths end at the destination (they never pass through
+   * it). The count is computed by memoizing the number of paths from each node to the destination, which only visits
+   * each node and edge between the origin and the destination once.
+   *
+   * @param graph       The graph.
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @param <T>         The node value type.
+   * @param <U>         The edge value type.
+   * @return The number of paths or zero if either of the nodes don't exist or they are the same node.
+   * @throws CyclicException     If there is a cycle between the origin and the destination.
+   * @throws ArithmeticException If the number of paths overflows a long.
+   */
+  public static <T, U> long countPaths(Graph<T, U> graph, T origin, T destination) throws CyclicException {
+    ValueTable<T> reaching = reaching(graph, origin, destination);
+    if (reaching == null) {
+      return 0;
+    }
+
+    // Iterative post-order traversal. The state of a node is 0 when it hasn't been visited, 1 when it is on the stack
+    // and 2 once its count is known
+    long[] counts = new long[reaching.size()];
+    byte[] states = new byte[reaching.size()];
+    int destinationId = reaching.indexOf(destination);
+    states[destinationId] = 2;
+    counts[destinationId] = 1;
+
+    Deque<Frame<T, U>> stack = new ArrayDeque<>();
+    int originId = reaching.indexOf(origin);
+    states[originId] = 1;
+    stack.push(new Frame<>(originId, outboundEdges(graph, origin).iterator()));
+    while (!stack.isEmpty()) {
+      Frame<T, U> frame = stack.peek();
+      if (!frame.edges.hasNext()) {
+        states[frame.id] = 2;
+        stack.pop();
+        if (!stack.isEmpty()) {
+          counts[stack.peek().id] = Math.addExact(counts[stack.peek().id], counts[frame.id]);
+        }
+        continue;
+      }
+
+      T next = frame.edges.next().getDestination();
+      int id = reaching.indexOf(next);
+      if (id < 0) {
+        continue;
+      }
+
+      if (states[id] == 1) {
+        throw new CyclicException("Encountered the graph node [" + next + "] twice. Your graph has a cycle");
+      }
+
+      if (states[id] == 2) {
+        counts[frame.id] = Math.addExact(counts[frame.id], counts[id]);
+        continue;
+      }
+
+      states[id] = 1;
+      stack.push(new Frame<>(id, outboundEdges(graph, next).iterator()));
+    }
+
+    return counts[originId];
+  }
+
+  /**
+   * Finds the cycles in the graph. Each cycle is reported as the strongly connected component that contains it, which
+   * means that all of the cycles in the graph are found in a single pass rather than one at a time.
+   *
+   * @param graph The graph.
+   * @param <T>   The node value type.
+   * @param <U>   The edge value type.
+   * @return The strongly connected components that have more than one node or a node with an edge to itself.
+   */
+  public static <T, U> List<Set<T>> cycles(Graph<T, U> graph) {
+    CompactGraph<T, U> compact = compact(graph);
+    List<Set<T>> components = new ArrayList<>();
+    int[] componentIds = stronglyConnectedComponents(compact, components);
+
+    boolean[] cyclic = new boolean[components.size()];
+    for (int node = 0; node < componentIds.length; node++) {
+      for (int edge = compact.outboundOffsets[node]; edge < compact.outboundOffsets[node + 1]; edge++) {
+        if (componentIds[compact.outboundDestinations[edge]] == componentIds[node]) {
+          cyclic[componentIds[node]] = true;
+        }
+      }
+    }
+
+    List<Set<T>> cycles = new ArrayList<>();
+    for (int i = 0; i < cyclic.length; i++) {
+      if (cyclic[i]) {
+        cycles.add(components.get(i));
+      }
+    }
+
+    return cycles;
+  }
+
+  /**
+   * Computes the differences between two graphs. Every node and edge is hashed at most once, so this runs in O(V + E)
+   * time. The outbound edges of a node that are the same in both graphs (in the same order) are compared as lists
+   * without hashing them, which makes diffing graphs that only differ by a handful of edges cheap.
+   * <p>
+   * Applying the diff to the <code>from</code> graph (see {@link HashGraph#apply}) produces a graph with the same nodes
+   * and edges as the <code>to</code> graph.
+   *
+   * @param from The original graph.
+   * @param to   The new graph.
+   * @param <T>  The node value type.
+   * @param <U>  The edge value type.
+   * @return The diff. The edges in the diff are copies that don't reference either graph.
+   */
+  public static <T, U> GraphDiff<T, U> diff(Graph<T, U> from, Graph<T, U> to) {
+    Set<T> fromValues = from.values();
+    Set<T> toValues = to.values();
+    List<T> addedNodes = new ArrayList<>();
+    List<T> removedNodes = new ArrayList<>();
+    List<Edge<T, U>> addedEdges = new ArrayList<>();
+    List<Edge<T, U>> removedEdges = new ArrayList<>();
+
+    for (T value : fromValues) {
+      List<Edge<T, U>> fromEdges = outboundEdges(from, value);
+      if (!toValues.contains(value)) {
+        removedNodes.add(value);
+        fromEdges.forEach((edge) -> removedEdges.add(copy(edge)));
+        continue;
+      }
+
+      List<Edge<T, U>> toEdges = outboundEdges(to, value);
+      if (fromEdges.equals(toEdges)) {
+        continue;
+      }
+
+      Set<Edge<T, U>> toSet = new HashSet<>(toEdges);
+      for (Edge<T, U> edge : fromEdges) {
+        if (!toSet.contains(edge)) {
+          removedEdges.add(copy(edge));
+        }
+      }
+
+      Set<Edge<T, U>> fromSet = new HashSet<>(fromEdges);
+      for (Edge<T, U> edge : toEdges) {
+        if (!fromSet.contains(edge)) {
+          addedEdges.add(copy(edge));
+        }
+      }
+    }
+
+    for (T value : toValues) {
+      if (!fromValues.contains(value)) {
+        addedNodes.add(value);
+        outboundEdges(to, value).forEach((edge) -> addedEdges.add(copy(edge)));
+      }
+    }
+
+    return new GraphDiff<>(addedNodes, removedNodes, addedEdges, removedEdges);
+  }
+
+  /**
+   * Finds the first node that satisfies the predicate using a depth first traversal of the graph from the root. This
+   * follows the same rules as {@link HashGraph#find} except that nodes that have already been searched are not searched
+   * again. It only uses {@link Graph#getOutboundEdges}, so graphs like the {@link ConcurrentGraph} can use it to
+   * implement {@link Graph#find}. A node whose edges are null (because it was removed) is treated as a leaf.
+   *
+   * @param graph     The graph.
+   * @param rootValue The value of the node to start the traversal from.
+   * @param predicate The predicate used to find the node.
+   * @param <T>       The node value type.
+   * @param <U>       The edge value type.
+   * @return The value of the first node that matches the predicate or null if the root doesn't exist or if no nodes
+   * match the predicate.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  public static <T, U> T find(Graph<T, U> graph, T rootValue, Predicate<T> predicate) throws CyclicException {
+    if (!graph.contains(rootValue)) {
+      return null;
+    }
+
+    if (predicate.test(rootValue)) {
+      return rootValue;
+    }
+
+    Set<T> onPath = new HashSet<>();
+    Set<T> searched = new HashSet<>();
+    Deque<TraversalFrame<T, U>> stack = new ArrayDeque<>();
+    stack.push(new TraversalFrame<>(rootValue, outboundEdges(graph, rootValue)));
+    while (!stack.isEmpty()) {
+      TraversalFrame<T, U> frame = stack.peek();
+      if (frame.cursor == frame.edges.size()) {
+        searched.add(frame.value);
+        stack.pop();
+        if (!stack.isEmpty()) {
+          onPath.remove(stack.peek().value);
+        }
+        continue;
+      }
+
+      T destination = frame.edges.get(frame.cursor++).getDestination();
+      if (onPath.contains(destination)) {
+        throw new CyclicException("Encountered the graph node [" + destination + "] twice. Your graph has a cycle");
+      }
+
+      if (searched.contains(destination)) {
+        continue;
+      }
+
+      if (predicate.test(destination)) {
+        return destination;
+      }
+
+      onPath.add(frame.value);
+      stack.push(new TraversalFrame<>(destination, outboundEdges(graph, destination)));
+    }
+
+    return null;
+  }
+
+  /**
+   * Reduces the graph below the root from the bottom up, in parallel. The result for a node is computed by starting
+   * with <code>leaf.apply(node)</code> and then combining it with the result of the destination of each outbound edge
+   * (in the order of the edges) using <code>combine</code>. The result for each node is only computed once, no matter
+   * how many paths lead to it, and it is only computed after the results of all of its dependencies are.
+   * <p>
+   * The nodes below the root are first found using a single depth first traversal, which also checks for cycles. Then
+   * the nodes without dependencies are forked as fork-join tasks, and each task forks the tasks of the nodes whose last
+   * remaining dependency it just computed, so independent subtrees are reduced in parallel. Tasks never wait for other
+   * tasks, so the depth of the graph doesn't affect the depth of the stack. The reduction runs in the current
+   * ForkJoinPool if it is called from one and the common pool otherwise. The functions must be thread safe, and the
+   * graph is only read during the traversal, so it doesn't need to be thread safe.
+   *
+   * @param graph   The graph.
+   * @param root    The value of the node to start from.
+   * @param leaf    Computes the result of a node by itself.
+   * @param combine Combines a result with the result of a dependency.
+   * @param <T>     The node value type.
+   * @param <U>     The edge value type.
+   * @param <R>     The result type.
+   * @return The result for the root.
+   * @throws IllegalArgumentException If the root doesn't exist.
+   * @throws CyclicException          If there is a cycle below the root.
+   */
+  public static <T, U, R> R reduceUp(Graph<T, U> graph, T root, Function<? super T, ? extends R> leaf,
+                                     BiFunction<? super R, ? super R, ? extends R> combine) throws CyclicException {
+    if (!graph.contains(root)) {
+      throw new IllegalArgumentException("Invalid rootValue [" + root + "] to start the traversal from.");
+    }
+
+    // Create the nodes in post-order, so the nodes of a node's dependencies always exist when it is created
+    Map<T, ReduceNode<T, R>> nodes = new HashMap<>();
+    List<ReduceNode<T, R>> leaves = new ArrayList<>();
+    Set<T> onPath = new HashSet<>();
+    Deque<TraversalFrame<T, U>> stack = new ArrayDeque<>();
+    stack.push(new TraversalFrame<>(root, outboundEdges(graph, root)));
+    onPath.add(root);
+    while (!stack.isEmpty()) {
+      TraversalFrame<T, U> frame = stack.peek();
+      if (frame.cursor == frame.edges.size()) {
+        stack.pop();
+        onPath.remove(frame.value);
+
+        ReduceNode<T, R> node = new ReduceNode<>(frame.value, frame.edges.size());
+        for (Edge<T, U> edge : frame.edges) {
+          ReduceNode<T, R> dependency = nodes.get(edge.getDestination());
+          node.dependencies.add(dependency);
+          dependency.parents.add(node);
+        }
+
+        if (node.dependencies.isEmpty()) {
+          leaves.add(node);
+        }
+
+        nodes.put(frame.value, node);
+        continue;
+      }
+
+      T destination = frame.edges.get(frame.cursor++).getDestination();
+      if (onPath.contains(destination)) {
+        throw new CyclicException("Encountered the graph node [" + destination + "] twice. Your graph has a cycle");
+      }
+
+      if (!nodes.containsKey(destination)) {
+        onPath.add(destination);
+        stack.push(new TraversalFrame<>(destination, outboundEdges(graph, destination)));
+      }
+    }
+
+    ReduceTask<T, R> task = new ReduceTask<>(nodes.get(root), leaves, leaf, combine);
+    return ForkJoinTask.inForkJoinPool() ? task.invoke() : ForkJoinPool.commonPool().invoke(task);
+  }
+
+  /**
+   * Finds a path with the fewest edges from the origin to the destination using a bidirectional breadth first search.
+   * The search expands the outbound edges from the origin and the inbound edges from the destination one level at a
+   * time, always expanding the side with the smaller frontier, until the two searches meet. This only visits the nodes
+   * that are close to one of the ends, rather than every node that is reachable from the origin. Cycles are allowed.
+   *
+   * @param graph       The graph.
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @param <T>         The node value type.
+   * @param <U>         The edge value type.
+   * @return The path or null if either of the nodes don't exist or the destination can't be reached from the origin. If
+   * the origin and the destination are the same node, the path only contains that node.
+   */
+  public static <T, U> Path<T> shortestPath(Graph<T, U> graph, T origin, T destination) {
+    if (!graph.contains(origin) || !graph.contains(destination)) {
+      return null;
+    }
+
+    if (origin.equals(destination)) {
+      return new BasePath<>(Collections.singletonList(origin));
+    }
+
+    Map<T, SearchStep<T>> forward = new HashMap<>();
+    Map<T, SearchStep<T>> backward = new HashMap<>();
+    forward.put(origin, new SearchStep<>(null, 0));
+    backward.put(destination, new SearchStep<>(null, 0));
+    List<T> forwardFrontier = Collections.singletonList(origin);
+    List<T> backwardFrontier = Collections.singletonList(destination);
+
+    while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()) {
+      boolean isForward = forwardFrontier.size() <= backwardFrontier.size();
+      List<T> frontier = isForward ? forwardFrontier : backwardFrontier;
+      Map<T, SearchStep<T>> visited = isForward ? forward : backward;
+      Map<T, SearchStep<T>> other = isForward ? backward : forward;
+      List<T> next = new ArrayList<>();
+
+      // Expand the entire level, because the first meeting point isn't necessarily on the shortest path
+      T meetingNode = null;
+      T meetingNeighbor = null;
+      int best = Integer.MAX_VALUE;
+      for (T node : frontier) {
+        int depth = visited.get(node).depth;
+        for (Edge<T, U> edge : isForward ? outboundEdges(graph, node) : inboundEdges(graph, node)) {
+          T neighbor = isForward ? edge.getDestination() : edge.getOrigin();
+          SearchStep<T> otherStep = other.get(neighbor);
+          if (otherStep != null && depth + 1 + otherStep.depth < best) {
+            best = depth + 1 + otherStep.depth;
+            meetingNode = node;
+            meetingNeighbor = neighbor;
+          }
+
+          if (!visited.containsKey(neighbor)) {
+            visited.put(neighbor, new SearchStep<>(node, depth + 1));
+            next.add(neighbor);
+          }
+        }
+      }
+
+      if (meetingNode != null) {
+        List<T> path = new ArrayList<>(best + 1);
+        T forwardEnd = isForward ? meetingNode : meetingNeighbor;
+        for (T value = forwardEnd; value != null; value = forward.get(value).link) {
+          path.add(value);
+        }
+        Collections.reverse(path);
+
+        T backwardStart = isForward ? meetingNeighbor : meetingNode;
+        for (T value = backwardStart; value != null; value = backward.get(value).link) {
+          path.add(value);
+        }
+        return new BasePath<>(path);
+      }
+
+      if (isForward) {
+        forwardFrontier = next;
+      } else {
+        backwardFrontier = next;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Finds the cheapest path from the origin to the destination using Dijkstra's algorithm, where the cost of a path is
+   * the sum of the costs of its edges. Cycles are allowed.
+   *
+   * @param graph       The graph.
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @param cost        Returns the cost of an edge from its value. Costs must not be negative.
+   * @param <T>         The node value type.
+   * @param <U>         The edge value type.
+   * @return The path or null if either of the nodes don't exist or the destination can't be reached from the origin. If
+   * the origin and the destination are the same node, the path only contains that node.
+   * @throws IllegalArgumentException If the cost of an edge is negative or NaN.
+   */
+  public static <T, U> Path<T> shortestPath(Graph<T, U> graph, T origin, T destination, ToDoubleFunction<? super U> cost) {
+    if (!graph.contains(origin) || !graph.contains(destination)) {
+      return null;
+    }
+
+    Map<T, Double> distances = new HashMap<>();
+    Map<T, T> parents = new HashMap<>();
+    Set<T> settled = new HashSet<>();
+    PriorityQueue<WeightedStep<T>> queue = new PriorityQueue<>(Comparator.comparingDouble((step) -> step.distance));
+    distances.put(origin, 0d);
+    queue.add(new WeightedStep<>(origin, 0d));
+
+    while (!queue.isEmpty()) {
+      WeightedStep<T> step = queue.poll();
+      if (!settled.add(step.value)) {
+        continue;
+      }
+
+      if (step.value.equals(destination)) {
+        List<T> path = new ArrayList<>();
+        for (T value = destination; value != null; value = parents.get(value)) {
+          path.add(value);
+        }
+        Collections.reverse(path);
+        return new BasePath<>(path);
+      }
+
+      for (Edge<T, U> edge : outboundEdges(graph, step.value)) {
+        double edgeCost = cost.applyAsDouble(edge.getValue());
+        if (!(edgeCost >= 0)) {
+          throw new IllegalArgumentException("The cost of the edge [" + edge + "] is [" + edgeCost + "]. Costs must not be negative");
+        }
+
+        T neighbor = edge.getDestination();
+        double distance = step.distance + edgeCost;
+        Double existing = distances.get(neighbor);
+        if (!settled.contains(neighbor) && (existing == null || distance < existing)) {
+          distances.put(neighbor, distance);
+          parents.put(neighbor, step.value);
+          queue.add(new WeightedStep<>(neighbor, distance));
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Computes the size and shape of the graph by going over the outbound and inbound edges of every node. This doesn't
+   * estimate the memory of the graph or include any operation statistics, since those depend on the implementation.
+   *
+   * @param graph The graph.
+   * @param <T>   The node value type.
+   * @param <U>   The edge value type.
+   * @return The statistics.
+   */
+  public static <T, U> GraphStats stats(Graph<T, U> graph) {
+    Set<T> values = graph.values();
+    long edgeCount = 0;
+    int maxInDegree = 0;
+    int maxOutDegree = 0;
+    for (T value : values) {
+      int outDegree = outboundEdges(graph, value).size();
+      edgeCount += outDegree;
+      maxOutDegree = Math.max(maxOutDegree, outDegree);
+      maxInDegree = Math.max(maxInDegree, inboundEdges(graph, value).size());
+    }
+
+    return new GraphStats(values.size(), edgeCount, maxInDegree, maxOutDegree, -1, Collections.emptyMap());
+  }
+
+  /**
+   * Returns a lazy Stream of the edges that a traversal from the root visits in the given order. The pre-order and
+   * post-order traversals follow the same rules as {@link #traverse} (with nodes visited more than once and no
+   * EdgeFilter) and {@link #traverseUp}, and the Stream contains the same edges in the same order. The breadth first
+   * traversal visits the outbound edges of each reachable node once.
+   * <p>
+   * The depth first Streams can be split for parallel processing. Before the traversal starts, the Spliterator splits
+   * the root's outbound edges in half and each half traverses the subtrees below its edges. Those subtrees are
+   * independent in these orders, so the split Streams contain exactly the same visits as a sequential Stream and the
+   * encounter order is kept. The breadth first Stream can't be split, since every node is only expanded once.
+   *
+   * @param graph The graph.
+   * @param root  The value of the node to start the traversal from.
+   * @param order The order of the traversal.
+   * @param <T>   The node value type.
+   * @param <U>   The edge value type.
+   * @return The Stream.
+   * @throws IllegalArgumentException If the root doesn't exist.
+   * @throws CyclicException          (When the Stream is consumed) If a depth first traversal encounters a cycle.
+   */
+  public static <T, U> Stream<Visit<T, U>> stream(Graph<T, U> graph, T root, TraversalOrder order) {
+    if (!graph.contains(root)) {
+      throw new IllegalArgumentException("Invalid rootValue [" + root + "] to start the traversal from.");
+    }
+
+    return StreamSupport.stream(new VisitSpliterator<>(graph, root, order, new ArrayList<>(outboundEdges(graph, root)), Long.MAX_VALUE), false);
+  }
+
+  /**
+   * Returns a lazy Stream of the paths from the origin to the destination in depth first order (the same order that
+   * {@link Graph#getPaths} uses). The paths end at the destination (they never pass through it). Before the Stream is
+   * created, the nodes that can reach the destination are found by traversing the inbound edges from the destination.
+   * All other nodes are skipped during the traversal. The Path objects share their common prefixes, and their Lists are
+   * only created when {@link Path#get()} is called.
+   *
+   * @param graph       The graph.
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @param <T>         The node value type.
+   * @param <U>         The edge value type.
+   * @return The paths or an empty Stream if either of the nodes don't exist or they are the same node.
+   * @throws CyclicException (When the Stream is consumed) If there is a cycle between the origin and the destination.
+   */
+  public static <T, U> Stream<Path<T>> streamPaths(Graph<T, U> graph, T origin, T destination) throws CyclicException {
+    ValueTable<T> reaching = reaching(graph, origin, destination);
+    if (reaching == null) {
+      return Stream.empty();
+    }
+
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new PathIterator<>(graph, reaching, origin, destination), Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * Finds the strongly connected components of the graph using Tarjan's algorithm in a single pass. Nodes that aren't
+   * part of a cycle are components by themselves.
+   *
+   * @param graph The graph.
+   * @param <T>   The node value type.
+   * @param <U>   The edge value type.
+   * @return The components in reverse topological order (a component comes after all of the components it has edges
+   * to).
+   */
+  public static <T, U> List<Set<T>> stronglyConnectedComponents(Graph<T, U> graph) {
+    List<Set<T>> components = new ArrayList<>();
+    stronglyConnectedComponents(compact(graph), components);
+    return components;
+  }
+
+  /**
+   * Sorts the nodes of the graph so that every node comes after all the nodes it has outbound edges to (its
+   * dependencies).
+   *
+   * @param graph The graph.
+   * @param <T>   The node value type.
+   * @param <U>   The edge value type.
+   * @return The nodes in topological order.
+   * @throws CyclicException If the graph has a cycle. The message contains the nodes of the cycle.
+   */
+  public static <T, U> List<T> topologicalSort(Graph<T, U> graph) throws CyclicException {
+    List<T> order = new ArrayList<>(graph.size());
+    topologicalLevels(graph).forEach(order::addAll);
+    return order;
+  }
+
+  /**
+   * Partitions the nodes of the graph into levels. The first level contains the nodes that have no outbound edges and
+   * every later level contains the nodes whose outbound edges all point to nodes in earlier levels. The nodes in a
+   * single level are independent of each other, so they can be processed in parallel once the earlier levels are done.
+   *
+   * @param graph The graph.
+   * @param <T>   The node value type.
+   * @param <U>   The edge value type.
+   * @return The levels.
+   * @throws CyclicException If the graph has a cycle. The message contains the nodes of the cycle.
+   */
+  public static <T, U> List<Set<T>> topologicalLevels(Graph<T, U> graph) throws CyclicException {
+    Set<T> values = graph.values();
+    ValueTable<T> ids = new ValueTable<>(values.size());
+    values.forEach(ids::add);
+
+    // The number of outbound edges of each node that point to nodes that haven't been placed in a level yet
+    int[] remaining = new int[ids.size()];
+    List<T> current = new ArrayList<>();
+    for (int id = 0; id < remaining.length; id++) {
+      remaining[id] = graph.getOutboundEdges(ids.get(id)).size();
+      if (remaining[id] == 0) {
+        current.add(ids.get(id));
+      }
+    }
+
+    List<Set<T>> levels = new ArrayList<>();
+    int placed = 0;
+    while (!current.isEmpty()) {
+      levels.add(new LinkedHashSet<>(current));
+      placed += current.size();
+
+      List<T> next = new ArrayList<>();
+      for (T value : current) {
+        for (Edge<T, U> edge : graph.getInboundEdges(value)) {
+          int origin = ids.indexOf(edge.getOrigin());
+          if (--remaining[origin] == 0) {
+            next.add(edge.getOrigin());
+          }
+        }
+      }
+
+      current = next;
+    }
+
+    if (placed < remaining.length) {
+      throw new CyclicException("Your graph has a cycle " + findCycle(graph, ids, remaining));
+    }
+
+    return levels;
+  }
+
+  /**
+   * Performs a depth first traversal of the graph using the same rules as {@link HashGraph#traverse}. The edges of each
+   * node are retrieved and filtered once when the traversal reaches the node. It only uses
+   * {@link Graph#getOutboundEdges}, so graphs like the {@link ConcurrentGraph} can use it to implement
+   * {@link Graph#traverse}. A node whose edges are null (because it was removed) is treated as a leaf.
+   *
+   * @param graph          The graph.
+   * @param rootValue      The value of the node to start the traversal from.
+   * @param visitNodesOnce Determines if nodes are visited once if they have multiple links.
+   * @param edgeFilter     The EdgeFilter that is used to control the traversal or null to keep all the edges.
+   * @param consumer       The GraphConsumer that is called for each edge.
+   * @param <T>            The node value type.
+   * @param <U>            The edge value type.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  public static <T, U> void traverse(Graph<T, U> graph, T rootValue, boolean visitNodesOnce, EdgeFilter<T, U> edgeFilter,
+                                     GraphConsumer<T, U> consumer) throws CyclicException {
+    if (!graph.contains(rootValue)) {
+      throw new IllegalArgumentException("Invalid rootValue [" + rootValue + "] to start the traversal from.");
+    }
+
+    Set<T> cycleCheck = new HashSet<>();
+    Set<T> visited = new HashSet<>();
+    Deque<TraversalFrame<T, U>> stack = new ArrayDeque<>();
+    stack.push(new TraversalFrame<>(rootValue, outboundEdges(graph, rootValue)));
+    while (!stack.isEmpty()) {
+      TraversalFrame<T, U> frame = stack.peek();
+      if (frame.cursor == frame.edges.size()) {
+        stack.pop();
+        if (!stack.isEmpty()) {
+          cycleCheck.remove(stack.peek().value);
+        }
+        continue;
+      }
+
+      Edge<T, U> edge = frame.edges.get(frame.cursor++);
+      T destination = edge.getDestination();
+      if (cycleCheck.contains(destination)) {
+        throw new CyclicException("Encountered the graph node [" + destination + "] twice. Your graph has a cycle");
+      }
+
+      if (visitNodesOnce && visited.contains(destination)) {
+        continue;
+      }
+
+      cycleCheck.add(frame.value);
+
+      boolean cont = consumer.consume(frame.value, destination, edge.getValue(), stack.size(), frame.cursor == frame.edges.size());
+      visited.add(destination);
+
+      if (!cont) {
+        cycleCheck.remove(frame.value);
+        continue;
+      }
+
+      // The node stays in the cycle check until the destination's frame is popped
+      List<Edge<T, U>> edges = outboundEdges(graph, destination);
+      if (edgeFilter != null && !(edgeFilter instanceof IdentityEdgeFilter)) {
+        List<Edge<T, U>> filtered = new ArrayList<>(edges.size());
+        for (Edge<T, U> next : edges) {
+          if (edgeFilter.filter(next, edge)) {
+            filtered.add(next);
+          }
+        }
+        edges = filtered;
+      }
+
+      stack.push(new TraversalFrame<>(destination, edges));
+    }
+  }
+
+  /**
+   * Performs a depth first traversal of the graph that calls the visitor for each edge on the way back up using the
+   * same rules as {@link HashGraph#traverseUp}. It only uses {@link Graph#getOutboundEdges}, so graphs like the
+   * {@link ConcurrentGraph} can use it to implement {@link Graph#traverseUp}. A node whose edges are null (because it
+   * was removed) is treated as a leaf.
+   *
+   * @param graph     The graph.
+   * @param rootValue The value of the node to start the traversal from.
+   * @param visitor   The GraphVisitor that is called for each edge.
+   * @param <T>       The node value type.
+   * @param <U>       The edge value type.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  public static <T, U> void traverseUp(Graph<T, U> graph, T rootValue, GraphVisitor<T, U> visitor) throws CyclicException {
+    if (!graph.contains(rootValue)) {
+      throw new IllegalArgumentException("Invalid rootValue [" + rootValue + "] to start the traversal from.");
+    }
+
+    Set<T> onPath = new HashSet<>();
+    Deque<TraversalFrame<T, U>> stack = new ArrayDeque<>();
+    stack.push(new TraversalFrame<>(rootValue, outboundEdges(graph, rootValue)));
+    while (!stack.isEmpty()) {
+      TraversalFrame<T, U> frame = stack.peek();
+      if (frame.cursor == frame.edges.size()) {
+        stack.pop();
+        if (!stack.isEmpty()) {
+          // Visit the edge that led to the popped node on the way back up
+          TraversalFrame<T, U> parent = stack.peek();
+          Edge<T, U> edge = parent.edges.get(parent.cursor - 1);
+          onPath.remove(parent.value);
+          visitor.visit(parent.value, frame.value, edge.getValue(), stack.size());
+        }
+        continue;
+      }
+
+      T destination = frame.edges.get(frame.cursor++).getDestination();
+      if (onPath.contains(destination)) {
+        throw new CyclicException("Encountered the graph node [" + destination + "] twice. Your graph has a cycle");
+      }
+
+      onPath.add(frame.value);
+      stack.push(new TraversalFrame<>(destination, outboundEdges(graph, destination)));
+    }
+  }
+
+  /**
+   * Returns the graph if it is a CompactGraph or a CompactGraph copy of it otherwise.
+   */
+  static <T, U> CompactGraph<T, U> compact(Graph<T, U> graph) {
+    return graph instanceof CompactGraph ? (CompactGraph<T, U>) graph : CompactGraph.copyOf(graph);
+  }
+
+  /**
+   * Finds the strongly connected components of a graph that is stored in compressed sparse row form using an iterative
+   * version of Tarjan's algorithm. The components are numbered in the order Tarjan's algorithm completes them, which is
+   * a reverse topological order (a component is always numbered after every component it has edges to).
+   *
+   * @param nodeCount The number of nodes.
+   * @param offsets   The offsets of each node's edges in the targets array (nodeCount + 1 entries).
+   * @param targets   The destination of each edge.
+   * @return The component number of each node.
+   */
+  static int[] stronglyConnectedComponents(int nodeCount, int[] offsets, int[] targets) {
+    int[] components = new int[nodeCount];
+    int[] indexes = new int[nodeCount];
+    int[] lows = new int[nodeCount];
+    boolean[] onStack = new boolean[nodeCount];
+    int[] stack = new int[nodeCount];
+    int[] callNodes = new int[nodeCount];
+    int[] callCursors = new int[nodeCount];
+    Arrays.fill(indexes, -1);
+
+    int index = 0;
+    int componentCount = 0;
+    int stackTop = 0;
+    for (int start = 0; start < nodeCount; start++) {
+      if (indexes[start] >= 0) {
+        continue;
+      }
+
+      int callTop = 0;
+      callNodes[0] = start;
+      callCursors[0] = offsets[start];
+      indexes[start] = lows[start] = index++;
+      stack[stackTop++] = start;
+      onStack[start] = true;
+
+      while (callTop >= 0) {
+        int node = callNodes[callTop];
+        if (callCursors[callTop] < offsets[node + 1]) {
+          int next = targets[callCursors[callTop]++];
+          if (indexes[next] < 0) {
+            callTop++;
+            callNodes[callTop] = next;
+            callCursors[callTop] = offsets[next];
+            indexes[next] = lows[next] = index++;
+            stack[stackTop++] = next;
+            onStack[next] = true;
+          } else if (onStack[next]) {
+            lows[node] = Math.min(lows[node], indexes[next]);
+          }
+          continue;
+        }
+
+        if (lows[node] == indexes[node]) {
+          int member;
+          do {
+            member = stack[--stackTop];
+            onStack[member] = false;
+            components[member] = componentCount;
+          } while (member != node);
+          componentCount++;
+        }
+
+        callTop--;
+        if (callTop >= 0) {
+          int parent = callNodes[callTop];
+          lows[parent] = Math.min(lows[parent], lows[node]);
+        }
+      }
+    }
+
+    return components;
+  }
+
+  /**
+   * Finds all the nodes that can reach the destination by traversing the inbound edges backwards from it. The traversal
+   * stops at the origin since the paths start there.
+   *
+   * @return The nodes that can reach the destination (including the destination) or null if either node doesn't exist,
+   * the nodes are the same or the origin cannot reach the destination.
+   */
+  private static <T, U> ValueTable<T> reaching(Graph<T, U> graph, T origin, T destination) {
+    if (origin.equals(destination) || !graph.contains(origin) || !graph.contains(destination)) {
+      return null;
+    }
+
+    ValueTable<T> reaching = new ValueTable<>(16);
+    reaching.add(destination);
+    for (int i = 0; i < reaching.size(); i++) {
+      T value = reaching.get(i);
+      List<Edge<T, U>> inbound = graph.getInboundEdges(value);
+      if (value.equals(origin) || inbound == null) {
+        continue;
+      }
+
+      for (Edge<T, U> edge : inbound) {
+        reaching.add(edge.getOrigin());
+      }
+    }
+
+    return reaching.indexOf(origin) >= 0 ? reaching : null;
+  }
+
+  private static <T, U> Edge<T, U> copy(Edge<T, U> edge) {
+    return new BaseEdge<>(edge.getOrigin(), edge.getDestination(), edge.getValue());
+  }
+
+  /**
+   * Finds a cycle among the nodes that could not be placed in a level. Each of these nodes has at least one outbound
+   * edge to another one of these nodes, so following those edges from any of them must eventually loop.
+   */
+  static <T, U> String findCycle(Graph<T, U> graph, ValueTable<T> ids, int[] remaining) {
+    int start = 0;
+    while (remaining[start] == 0) {
+      start++;
+    }
+
+    int[] position = new int[remaining.length];
+    List<T> walk = new ArrayList<>();
+    int current = start;
+    while (position[current] == 0) {
+      walk.add(ids.get(current));
+      position[current] = walk.size();
+      for (Edge<T, U> edge : graph.getOutboundEdges(ids.get(current))) {
+        int destination = ids.indexOf(edge.getDestination());
+        if (remaining[destination] > 0) {
+          current = destination;
+          break;
+        }
+      }
+    }
+
+    List<T> cycle = new ArrayList<>(walk.subList(position[current] - 1, walk.size()));
+    cycle.add(ids.get(current));
+
+    StringBuilder build = new StringBuilder("[");
+    for (int i = 0; i < cycle.size(); i++) {
+      if (i > 0) {
+        build.append(" -> ");
+      }
+      build.append(cycle.get(i));
+    }
+
+    return build.append("]").toString();
+  }
+
+  /**
+   * Finds the strongly connected components of the compact graph and adds a Set for each one to the given List.
+   *
+   * @return The component number of each node, which is the index of its component in the List.
+   */
+  private static <T, U> int[] stronglyConnectedComponents(CompactGraph<T, U> graph, List<Set<T>> components) {
+    int[] componentIds = stronglyConnectedComponents(graph.size(), graph.outboundOffsets, graph.outboundDestinations);
+    List<Set<T>> sets = new ArrayList<>();
+    for (int node = 0; node < componentIds.length; node++) {
+      while (sets.size() <= componentIds[node]) {
+        sets.add(new LinkedHashSet<>());
+      }
+      sets.get(componentIds[node]).add(graph.nodes.get(node));
+    }
+
+    sets.forEach((set) -> components.add(Collections.unmodifiableSet(set)));
+    return componentIds;
+  }
+
+  private static <T, U> List<Edge<T, U>> inboundEdges(Graph<T, U> graph, T value) {
+    List<Edge<T, U>> edges = graph.getInboundEdges(value);
+    return edges != null ? edges : Collections.emptyList();
+  }
+
+  private static <T, U> List<Edge<T, U>> outboundEdges(Graph<T, U> graph, T value) {
+    List<Edge<T, U>> edges = graph.getOutboundEdges(value);
+    return edges != null ? edges : Collections.emptyList();
+  }
+
+  /**
+   * A frame of an iterative depth first traversal.
+   */
+  private static class Frame<T, U> {
+    public final Iterator<Edge<T, U>> edges;
+
+    public final int id;
+
+    public PathCell<T> cell;
+
+    public Frame(int id, Iterator<Edge<T, U>> edges) {
+      this.id = id;
+      this.edges = edges;
+    }
+  }
+
+  /**
+   * A Path that is stored as a linked list of cells from the last node back to the first. Paths that share a prefix
+   * share the cells of the prefix.
+   */
+  private static class LinkedPath<T> implements Path<T> {
+    private final PathCell<T> last;
+
+    private List<T> path;
+
+    public LinkedPath(PathCell<T> last) {
+      this.last = last;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Path)) {
+        return false;
+      }
+
+      final Path<?> other = (Path<?>) o;
+      return get().equals(other.get());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> get() {
+      if (path == null) {
+        Object[] values = new Object[last.length];
+        for (PathCell<T> cell = last; cell != null; cell = cell.previous) {
+          values[cell.length - 1] = cell.value;
+        }
+        path = Collections.unmodifiableList((List<T>) Arrays.asList(values));
+      }
+
+      return path;
+    }
+
+    @Override
+    public int hashCode() {
+      return get().hashCode();
+    }
+
+    public String toString() {
+      return get().toString();
+    }
+  }
+
+  /**
+   * A single node of a {@link LinkedPath}.
+   */
+  private static class PathCell<T> {
+    public final int length;
+
+    public final PathCell<T> previous;
+
+    public final T value;
+
+    public PathCell(T value, PathCell<T> previous) {
+      this.value = value;
+      this.previous = previous;
+      this.length = previous == null ? 1 : previous.length + 1;
+    }
+  }
+
+  /**
+   * Lazily enumerates the paths from the origin to the destination using an iterative depth first traversal that only
+   * visits the nodes that can reach the destination.
+   */
+  private static class PathIterator<T, U> implements Iterator<Path<T>> {
+    private final T destination;
+
+    private final Graph<T, U> graph;
+
+    private final boolean[] onPath;
+
+    private final ValueTable<T> reaching;
+
+    private final Deque<Frame<T, U>> stack = new ArrayDeque<>();
+
+    private Path<T> next;
+
+    public PathIterator(Graph<T, U> graph, ValueTable<T> reaching, T origin, T destination) {
+      this.graph = graph;
+      this.reaching = reaching;
+      this.destination = destination;
+      this.onPath = new boolean[reaching.size()];
+
+      Frame<T, U> frame = new Frame<>(reaching.indexOf(origin), outboundEdges(graph, origin).iterator());
+      frame.cell = new PathCell<>(origin, null);
+      onPath[frame.id] = true;
+      stack.push(frame);
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next == null) {
+        next = advance();
+      }
+      return next != null;
+    }
+
+    @Override
+    public Path<T> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      Path<T> result = next;
+      next = null;
+      return result;
+    }
+
+    private Path<T> advance() {
+      while (!stack.isEmpty()) {
+        Frame<T, U> frame = stack.peek();
+        if (!frame.edges.hasNext()) {
+          onPath[frame.id] = false;
+          stack.pop();
+          continue;
+        }
+
+        T value = frame.edges.next().getDestination();
+        int id = reaching.indexOf(value);
+        if (id < 0) {
+          continue;
+        }
+
+        if (onPath[id]) {
+          throw new CyclicException("Encountered the graph node [" + value + "] twice. Your graph has a cycle");
+        }
+
+        PathCell<T> cell = new PathCell<>(value, frame.cell);
+        if (value.equals(destination)) {
+          return new LinkedPath<>(cell);
+        }
+
+        Frame<T, U> child = new Frame<>(id, outboundEdges(graph, value).iterator());
+        child.cell = cell;
+        onPath[id] = true;
+        stack.push(child);
+      }
+
+      return null;
+    }
+  }
+
+  /**
+   * A node below the root of {@link #reduceUp}. The pending count is the number of dependencies (one per edge) whose
+   * results haven't been computed yet. The result is written before the pending counts of the parents are decremented,
+   * so the task that takes a parent's count to zero always sees the results of all of its dependencies.
+   */
+  private static class ReduceNode<T, R> {
+    public final List<ReduceNode<T, R>> dependencies;
+
+    public final List<ReduceNode<T, R>> parents = new ArrayList<>();
+
+    public final AtomicInteger pending;
+
+    public final T value;
+
+    public R result;
+
+    public ReduceNode(T value, int dependencies) {
+      this.value = value;
+      this.dependencies = new ArrayList<>(dependencies);
+      this.pending = new AtomicInteger(dependencies);
+    }
+  }
+
+  /**
+   * The fork-join tasks of {@link #reduceUp}. The task that is invoked forks a task for each leaf and completes once
+   * every node has been computed. Each node task computes the result of its node and then forks a task for each parent
+   * that has no more pending dependencies. The node tasks complete the invoked task rather than joining each other.
+   */
+  private static class ReduceTask<T, R> extends CountedCompleter<R> {
+    private final BiFunction<? super R, ? super R, ? extends R> combine;
+
+    private final Function<? super T, ? extends R> leaf;
+
+    private final List<ReduceNode<T, R>> leaves;
+
+    private final ReduceNode<T, R> node;
+
+    public ReduceTask(ReduceNode<T, R> root, List<ReduceNode<T, R>> leaves, Function<? super T, ? extends R> leaf,
+                      BiFunction<? super R, ? super R, ? extends R> combine) {
+      this.node = root;
+      this.leaves = leaves;
+      this.leaf = leaf;
+      this.combine = combine;
+    }
+
+    private ReduceTask(ReduceTask<T, R> completer, ReduceNode<T, R> node) {
+      super(completer);
+      this.node = node;
+      this.leaves = null;
+      this.leaf = completer.leaf;
+      this.combine = completer.combine;
+    }
+
+    @Override
+    public void compute() {
+      if (leaves != null) {
+        for (ReduceNode<T, R> leafNode : leaves) {
+          fork(this, leafNode);
+        }
+
+        tryComplete();
+        return;
+      }
+
+      R result = leaf.apply(node.value);
+      for (ReduceNode<T, R> dependency : node.dependencies) {
+        result = combine.apply(result, dependency.result);
+      }
+      node.result = result;
+
+      @SuppressWarnings("unchecked")
+      ReduceTask<T, R> root = (ReduceTask<T, R>) getCompleter();
+      for (ReduceNode<T, R> parent : node.parents) {
+        if (parent.pending.decrementAndGet() == 0) {
+          fork(root, parent);
+        }
+      }
+
+      tryComplete();
+    }
+
+    @Override
+    public R getRawResult() {
+      return leaves != null ? node.result : null;
+    }
+
+    private static <T, R> void fork(ReduceTask<T, R> root, ReduceNode<T, R> node) {
+      root.addToPendingCount(1);
+      new ReduceTask<>(root, node).fork();
+    }
+  }
+
+  /**
+   * A node that one side of the bidirectional breadth first search reached, along with the node it was reached from
+   * (null for the origin and the destination) and its distance from the start of that side.
+   */
+  private static class SearchStep<T> {
+    public final int depth;
+
+    public final T link;
+
+    public SearchStep(T link, int depth) {
+      this.link = link;
+      this.depth = depth;
+    }
+  }
+
+  /**
+   * A frame of the generic depth first traversals. The edges are a List so that the traversal can look ahead to
+   * determine if an edge is the last one.
+   */
+  private static class TraversalFrame<T, U> {
+    public final List<Edge<T, U>> edges;
+
+    public final T value;
+
+    public int cursor;
+
+    public TraversalFrame(T value, List<Edge<T, U>> edges) {
+      this.value = value;
+      this.edges = edges;
+    }
+  }
+
+  /**
+   * A node in the priority queue of Dijkstra's algorithm along with the cost of the path that reached it.
+   */
+  private static class WeightedStep<T> {
+    public final double distance;
+
+    public final T value;
+
+    public WeightedStep(T value, double distance) {
+      this.value = value;
+      this.distance = distance;
+    }
+  }
+
+  /**
+   * The Spliterator of {@link #stream}. It is one of the traversals (with its own stack or queue) that starts at the
+   * root but only follows the given edges of the root.
+   */
+  private static class VisitSpliterator<T, U> implements Spliterator<Visit<T, U>> {
+    private final Graph<T, U> graph;
+
+    private final TraversalOrder order;
+
+    private final T root;
+
+    private Map<T, Integer> depths;
+
+    private long estimate;
+
+    private Set<T> onPath;
+
+    private Deque<TraversalFrame<T, U>> queue;
+
+    private List<Edge<T, U>> rootEdges;
+
+    private Deque<TraversalFrame<T, U>> stack;
+
+    public VisitSpliterator(Graph<T, U> graph, T root, TraversalOrder order, List<Edge<T, U>> rootEdges, long estimate) {
+      this.graph = graph;
+      this.root = root;
+      this.order = order;
+      this.rootEdges = rootEdges;
+      this.estimate = estimate;
+    }
+
+    @Override
+    public int characteristics() {
+      return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    @Override
+    public long estimateSize() {
+      return estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Visit<T, U>> action) {
+      if (stack == null && queue == null) {
+        start();
+      }
+
+      Visit<T, U> visit = switch (order) {
+        case PRE_ORDER -> nextPreOrder();
+        case POST_ORDER -> nextPostOrder();
+        case BREADTH_FIRST -> nextBreadthFirst();
+      };
+
+      if (visit == null) {
+        return false;
+      }
+
+      action.accept(visit);
+      return true;
+    }
+
+    @Override
+    public Spliterator<Visit<T, U>> trySplit() {
+      if (stack != null || queue != null || order == TraversalOrder.BREADTH_FIRST || rootEdges.size() < 2) {
+        return null;
+      }
+
+      // The prefix is returned so that the encounter order is kept
+      int middle = rootEdges.size() / 2;
+      estimate >>>= 1;
+      Spliterator<Visit<T, U>> prefix = new VisitSpliterator<>(graph, root, order, rootEdges.subList(0, middle), estimate);
+      rootEdges = rootEdges.subList(middle, rootEdges.size());
+      return prefix;
+    }
+
+    private void check(T destination) {
+      if (onPath.contains(destination)) {
+        throw new CyclicException("Encountered the graph node [" + destination + "] twice. Your graph has a cycle");
+      }
+    }
+
+    private Visit<T, U> nextBreadthFirst() {
+      while (!queue.isEmpty()) {
+        TraversalFrame<T, U> frame = queue.peek();
+        if (frame.cursor == frame.edges.size()) {
+          queue.poll();
+          continue;
+        }
+
+        Edge<T, U> edge = frame.edges.get(frame.cursor++);
+        T destination = edge.getDestination();
+        int depth = depths.get(frame.value) + 1;
+        if (!depths.containsKey(destination)) {
+          depths.put(destination, depth);
+          queue.add(new TraversalFrame<>(destination, outboundEdges(graph, destination)));
+        }
+
+        return new Visit<>(frame.value, destination, edge.getValue(), depth);
+      }
+
+      return null;
+    }
+
+    private Visit<T, U> nextPostOrder() {
+      while (!stack.isEmpty()) {
+        TraversalFrame<T, U> frame = stack.peek();
+        if (frame.cursor == frame.edges.size()) {
+          stack.pop();
+          if (stack.isEmpty()) {
+            return null;
+          }
+
+          // Visit the edge that led to the popped node on the way back up
+          TraversalFrame<T, U> parent = stack.peek();
+          Edge<T, U> edge = parent.edges.get(parent.cursor - 1);
+          onPath.remove(parent.value);
+          return new Visit<>(parent.value, frame.value, edge.getValue(), stack.size());
+        }
+
+        T destination = frame.edges.get(frame.cursor++).getDestination();
+        check(destination);
+        onPath.add(frame.value);
+        stack.push(new TraversalFrame<>(destination, outboundEdges(graph, destination)));
+      }
+
+      return null;
+    }
+
+    private Visit<T, U> nextPreOrder() {
+      while (!stack.isEmpty()) {
+        TraversalFrame<T, U> frame = stack.peek();
+        if (frame.cursor == frame.edges.size()) {
+          stack.pop();
+          if (!stack.isEmpty()) {
+            onPath.remove(stack.peek().value);
+          }
+          continue;
+        }
+
+        Edge<T, U> edge = frame.edges.get(frame.cursor++);
+        T destination = edge.getDestination();
+        check(destination);
+
+        // The node stays on the path until the destination's frame is popped
+        onPath.add(frame.value);
+        Visit<T, U> visit = new Visit<>(frame.value, destination, edge.getValue(), stack.size());
+        stack.push(new TraversalFrame<>(destination, outboundEdges(graph, destination)));
+        return visit;
+      }
+
+      return null;
+    }
+
+    private void start() {
+      TraversalFrame<T, U> frame = new TraversalFrame<>(root, rootEdges);
+      if (order == TraversalOrder.BREADTH_FIRST) {
+        depths = new HashMap<>();
+        depths.put(root, 0);
+        queue = new ArrayDeque<>();
+        queue.add(frame);
+      } else {
+        onPath = new HashSet<>();
+        stack = new ArrayDeque<>();
+        stack.push(frame);
+      }
+    }
+  }
+}
@@ -15,18 +15,27 @@
  */
 package org.savantbuild.util;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.savantbuild.util.Graph.Edge.BaseEdge;
 import org.savantbuild.util.Graph.EdgeFilter.IdentityEdgeFilter;
+import org.savantbuild.util.GraphStats.Operation;
 
 import static java.util.Arrays.asList;
 
@@ -62,29 +71,233 @@ import static java.util.Arrays.asList;
  * <em>foo</em> with different edges. The key of the Map is a {@link HashNode} object. The node stores the value as well
  * as all the edges.
  * </p>
+ * <p>
+ * Each node is also assigned a dense ordinal when it is added. The traversals track the visited nodes and the nodes on
+ * the current path in arrays that are indexed by the ordinals and reused from one traversal to the next, so a traversal
+ * doesn't allocate and never calls the hashCode or equals methods of the values (except to find the root node). The
+ * edges have dense ordinals as well, which the views created by {@link #reachableView} use to store the nodes and edges
+ * they contain in BitSets.
+ * </p>
+ * <h3>Edge storage</h3>
+ * <p>
+ * By default, the edges of each node are stored in ArrayLists. Adding an edge checks if the edge already exists and
+ * removing an edge searches for it, both of which are linear in the number of edges of the node. For graphs that have
+ * nodes with thousands of edges, the graph can be constructed with {@link EdgeStorage#INDEXED}. This stores the edges
+ * in Lists that are backed by a hash index, which makes adding and removing edges constant time while keeping the edges
+ * in the order they were added.
+ * </p>
  * <h3>Node values</h3>
  * <p>
  * Due to the implementation of the graph, all values must have a good equal and hashcode implementation. Using the
  * object identity is allowed and will then manage the graph based on the heap location of the value objects (pointers
  * are used for the java.lang.Object version of equals and hashcode).
  * </p>
+ * <h3>Equality</h3>
+ * <p>
+ * Two HashGraphs are equal if they contain the same nodes and each node has the same outbound edges (in any order). The
+ * graph maintains a fingerprint of its structure as it is modified, which is the sum of a hash of each node value and a
+ * hash of each edge. Since addition is commutative, the fingerprint doesn't depend on the order that the nodes and
+ * edges were added, so graphs with different fingerprints are never equal and {@link #equals} returns false without
+ * looking at the nodes. Otherwise, equals compares the graphs in time linear to their size. The hash code is derived
+ * from the fingerprint, so it is constant time as well.
+ * </p>
  * <h3>Thread safety</h3>
  * <p>
  * The Graph is not thread safe. Classes must synchronize on the graph instance in order to protect multi-threaded use.
+ * The exception is a graph that is no longer modified (or instrumented), which can be traversed by several threads at
+ * once, since each traversal takes the reusable traversal state atomically or creates its own. Once a graph has been
+ * built, {@link #freeze()} creates an immutable copy of it that can be shared by any number of threads without locking.
  * </p>
  *
  * @author Brian Pontarelli
  */
 public class HashGraph<T, U> implements Graph<T, U> {
-  private final Map<T, HashNode<T, U>> nodes = new LinkedHashMap<>();
+  /**
+   * The number of outbound edges of a node above which {@link #addEdges} indexes the edges rather than searching them.
+   */
+  private static final int INDEX_THRESHOLD = 16;
+
+  // The estimated sizes of the objects of the graph on a 64-bit JVM with compressed references
+  private static final int ARRAY_BYTES = 16;
+
+  private static final int EDGE_BYTES = 24;
+
+  private static final int HASH_ENTRY_BYTES = 40;
+
+  private static final int LIST_BYTES = 48;
+
+  private static final int MAP_BYTES = 56;
+
+  private static final int NODE_BYTES = 40;
+
+  private static final int REFERENCE_BYTES = 4;
+
+  private final EdgeStorage edgeStorage;
+
+  private final Map<T, HashNode<T, U>> nodes;
+
+  private final Ordinals edgeOrdinals = new Ordinals();
+
+  private final Ordinals nodeOrdinals = new Ordinals();
+
+  /**
+   * The state that the next traversal reuses. A traversal takes it atomically, so a traversal that runs while the state
+   * is in use (on another thread or nested in a GraphConsumer) creates its own state instead.
+   */
+  private final AtomicReference<TraversalState<T, U>> traversalState = new AtomicReference<>();
+
+  private int edgeCount;
+
+  private long fingerprint;
+
+  private GraphInstrumentation instrumentation;
+
+  private int modCount;
+
+  private ReachabilityIndex<T> reachabilityIndex;
+
+  public HashGraph() {
+    this(EdgeStorage.LIST);
+  }
+
+  public HashGraph(EdgeStorage edgeStorage) {
+    this(edgeStorage, 16);
+  }
+
+  /**
+   * Creates a graph whose node Map is sized for the expected number of nodes, so it doesn't need to be resized while
+   * the graph is built.
+   *
+   * @param edgeStorage   Determines how the edges of each node are stored.
+   * @param expectedNodes The number of nodes the graph is expected to have.
+   */
+  public HashGraph(EdgeStorage edgeStorage, int expectedNodes) {
+    this.edgeStorage = edgeStorage;
+    this.nodes = new LinkedHashMap<>(capacity(expectedNodes));
+  }
+
+  /**
+   * Creates a new Builder for a HashGraph that is sized for the expected number of nodes and edges.
+   *
+   * @param expectedNodes The number of nodes the graph is expected to have.
+   * @param expectedEdges The number of edges the graph is expected to have.
+   * @param <T>           The node value type.
+   * @param <U>           The edge value type.
+   * @return The Builder.
+   */
+  public static <T, U> Builder<T, U> builder(int expectedNodes, int expectedEdges) {
+    return new Builder<>(expectedNodes, expectedEdges);
+  }
 
   @Override
   public void addEdge(T origin, T destination, U value) {
+    long start = instrumentation != null ? System.nanoTime() : 0L;
     HashNode<T, U> originNode = addNode(origin);
     HashNode<T, U> destinationNode = addNode(destination);
 
-    originNode.addOutboundEdge(destinationNode, value);
-    destinationNode.addInboundEdge(originNode, value);
+    // The origin and destination share the same edge instance
+    HashEdge<T, U> edge = new HashEdge<>(originNode, destinationNode, value);
+    if (originNode.addOutboundEdge(edge)) {
+      destinationNode.addInboundEdge(edge);
+      edgeAdded(edge);
+      modified();
+    }
+
+    if (instrumentation != null) {
+      instrumentation.record(Operation.ADD_EDGE, start);
+    }
+  }
+
+  /**
+   * Adds all the edges to the graph, creating the nodes if necessary. This has the same result as calling
+   * {@link #addEdge} for each edge in order, but it is faster for large numbers of edges:
+   * <ul>
+   *   <li>The origin node is only looked up when it changes, since the edges are usually grouped by their origin.</li>
+   *   <li>Duplicates are found by comparing the destination nodes by identity. Once a node has a lot of edges, they are
+   *   indexed in a HashSet for the rest of the call rather than searched.</li>
+   *   <li>The inbound edges of the destination are not searched for duplicates, because the edge is new.</li>
+   *   <li>The cached state of the graph is discarded once rather than once for each edge.</li>
+   * </ul>
+   *
+   * @param edges The edges to add.
+   */
+  public void addEdges(Collection<? extends Edge<T, U>> edges) {
+    Map<HashNode<T, U>, Set<HashEdge<T, U>>> indexes = null;
+    HashNode<T, U> originNode = null;
+    boolean added = false;
+    for (Edge<T, U> edge : edges) {
+      T origin = edge.getOrigin();
+      if (originNode == null || originNode.value != origin) {
+        originNode = addNode(origin);
+      }
+
+      HashNode<T, U> destinationNode = addNode(edge.getDestination());
+      U value = edge.getValue();
+      List<HashEdge<T, U>> outbound = originNode.outbound;
+      HashEdge<T, U> hashEdge;
+      if (edgeStorage == EdgeStorage.INDEXED) {
+        hashEdge = new HashEdge<>(originNode, destinationNode, value);
+        if (!outbound.add(hashEdge)) {
+          continue;
+        }
+      } else if (outbound.size() < INDEX_THRESHOLD) {
+        if (containsEdge(outbound, destinationNode, value)) {
+          continue;
+        }
+
+        hashEdge = new HashEdge<>(originNode, destinationNode, value);
+        outbound.add(hashEdge);
+      } else {
+        if (indexes == null) {
+          indexes = new IdentityHashMap<>();
+        }
+
+        hashEdge = new HashEdge<>(originNode, destinationNode, value);
+        if (!indexes.computeIfAbsent(originNode, (node) -> new HashSet<>(node.outbound)).add(hashEdge)) {
+          continue;
+        }
+
+        outbound.add(hashEdge);
+      }
+
+      destinationNode.inbound.add(hashEdge);
+      edgeAdded(hashEdge);
+      added = true;
+    }
+
+    if (added) {
+      modified();
+    }
+  }
+
+  /**
+   * Applies the diff to this graph. The removed edges are removed first, then the removed nodes (without removing any
+   * other nodes that are orphaned by removing them), then the added nodes and finally the added edges. Nodes and edges
+   * that are already removed or already exist are skipped, so applying a diff to a graph that has changed since the
+   * diff was computed is still well-defined.
+   *
+   * @param diff The diff.
+   */
+  public void apply(GraphDiff<T, U> diff) {
+    for (Edge<T, U> edge : diff.removedEdges) {
+      HashNode<T, U> originNode = nodes.get(edge.getOrigin());
+      HashNode<T, U> destinationNode = nodes.get(edge.getDestination());
+      if (originNode != null && destinationNode != null) {
+        removeEdge(edge.getOrigin(), edge.getDestination(), edge.getValue());
+      }
+    }
+
+    for (T value : diff.removedNodes) {
+      HashNode<T, U> node = nodes.get(value);
+      if (node != null) {
+        clearEdges(node);
+        nodeRemoved(node);
+      }
+    }
+
+    diff.addedNodes.forEach(this::addNode);
+    diff.addedEdges.forEach((edge) -> addEdge(edge.getOrigin(), edge.getDestination(), edge.getValue()));
+    modified();
   }
 
   @Override
@@ -101,8 +314,24 @@ public class HashGraph<T, U> implements Graph<T, U> {
       return false;
     }
 
-    final HashGraph hashGraph = (HashGraph) o;
-    return nodes.equals(hashGraph.nodes);
+    final HashGraph<?, ?> hashGraph = (HashGraph<?, ?>) o;
+    if (fingerprint != hashGraph.fingerprint || edgeCount != hashGraph.edgeCount || nodes.size() != hashGraph.nodes.size()) {
+      return false;
+    }
+
+    for (HashNode<T, U> node : nodes.values()) {
+      HashNode<?, ?> other = hashGraph.nodes.get(node.value);
+      if (other == null || node.outbound.size() != other.outbound.size()) {
+        return false;
+      }
+
+      // The edges are usually in the same order, so compare the lists before hashing them
+      if (!node.outbound.equals(other.outbound) && !new HashSet<>(other.outbound).containsAll(node.outbound)) {
+        return false;
+      }
+    }
+
+    return true;
   }
 
   /**
@@ -121,10 +350,37 @@ public class HashGraph<T, U> implements Graph<T, U> {
       return null;
     }
 
-    Set<T> visited = new HashSet<>();
-    return find(rootNode, visited, predicate);
+    TraversalState<T, U> state = takeTraversalState();
+    try {
+      return find(rootNode, predicate, state);
+    } finally {
+      returnTraversalState(state);
+    }
+  }
+
+  @Override
+  public void forEachInbound(T value, Consumer<? super Edge<T, U>> consumer) {
+    HashNode<T, U> node = nodes.get(value);
+    if (node != null) {
+      node.inbound.forEach(consumer);
+    }
   }
 
+  @Override
+  public void forEachOutbound(T value, Consumer<? super Edge<T, U>> consumer) {
+    HashNode<T, U> node = nodes.get(value);
+    if (node != null) {
+      node.outbound.forEach(consumer);
+    }
+  }
+
+  /**
+   * Returns a read-only view of the inbound edges of the node. The view does not copy the edges and reflects later
+   * changes to the graph, so it must be copied if the graph is modified while it is being iterated over.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or null if the node does not exist.
+   */
   @Override
   public List<Edge<T, U>> getInboundEdges(T value) {
     HashNode<T, U> node = nodes.get(value);
@@ -132,12 +388,16 @@ public class HashGraph<T, U> implements Graph<T, U> {
       return null;
     }
 
-    return node.inbound
-        .stream()
-        .map(HashEdge::toEdge)
-        .collect(Collectors.toList());
+    return node.inboundView;
   }
 
+  /**
+   * Returns a read-only view of the outbound edges of the node. The view does not copy the edges and reflects later
+   * changes to the graph, so it must be copied if the graph is modified while it is being iterated over.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or null if the node does not exist.
+   */
   @Override
   public List<Edge<T, U>> getOutboundEdges(T value) {
     HashNode<T, U> node = nodes.get(value);
@@ -145,49 +405,145 @@ public class HashGraph<T, U> implements Graph<T, U> {
       return null;
     }
 
-    return node.outbound
-        .stream()
-        .map(HashEdge::toEdge)
-        .collect(Collectors.toList());
+    return node.outboundView;
   }
 
-  @Override
-  public List<Path<T>> getPaths(T origin, T destination) {
-    List<Path<T>> paths = new ArrayList<>();
-    LinkedList<T> current = new LinkedList<>();
-    traverse(origin, false, null, (originValue, destinationValue, edgeValue, depth, isLast) -> {
-      if (depth == 1) {
-        current.clear();
-        current.add(origin);
-      }
+  /**
+   * Creates an immutable snapshot of the graph in a single pass over its nodes and edges. The snapshot is a
+   * {@link CompactGraph}, so all of its reads are safe from any number of threads without locking and later changes to
+   * this graph do not affect it. The nodes and edges are in the same order as they are in this graph.
+   *
+   * @return The snapshot.
+   */
+  public CompactGraph<T, U> freeze() {
+    ValueTable<T> ids = new ValueTable<>(nodes.size());
+    int edgeCount = 0;
+    for (HashNode<T, U> node : nodes.values()) {
+      ids.add(node.value);
+      edgeCount += node.outbound.size();
+    }
 
-      current.add(destinationValue);
+    // The edges of a HashGraph are already unique, so they don't need to be de-duplicated like the Builder does
+    int[] origins = new int[edgeCount];
+    int[] destinations = new int[edgeCount];
+    Object[] values = new Object[edgeCount];
+    Map<HashEdge<T, U>, Integer> edgeIndexes = new IdentityHashMap<>(edgeCount);
+    int edge = 0;
+    int origin = 0;
+    for (HashNode<T, U> node : nodes.values()) {
+      for (HashEdge<T, U> outbound : node.outbound) {
+        origins[edge] = origin;
+        destinations[edge] = ids.indexOf(outbound.destination.value);
+        values[edge] = outbound.value;
+        edgeIndexes.put(outbound, edge);
+        edge++;
+      }
+      origin++;
+    }
 
-      boolean finished = destinationValue.equals(destination);
-      if (finished) {
-        paths.add(new BasePath<>(current));
+    // Keep the inbound edges in the order they are in this graph, which isn't the order of their origins
+    int[] inboundOrder = new int[edgeCount];
+    edge = 0;
+    for (HashNode<T, U> node : nodes.values()) {
+      for (HashEdge<T, U> inbound : node.inbound) {
+        inboundOrder[edge++] = edgeIndexes.get(inbound);
       }
+    }
 
-      return !finished;
-    });
+    return new CompactGraph<>(ids, origins, destinations, values, edgeCount, inboundOrder);
+  }
+
+  /**
+   * Determines all the paths from the origin to the destination using {@link GraphTools#streamPaths}. The paths end at
+   * the destination and share their common prefixes.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @return A list of all the paths between the two nodes or an empty list if there are none or null if either of the
+   * nodes don't exist.
+   * @throws CyclicException If there is a cycle between the origin and the destination.
+   */
+  @Override
+  public List<Path<T>> getPaths(T origin, T destination) {
+    if (!nodes.containsKey(origin) || !nodes.containsKey(destination)) {
+      return null;
+    }
 
-    return paths;
+    return GraphTools.streamPaths(this, origin, destination).collect(Collectors.toList());
   }
 
   @Override
   public int hashCode() {
-    return nodes.hashCode();
+    return (int) (fingerprint ^ (fingerprint >>> 32));
+  }
+
+  /**
+   * Turns the instrumentation of the graph on or off. While the graph is instrumented, the number of calls and the time
+   * of {@link #addEdge}, {@link #prune}, {@link #removeNode} and {@link #traverse} are recorded and included in
+   * {@link #stats()}. The time of a traversal includes the time of the GraphConsumer. The edges added in bulk using
+   * {@link #addEdges} or a {@link Builder} aren't recorded. Turning the instrumentation on starts over from zero. The
+   * instrumentation is off by default, which only costs a null check per call.
+   *
+   * @param enabled True to turn the instrumentation on, false to turn it off.
+   */
+  public void instrument(boolean enabled) {
+    instrumentation = enabled ? new GraphInstrumentation() : null;
   }
 
+  /**
+   * Removes all the nodes that have no inbound edges (except the given nodes) along with all the nodes that are
+   * orphaned by removing them. This runs in time linear to the size of the removed sub-graph and its edges.
+   *
+   * @param excludes The nodes to exclude from pruning.
+   */
   @Override
   @SuppressWarnings("unchecked")
   public void prune(T... excludes) {
+    long start = instrumentation != null ? System.nanoTime() : 0L;
     Set<T> excludeValues = new HashSet<>(asList(excludes));
+    List<HashNode<T, U>> orphans = new ArrayList<>();
     nodes.values().forEach((node) -> {
       if (!excludeValues.contains(node.value) && node.inbound.isEmpty()) {
-        removeNode(node.value);
+        orphans.add(node);
       }
     });
+
+    removeNodes(orphans);
+
+    if (instrumentation != null) {
+      instrumentation.record(Operation.PRUNE, start);
+    }
+  }
+
+  /**
+   * Returns the reachability index for the graph. The index is cached until the graph is modified.
+   *
+   * @return The index.
+   */
+  @Override
+  public ReachabilityIndex<T> reachabilityIndex() {
+    if (reachabilityIndex == null) {
+      reachabilityIndex = new ReachabilityIndex<>(this);
+    }
+
+    return reachabilityIndex;
+  }
+
+  /**
+   * Returns a read-only view of the part of the graph that is reachable from the root. See
+   * {@link Graph#reachableView}. The view stores its nodes and edges in BitSets that are indexed by their ordinals
+   * rather than in hash sets of the values. It checks that this graph hasn't been modified each time it is used and
+   * throws a ConcurrentModificationException if it has.
+   *
+   * @param root       The value of the root node.
+   * @param edgeFilter The EdgeFilter that determines which edges are in the view or null to include every reachable
+   *                   edge.
+   * @return The view.
+   * @throws IllegalArgumentException If the root doesn't exist.
+   */
+  @Override
+  public Graph<T, U> reachableView(T root, EdgeFilter<T, U> edgeFilter) {
+    return new ReachableHashGraph<>(this, root, edgeFilter, () -> modCount);
   }
 
   @Override
@@ -195,27 +551,26 @@ public class HashGraph<T, U> implements Graph<T, U> {
     HashNode<T, U> originNode = nodes.get(origin);
     HashNode<T, U> destinationNode = nodes.get(destination);
 
-    HashEdge<T, U> edge = new HashEdge<>(originNode, destinationNode, value);
-    originNode.removeEdge(edge);
-    destinationNode.removeEdge(edge);
+    // The edge that is removed is the stored instance rather than the probe, since it holds the ordinal to release
+    HashEdge<T, U> edge = removeEdge(originNode.outbound, new HashEdge<>(originNode, destinationNode, value));
+    if (edge != null) {
+      destinationNode.inbound.remove(edge);
+      edgeRemoved(edge);
+    }
+    modified();
   }
 
   @Override
   public void removeNode(T value) throws CyclicException {
+    long start = instrumentation != null ? System.nanoTime() : 0L;
     HashNode<T, U> node = nodes.get(value);
-    if (node == null) {
-      return;
+    if (node != null) {
+      removeNodes(Collections.singletonList(node));
     }
 
-    // Get the outbound edges first and then remove this nodes outbound and inbound edges
-    List<HashEdge<T, U>> outboundEdges = new ArrayList<>(node.outbound);
-    clearEdges(node);
-
-    outboundEdges.stream()
-                 .filter((edge) -> edge.destination.inbound.isEmpty())
-                 .forEach((edge) -> removeNode(edge.destination.value));
-
-    nodes.remove(value);
+    if (instrumentation != null) {
+      instrumentation.record(Operation.REMOVE_NODE, start);
+    }
   }
 
   @Override
@@ -223,6 +578,28 @@ public class HashGraph<T, U> implements Graph<T, U> {
     return nodes.size();
   }
 
+  /**
+   * Returns a snapshot of the size and shape of the graph along with an estimate of the memory that the graph's own
+   * structure retains (the Map, nodes, edges and edge lists, but not the values) and, if the graph is instrumented, the
+   * statistics of its operations. This is linear in the number of nodes.
+   *
+   * @return The statistics.
+   */
+  @Override
+  public GraphStats stats() {
+    int maxInDegree = 0;
+    int maxOutDegree = 0;
+    long bytes = MAP_BYTES + ARRAY_BYTES + (long) REFERENCE_BYTES * tableSize(nodes.size()) + (long) EDGE_BYTES * edgeCount;
+    for (HashNode<T, U> node : nodes.values()) {
+      maxInDegree = Math.max(maxInDegree, node.inbound.size());
+      maxOutDegree = Math.max(maxOutDegree, node.outbound.size());
+      bytes += HASH_ENTRY_BYTES + NODE_BYTES + edgeListBytes(node.inbound) + edgeListBytes(node.outbound);
+    }
+
+    return new GraphStats(nodes.size(), edgeCount, maxInDegree, maxOutDegree, bytes,
+        instrumentation != null ? instrumentation.snapshot() : Collections.emptyMap());
+  }
+
   /**
    * Performs a depth first traversal of the graph. For each node, the GraphConsumer is called. The traversal WILL
    * traverse the same node twice if it has multiple connections.
@@ -235,6 +612,7 @@ public class HashGraph<T, U> implements Graph<T, U> {
    */
   @Override
   public void traverse(T rootValue, boolean visitNodesOnce, EdgeFilter<T, U> edgeFilter, GraphConsumer<T, U> consumer) throws CyclicException {
+    long start = instrumentation != null ? System.nanoTime() : 0L;
     HashNode<T, U> rootNode = nodes.get(rootValue);
     if (rootNode == null) {
       throw new IllegalArgumentException("Invalid rootValue [" + rootValue + "] to start the traversal from.");
@@ -244,9 +622,15 @@ public class HashGraph<T, U> implements Graph<T, U> {
       edgeFilter = new IdentityEdgeFilter<>();
     }
 
-    Set<T> cycleCheck = new HashSet<>();
-    Set<T> visited = new HashSet<>();
-    traverse(rootNode, null, visitNodesOnce, cycleCheck, visited, edgeFilter, consumer, 1);
+    TraversalState<T, U> state = takeTraversalState();
+    try {
+      traverse(rootNode, visitNodesOnce, edgeFilter, consumer, state);
+    } finally {
+      returnTraversalState(state);
+      if (instrumentation != null) {
+        instrumentation.record(Operation.TRAVERSE, start);
+      }
+    }
   }
 
   /**
@@ -264,30 +648,54 @@ public class HashGraph<T, U> implements Graph<T, U> {
       throw new IllegalArgumentException("Invalid rootValue [" + rootValue + "] to start the traversal from.");
     }
 
-    Set<T> visited = new HashSet<>();
-    traverseUp(rootNode, visited, visitor, 1);
+    TraversalState<T, U> state = takeTraversalState();
+    try {
+      traverseUp(rootNode, visitor, state);
+    } finally {
+      returnTraversalState(state);
+    }
   }
 
   /**
-   * Returns a Set that contains all of the unique artifacts contained in the graph.
+   * Returns a Set that contains all of the unique artifacts contained in the graph. The Set iterates over the artifacts
+   * in the order they were added to the graph.
    *
    * @return All the artifacts.
    */
   @Override
   public Set<T> values() {
-    return new HashSet<>(nodes.keySet());
+    return new LinkedHashSet<>(nodes.keySet());
   }
 
   protected HashNode<T, U> addNode(T value) {
     HashNode<T, U> node = nodes.get(value);
     if (node == null) {
-      node = new HashNode<>(value);
+      node = new HashNode<>(value, edgeStorage);
+      node.ordinal = nodeOrdinals.take();
       nodes.put(value, node);
+      fingerprint += mix(node.valueHash);
+      modified();
     }
 
     return node;
   }
 
+  /**
+   * Adds an edge between two nodes of this graph without checking if the edge already exists. This is for the
+   * algorithms that build a new graph and have already removed the duplicate edges.
+   *
+   * @param origin      The origin node.
+   * @param destination The destination node.
+   * @param value       The edge value.
+   */
+  void addDistinctEdge(HashNode<T, U> origin, HashNode<T, U> destination, U value) {
+    HashEdge<T, U> edge = new HashEdge<>(origin, destination, value);
+    origin.outbound.add(edge);
+    destination.inbound.add(edge);
+    edgeAdded(edge);
+    modified();
+  }
+
   protected void clearEdges(HashNode<T, U> node) {
     // Prevent concurrent modification exceptions by using a new ArrayList
     new ArrayList<>(node.outbound).forEach((edge) -> removeEdge(edge.origin.value, edge.destination.value, edge.value));
@@ -298,89 +706,629 @@ public class HashGraph<T, U> implements Graph<T, U> {
     node.inbound.clear();
   }
 
-  protected T find(HashNode<T, U> root, Set<T> visited, Predicate<T> predicate) {
+  protected HashNode<T, U> getNode(T value) {
+    return nodes.get(value);
+  }
+
+  /**
+   * Removes the given nodes and every node that is orphaned by removing them (i.e. all of its inbound edges are from
+   * removed nodes). The orphaned nodes are found using a single reference counting pass over the outbound edges of the
+   * removed nodes and then all the edges between the removed nodes and the remaining nodes are removed in one sweep.
+   *
+   * @param seeds The nodes to remove.
+   */
+  protected void removeNodes(Collection<HashNode<T, U>> seeds) {
+    Set<HashNode<T, U>> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    Map<HashNode<T, U>, int[]> remainingInbound = new IdentityHashMap<>();
+    Deque<HashNode<T, U>> queue = new ArrayDeque<>();
+    for (HashNode<T, U> seed : seeds) {
+      if (removed.add(seed)) {
+        queue.add(seed);
+      }
+    }
+
+    while (!queue.isEmpty()) {
+      HashNode<T, U> node = queue.poll();
+      for (HashEdge<T, U> edge : node.outbound) {
+        HashNode<T, U> destination = edge.destination;
+        if (removed.contains(destination)) {
+          continue;
+        }
+
+        int[] count = remainingInbound.computeIfAbsent(destination, (key) -> new int[]{key.inbound.size()});
+        if (--count[0] == 0) {
+          removed.add(destination);
+          queue.add(destination);
+        }
+      }
+    }
+
+    // Find the remaining nodes that have edges to or from the removed nodes and then remove those edges
+    Set<HashNode<T, U>> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (HashNode<T, U> node : removed) {
+      node.outbound.stream().map((edge) -> edge.destination).filter((other) -> !removed.contains(other)).forEach(affected::add);
+      node.inbound.stream().map((edge) -> edge.origin).filter((other) -> !removed.contains(other)).forEach(affected::add);
+    }
+
+    for (HashNode<T, U> node : affected) {
+      node.inbound.removeIf((edge) -> removed.contains(edge.origin));
+      node.outbound.removeIf((edge) -> removed.contains(edge.destination));
+    }
+
+    for (HashNode<T, U> node : removed) {
+      // Each edge between two removed nodes is only counted once, as an outbound edge
+      node.outbound.forEach(this::edgeRemoved);
+      node.inbound.stream().filter((edge) -> !removed.contains(edge.origin)).forEach(this::edgeRemoved);
+    }
+
+    for (HashNode<T, U> node : removed) {
+      node.inbound.clear();
+      node.outbound.clear();
+      nodeRemoved(node);
+    }
+
+    if (!removed.isEmpty()) {
+      modified();
+    }
+  }
+
+  /**
+   * Removes the edge from the List and returns the instance that was stored in it or null if the List didn't contain
+   * the edge.
+   */
+  private static <T, U> HashEdge<T, U> removeEdge(List<HashEdge<T, U>> edges, HashEdge<T, U> edge) {
+    if (edges instanceof IndexedList<HashEdge<T, U>> indexed) {
+      return indexed.removeElement(edge);
+    }
+
+    int index = edges.indexOf(edge);
+    return index >= 0 ? edges.remove(index) : null;
+  }
+
+  /**
+   * @return The initial capacity of a HashMap or HashSet that holds the given number of elements without resizing.
+   */
+  private static int capacity(int expectedSize) {
+    return Math.max(16, (int) (expectedSize / 0.75f) + 1);
+  }
+
+  private static <T, U> boolean containsEdge(List<HashEdge<T, U>> edges, HashNode<T, U> destination, U value) {
+    for (int i = 0; i < edges.size(); i++) {
+      HashEdge<T, U> edge = edges.get(i);
+      if (edge.destination == destination && edge.value.equals(value)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * @return The estimated size of an edge List of a node (including its unmodifiable view). An IndexedList also has a
+   * LinkedHashSet with an entry for each edge.
+   */
+  private static int edgeListBytes(List<?> edges) {
+    int size = LIST_BYTES + ARRAY_BYTES + REFERENCE_BYTES * edges.size();
+    if (edges instanceof IndexedList) {
+      size += MAP_BYTES + ARRAY_BYTES + (REFERENCE_BYTES * tableSize(edges.size())) + HASH_ENTRY_BYTES * edges.size();
+    }
+
+    return size;
+  }
+
+  /**
+   * Spreads a hash code over 64 bits (this is the finalizer of MurmurHash3) so that summing the hashes of the nodes and
+   * edges into the fingerprint doesn't cancel out similar hash codes.
+   */
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+
+  /**
+   * @return The size of the table of a HashMap that holds the given number of entries (the next power of two that keeps
+   * the load factor under 0.75).
+   */
+  private static int tableSize(int entries) {
+    int size = 16;
+    while (size * 0.75 < entries) {
+      size <<= 1;
+    }
+
+    return size;
+  }
+
+  private void edgeAdded(HashEdge<T, U> edge) {
+    edge.ordinal = edgeOrdinals.take();
+    edgeCount++;
+    fingerprint += mix(~(long) edge.hashCode());
+  }
+
+  private void edgeRemoved(HashEdge<T, U> edge) {
+    edgeOrdinals.release(edge.ordinal);
+    edgeCount--;
+    fingerprint -= mix(~(long) edge.hashCode());
+  }
+
+  /**
+   * Performs the depth first search for {@link #find(Object, Predicate)} using the explicit stack of the traversal
+   * state. The nodes on the current path are tracked by their ordinals, so the search never calls the hashCode or
+   * equals methods of the values.
+   */
+  private T find(HashNode<T, U> root, Predicate<T> predicate, TraversalState<T, U> state) {
     if (predicate.test(root.value)) {
       return root.value;
     }
 
-    for (HashEdge<T, U> edge : root.outbound) {
-      if (visited.contains(edge.destination.value)) {
+    TraversalStack<T, U> stack = state.stack;
+    stack.push(root, null, null);
+
+    while (stack.top >= 0) {
+      int frame = stack.top;
+      HashNode<T, U> node = stack.nodes[frame];
+      if (stack.cursors[frame] == stack.ends[frame]) {
+        stack.pop();
+        if (stack.top >= 0) {
+          state.exit(stack.nodes[stack.top]);
+        }
+        continue;
+      }
+
+      HashEdge<T, U> edge = stack.edges[stack.cursors[frame]++];
+      if (state.isOnPath(edge.destination)) {
         throw new CyclicException("Encountered the graph node [" + edge.destination.value + "] twice. Your graph has a cycle");
       }
 
-      visited.add(root.value);
-      T result = find(edge.destination, visited, predicate);
-      if (result != null) {
-        return result;
+      if (predicate.test(edge.destination.value)) {
+        return edge.destination.value;
       }
-      visited.remove(root.value);
+
+      state.enter(node);
+      stack.push(edge.destination, null, null);
     }
 
     return null;
   }
 
-  protected HashNode<T, U> getNode(T value) {
-    return nodes.get(value);
+  /**
+   * Called whenever nodes or edges are added or removed. This discards the cached state that depends on the structure
+   * of the graph.
+   */
+  private void modified() {
+    modCount++;
+    reachabilityIndex = null;
   }
 
-  protected void traverse(HashNode<T, U> root, HashEdge<T, U> traversedEdge, boolean visitNodesOnce, Set<T> cycleCheck,
-                          Set<T> visited, EdgeFilter<T, U> edgeFilter, GraphConsumer<T, U> consumer, int depth) {
-    List<HashEdge<T, U>> edges = root.outbound;
-    if (traversedEdge != null) {
-      edges = root.outbound
-          .stream()
-          .filter((edge) -> edgeFilter.filter(edge.toEdge(), traversedEdge.toEdge()))
-          .collect(Collectors.toList());
+  /**
+   * Called when the node is removed from the graph. This removes the node from the Map, removes its value from the
+   * fingerprint and frees its ordinal so that the next node that is added reuses it.
+   */
+  private void nodeRemoved(HashNode<T, U> node) {
+    nodes.remove(node.value);
+    fingerprint -= mix(node.valueHash);
+    nodeOrdinals.release(node.ordinal);
+  }
+
+  /**
+   * Gives the traversal state back to the graph so that the next traversal can reuse it.
+   */
+  private void returnTraversalState(TraversalState<T, U> state) {
+    state.stack.clear();
+    traversalState.set(state);
+  }
+
+  /**
+   * Takes the traversal state from the graph and starts a new traversal with it. If the state is in use (because
+   * another thread is traversing the graph or a GraphConsumer or Predicate started another traversal of this graph), a
+   * new state is created for this traversal.
+   */
+  private TraversalState<T, U> takeTraversalState() {
+    TraversalState<T, U> state = traversalState.getAndSet(null);
+    if (state == null) {
+      state = new TraversalState<>();
     }
 
-    for (int i = 0; i < edges.size(); i++) {
-      HashEdge<T, U> edge = edges.get(i);
-      if (cycleCheck.contains(edge.destination.value)) {
+    state.begin(nodeOrdinals.limit());
+    return state;
+  }
+
+  /**
+   * Performs the depth first traversal using an explicit stack rather than recursion so that the depth of the graph is
+   * not limited by the size of the thread stack. The stack frames and the edges that are pending at each depth are
+   * stored in arrays that are reused for the entire traversal, so descending into a node does not allocate. The cycle
+   * check and the visited nodes are tracked by the ordinals of the nodes, so the traversal never calls the hashCode or
+   * equals methods of the values.
+   *
+   * @param root           The node to start the traversal from. The root's edges are not filtered.
+   * @param visitNodesOnce Determines if nodes are visited once if they have multiple links.
+   * @param edgeFilter     The EdgeFilter that is used to control the traversal.
+   * @param consumer       The GraphConsumer that is called for each edge.
+   * @param state          The traversal state.
+   */
+  private void traverse(HashNode<T, U> root, boolean visitNodesOnce, EdgeFilter<T, U> edgeFilter,
+                        GraphConsumer<T, U> consumer, TraversalState<T, U> state) {
+    TraversalStack<T, U> stack = state.stack;
+    stack.push(root, null, edgeFilter);
+
+    while (stack.top >= 0) {
+      int frame = stack.top;
+      HashNode<T, U> node = stack.nodes[frame];
+      if (stack.cursors[frame] == stack.ends[frame]) {
+        stack.pop();
+        if (stack.top >= 0) {
+          state.exit(stack.nodes[stack.top]);
+        }
+        continue;
+      }
+
+      HashEdge<T, U> edge = stack.edges[stack.cursors[frame]++];
+      if (state.isOnPath(edge.destination)) {
         throw new CyclicException("Encountered the graph node [" + edge.destination.value + "] twice. Your graph has a cycle");
       }
 
-      if (visitNodesOnce && visited.contains(edge.destination.value)) {
+      if (visitNodesOnce && state.isVisited(edge.destination)) {
         continue;
       }
 
-      cycleCheck.add(root.value);
+      state.enter(node);
 
-      boolean cont = consumer.consume(root.value, edge.destination.value, edge.value, depth, i + 1 == edges.size());
-      visited.add(edge.destination.value);
+      boolean cont = consumer.consume(node.value, edge.destination.value, edge.value, frame + 1, stack.cursors[frame] == stack.ends[frame]);
+      state.visit(edge.destination);
 
       if (cont) {
-        traverse(edge.destination, edge, visitNodesOnce, cycleCheck, visited, edgeFilter, consumer, depth + 1);
+        // The node stays on the path until the destination's frame is popped
+        stack.push(edge.destination, edge, edgeFilter);
+      } else {
+        state.exit(node);
       }
-
-      cycleCheck.remove(root.value);
     }
   }
 
-  protected void traverseUp(HashNode<T, U> root, Set<T> visited, GraphVisitor<T, U> consumer, int depth) {
-    root.outbound.forEach((edge) -> {
-      if (visited.contains(edge.destination.value)) {
+  /**
+   * Performs the depth first traversal for {@link #traverseUp(Object, GraphVisitor)} using the explicit stack of the
+   * traversal state. Each edge is visited when the frame of its destination is popped, which is after all the edges
+   * below it have been visited.
+   */
+  private void traverseUp(HashNode<T, U> root, GraphVisitor<T, U> visitor, TraversalState<T, U> state) {
+    TraversalStack<T, U> stack = state.stack;
+    stack.push(root, null, null);
+
+    while (stack.top >= 0) {
+      int frame = stack.top;
+      HashNode<T, U> node = stack.nodes[frame];
+      if (stack.cursors[frame] == stack.ends[frame]) {
+        stack.pop();
+        if (stack.top >= 0) {
+          HashNode<T, U> parent = stack.nodes[stack.top];
+          HashEdge<T, U> edge = stack.edges[stack.cursors[stack.top] - 1];
+          visitor.visit(parent.value, node.value, edge.value, stack.top + 1);
+          state.exit(parent);
+        }
+        continue;
+      }
+
+      HashEdge<T, U> edge = stack.edges[stack.cursors[frame]++];
+      if (state.isOnPath(edge.destination)) {
         throw new CyclicException("Encountered the graph node [" + edge.destination.value + "] twice. Your graph has a cycle");
       }
 
-      visited.add(root.value);
-      traverseUp(edge.destination, visited, consumer, depth + 1);
-      consumer.visit(root.value, edge.destination.value, edge.value, depth);
-      visited.remove(root.value);
-    });
+      state.enter(node);
+      stack.push(edge.destination, null, null);
+    }
+  }
+
+  /**
+   * Assigns the dense ordinals of the nodes or the edges. Released ordinals are reused before new ones are assigned, so
+   * the ordinals stay below the largest number of nodes or edges that the graph has had.
+   *
+   * @author Brian Pontarelli
+   */
+  private static class Ordinals {
+    private int[] free = new int[16];
+
+    private int freeCount;
+
+    private int next;
+
+    /**
+     * @return One more than the largest ordinal that has been assigned.
+     */
+    public int limit() {
+      return next;
+    }
+
+    public void release(int ordinal) {
+      if (freeCount == free.length) {
+        free = Arrays.copyOf(free, free.length * 2);
+      }
+      free[freeCount++] = ordinal;
+    }
+
+    public int take() {
+      return freeCount > 0 ? free[--freeCount] : next++;
+    }
+  }
+
+  /**
+   * The explicit stack used by the depth first traversal. Each frame is a node along with a window into the shared edge
+   * buffer that holds the node's (filtered) outbound edges. The frames and the edge buffer grow as needed and are
+   * reused as the traversal moves up and down the graph.
+   *
+   * @author Brian Pontarelli
+   */
+  private static class TraversalStack<T, U> {
+    public int[] cursors = new int[16];
+
+    public int edgeMax;
+
+    public HashEdge<T, U>[] edges = newEdgeArray(64);
+
+    public int edgeTop;
+
+    public int[] ends = new int[16];
+
+    public HashNode<T, U>[] nodes = newNodeArray(16);
+
+    public int top = -1;
+
+    @SuppressWarnings("unchecked")
+    private static <T, U> HashEdge<T, U>[] newEdgeArray(int size) {
+      return new HashEdge[size];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, U> HashNode<T, U>[] newNodeArray(int size) {
+      return new HashNode[size];
+    }
+
+    /**
+     * Empties the stack and releases the nodes and edges it references so a reused stack doesn't keep them alive.
+     */
+    public void clear() {
+      Arrays.fill(nodes, 0, top + 1, null);
+      Arrays.fill(edges, 0, edgeMax, null);
+      top = -1;
+      edgeTop = 0;
+      edgeMax = 0;
+    }
+
+    public void pop() {
+      nodes[top] = null;
+      top--;
+      edgeTop = top >= 0 ? ends[top] : 0;
+    }
+
+    /**
+     * Pushes a new frame for the given node. If the traversed edge is null or the EdgeFilter is null or an
+     * IdentityEdgeFilter, all the node's outbound edges are added to the frame. Otherwise, they are filtered using the
+     * EdgeFilter and the traversed edge as the entry point. The HashEdges are passed to the EdgeFilter directly, so
+     * filtering does not allocate.
+     */
+    public void push(HashNode<T, U> node, HashEdge<T, U> traversedEdge, EdgeFilter<T, U> edgeFilter) {
+      top++;
+      if (top == nodes.length) {
+        nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        cursors = Arrays.copyOf(cursors, cursors.length * 2);
+        ends = Arrays.copyOf(ends, ends.length * 2);
+      }
+
+      int needed = edgeTop + node.outbound.size();
+      if (needed > edges.length) {
+        edges = Arrays.copyOf(edges, Math.max(needed, edges.length * 2));
+      }
+
+      nodes[top] = node;
+      cursors[top] = edgeTop;
+      if (traversedEdge == null || edgeFilter == null || edgeFilter instanceof IdentityEdgeFilter) {
+        for (HashEdge<T, U> edge : node.outbound) {
+          edges[edgeTop++] = edge;
+        }
+      } else {
+        for (HashEdge<T, U> edge : node.outbound) {
+          if (edgeFilter.filter(edge, traversedEdge)) {
+            edges[edgeTop++] = edge;
+          }
+        }
+      }
+
+      ends[top] = edgeTop;
+      edgeMax = Math.max(edgeMax, edgeTop);
+    }
+  }
+
+  /**
+   * The bookkeeping of a traversal, which the graph keeps between traversals so that they don't allocate. The nodes on
+   * the current path (the cycle check) and the visited nodes are stored in arrays that are indexed by the ordinals of
+   * the nodes and hold the epoch of the traversal that last marked the node. Each traversal increments the epoch, which
+   * empties both sets without clearing the arrays.
+   *
+   * @author Brian Pontarelli
+   */
+  private static class TraversalState<T, U> {
+    public final TraversalStack<T, U> stack = new TraversalStack<>();
+
+    public int epoch;
+
+    public int[] onPath = new int[0];
+
+    public int[] visited = new int[0];
+
+    /**
+     * Starts a new traversal.
+     *
+     * @param ordinals The number of ordinals that the graph has assigned.
+     */
+    public void begin(int ordinals) {
+      ensureCapacity(ordinals);
+      if (epoch == Integer.MAX_VALUE) {
+        Arrays.fill(onPath, 0);
+        Arrays.fill(visited, 0);
+        epoch = 0;
+      }
+      epoch++;
+    }
+
+    public void enter(HashNode<T, U> node) {
+      ensureCapacity(node.ordinal + 1);
+      onPath[node.ordinal] = epoch;
+    }
+
+    public void exit(HashNode<T, U> node) {
+      onPath[node.ordinal] = 0;
+    }
+
+    public boolean isOnPath(HashNode<T, U> node) {
+      return node.ordinal < onPath.length && onPath[node.ordinal] == epoch;
+    }
+
+    public boolean isVisited(HashNode<T, U> node) {
+      return node.ordinal < visited.length && visited[node.ordinal] == epoch;
+    }
+
+    public void visit(HashNode<T, U> node) {
+      ensureCapacity(node.ordinal + 1);
+      visited[node.ordinal] = epoch;
+    }
+
+    private void ensureCapacity(int size) {
+      if (size > visited.length) {
+        int newSize = Math.max(size, visited.length * 2);
+        onPath = Arrays.copyOf(onPath, newSize);
+        visited = Arrays.copyOf(visited, newSize);
+      }
+    }
+  }
+
+  /**
+   * Builds HashGraphs from a large number of edges. The edges are buffered and added to the graph using
+   * {@link HashGraph#addEdges}, and the graph's node Map is sized for the expected number of nodes up front. The nodes
+   * and edges of the graph are in the same order they were added to the Builder.
+   *
+   * @param <T> The node value type.
+   * @param <U> The edge value type.
+   */
+  public static class Builder<T, U> {
+    private final List<Edge<T, U>> edges;
+
+    private final int expectedNodes;
+
+    private EdgeStorage edgeStorage = EdgeStorage.LIST;
+
+    private HashGraph<T, U> graph;
+
+    public Builder(int expectedNodes, int expectedEdges) {
+      this.expectedNodes = expectedNodes;
+      this.edges = new ArrayList<>(expectedEdges);
+    }
+
+    /**
+     * Adds an edge to the graph, creating the nodes if necessary.
+     *
+     * @param origin      The origin value.
+     * @param destination The destination value.
+     * @param edgeValue   The edge value.
+     * @return This Builder.
+     */
+    public Builder<T, U> addEdge(T origin, T destination, U edgeValue) {
+      edges.add(new BaseEdge<>(origin, destination, edgeValue));
+      return this;
+    }
+
+    /**
+     * Adds the edges to the graph, creating the nodes if necessary.
+     *
+     * @param edges The edges.
+     * @return This Builder.
+     */
+    public Builder<T, U> addEdges(Collection<? extends Edge<T, U>> edges) {
+      this.edges.addAll(edges);
+      return this;
+    }
+
+    /**
+     * Adds a node without any edges to the graph.
+     *
+     * @param value The node value.
+     * @return This Builder.
+     */
+    public Builder<T, U> addNode(T value) {
+      flush().addNode(value);
+      return this;
+    }
+
+    /**
+     * Builds the HashGraph. The Builder should not be used after this is called.
+     *
+     * @return The HashGraph.
+     */
+    public HashGraph<T, U> build() {
+      return flush();
+    }
+
+    /**
+     * Sets how the edges of each node are stored. This must be called before any nodes or edges are added.
+     *
+     * @param edgeStorage The edge storage.
+     * @return This Builder.
+     */
+    public Builder<T, U> edgeStorage(EdgeStorage edgeStorage) {
+      this.edgeStorage = edgeStorage;
+      return this;
+    }
+
+    /**
+     * Adds the buffered edges to the graph, so that a node that is added after them keeps its place in the order.
+     */
+    private HashGraph<T, U> flush() {
+      if (graph == null) {
+        graph = new HashGraph<>(edgeStorage, expectedNodes);
+      }
+
+      graph.addEdges(edges);
+      edges.clear();
+      return graph;
+    }
+  }
+
+  /**
+   * Determines how the edges of each node are stored.
+   */
+  public enum EdgeStorage {
+    /**
+     * The edges are stored in ArrayLists. This uses the least memory, but adding and removing edges is linear in the
+     * number of edges of the node.
+     */
+    LIST,
+
+    /**
+     * The edges are stored in insertion order Lists that are backed by a hash index. Adding and removing edges is
+     * constant time.
+     */
+    INDEXED
   }
 
   /**
-   * This class is the edge between nodes in the graph.
+   * This class is the edge between nodes in the graph. The same instance is stored in the outbound edges of the origin
+   * and the inbound edges of the destination and it is returned directly by the edge views of the graph.
    *
    * @author Brian Pontarelli
    */
-  protected static class HashEdge<T, U> {
+  protected static class HashEdge<T, U> implements Edge<T, U> {
     public final HashNode<T, U> destination;
 
     public final HashNode<T, U> origin;
 
     public final U value;
 
+    /**
+     * The dense ordinal of the edge, which is assigned when the edge is added to the graph. Ordinals of removed edges
+     * are reused.
+     */
+    public int ordinal = -1;
+
     public HashEdge(HashNode<T, U> origin, HashNode<T, U> destination, U value) {
       this.origin = origin;
       this.destination = destination;
@@ -392,18 +1340,46 @@ public class HashGraph<T, U> implements Graph<T, U> {
       if (this == o) {
         return true;
       }
-      if (o == null || getClass() != o.getClass()) {
+      if (o instanceof HashEdge) {
+        final HashEdge hashEdge = (HashEdge) o;
+        return destination.value.equals(hashEdge.destination.value) && origin.value.equals(hashEdge.origin.value) && value.equals(hashEdge.value);
+      }
+      if (!(o instanceof Edge)) {
         return false;
       }
 
-      final HashEdge hashEdge = (HashEdge) o;
-      return destination.value.equals(hashEdge.destination.value) && origin.value.equals(hashEdge.origin.value) && value.equals(hashEdge.value);
+      final Edge edge = (Edge) o;
+      return destination.value.equals(edge.getDestination()) && origin.value.equals(edge.getOrigin()) && value.equals(edge.getValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T getDestination() {
+      return destination.value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T getOrigin() {
+      return origin.value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public U getValue() {
+      return value;
     }
 
     @Override
     public int hashCode() {
-      int result = destination.value.hashCode();
-      result = 31 * result + origin.value.hashCode();
+      int result = destination.valueHash;
+      result = 31 * result + origin.valueHash;
       result = 31 * result + value.hashCode();
       return result;
     }
@@ -411,6 +1387,10 @@ public class HashGraph<T, U> implements Graph<T, U> {
     public Edge<T, U> toEdge() {
       return new BaseEdge<>(origin.value, destination.value, value);
     }
+
+    public String toString() {
+      return origin.value + "-(" + value + ")->" + destination.value;
+    }
   }
 
   /**
@@ -419,14 +1399,39 @@ public class HashGraph<T, U> implements Graph<T, U> {
    * @author Brian Pontarelli
    */
   protected static class HashNode<T, U> {
-    public final List<HashEdge<T, U>> inbound = new ArrayList<>();
+    public final List<HashEdge<T, U>> inbound;
+
+    public final List<Edge<T, U>> inboundView;
 
-    public final List<HashEdge<T, U>> outbound = new ArrayList<>();
+    public final List<HashEdge<T, U>> outbound;
+
+    public final List<Edge<T, U>> outboundView;
+
+    /**
+     * The dense index of the node that the graph assigns when the node is added. The traversals use it to track the
+     * nodes in arrays rather than hashing the values. Ordinals of removed nodes are reused.
+     */
+    public int ordinal = -1;
 
     public T value;
 
+    /**
+     * The hash code of the value, which is computed once so that hashing the edges (for the fingerprint and the edge
+     * indexes) doesn't hash the values again.
+     */
+    public final int valueHash;
+
     public HashNode(T value) {
+      this(value, EdgeStorage.LIST);
+    }
+
+    public HashNode(T value, EdgeStorage edgeStorage) {
       this.value = value;
+      this.valueHash = value.hashCode();
+      this.inbound = edgeStorage == EdgeStorage.INDEXED ? new IndexedList<>() : new ArrayList<>();
+      this.outbound = edgeStorage == EdgeStorage.INDEXED ? new IndexedList<>() : new ArrayList<>();
+      this.inboundView = Collections.unmodifiableList(inbound);
+      this.outboundView = Collections.unmodifiableList(outbound);
     }
 
     @Override
@@ -483,18 +1488,20 @@ public class HashGraph<T, U> implements Graph<T, U> {
       return value.toString();
     }
 
-    void addInboundEdge(HashNode<T, U> origin, U edgeValue) {
-      HashEdge<T, U> edge = new HashEdge<>(origin, this, edgeValue);
+    boolean addInboundEdge(HashEdge<T, U> edge) {
       if (!inbound.contains(edge)) {
         inbound.add(edge);
+        return true;
       }
+      return false;
     }
 
-    void addOutboundEdge(HashNode<T, U> destination, U edgeValue) {
-      HashEdge<T, U> edge = new HashEdge<>(this, destination, edgeValue);
+    boolean addOutboundEdge(HashEdge<T, U> edge) {
       if (!outbound.contains(edge)) {
         outbound.add(edge);
+        return true;
       }
+      return false;
     }
   }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A List that is backed by a LinkedHashMap so that {@link #add}, {@link #contains} and {@link #remove(Object)} are
+ * constant time while the elements stay in insertion order. This List does not allow duplicates, so adding an element
+ * that is already in the List does nothing and returns false.
+ * <p>
+ * Positional access copies the elements to an array the first time it is used after a modification. Iterating over the
+ * List does not.
+ *
+ * @author Brian Pontarelli
+ */
+final class IndexedList<E> extends AbstractList<E> {
+  private final Map<E, E> elements = new LinkedHashMap<>();
+
+  private Object[] snapshot;
+
+  @Override
+  public boolean add(E element) {
+    if (elements.putIfAbsent(element, element) != null) {
+      return false;
+    }
+
+    modified();
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    elements.clear();
+    modified();
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return elements.containsKey(o);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    if (snapshot == null) {
+      snapshot = elements.keySet().toArray();
+    }
+
+    Objects.checkIndex(index, snapshot.length);
+    return (E) snapshot[index];
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    Iterator<E> iterator = elements.keySet().iterator();
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public E next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void remove() {
+        iterator.remove();
+        modified();
+      }
+    };
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    return removeElement(o) != null;
+  }
+
+  /**
+   * Removes the element that is equal to the given object.
+   *
+   * @param o The object.
+   * @return The element that was in the List (which might not be the same instance as the object) or null if the List
+   * didn't contain it.
+   */
+  public E removeElement(Object o) {
+    E element = elements.remove(o);
+    if (element != null) {
+      modified();
+    }
+
+    return element;
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  private void modified() {
+    snapshot = null;
+    modCount++;
+  }
+}
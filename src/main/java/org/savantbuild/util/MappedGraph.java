@@ -0,0 +1,577 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+
+/**
+ * <p>
+ * A read-only graph that works directly on a buffer (usually a memory mapped file) that contains a graph written by
+ * the {@link GraphSerializer}. Nothing is read when the graph is created. {@link #contains} encodes the value and looks
+ * it up in the hash table that is stored in the buffer, and {@link #getOutboundEdges} and {@link #getInboundEdges} only
+ * decode the edges of the one node. This makes it a good fit for large graphs where a build only looks at a few nodes.
+ * Use {@link GraphSerializer#read} instead if most of the graph is going to be traversed.
+ * </p>
+ * <p>
+ * Each node and edge value is decoded the first time it is needed and then cached, so the values returned for the same
+ * node are the same instance.
+ * </p>
+ * <h3>Validation</h3>
+ * <p>
+ * Creating the graph checks that the header describes sections that are in order and inside the buffer, without reading
+ * the sections themselves. The offsets, ids and varints inside the sections are checked when they are read, so a
+ * truncated or corrupt buffer always fails with a GraphFormatException rather than an IndexOutOfBoundsException.
+ * </p>
+ * <h3>Mutation</h3>
+ * <p>
+ * This graph cannot be modified. All of the methods that modify the graph throw an UnsupportedOperationException.
+ * </p>
+ * <h3>Thread safety</h3>
+ * <p>
+ * This graph is thread safe as long as the underlying buffer (or file) isn't modified. The buffer is only read using
+ * absolute positions and the decoded values are cached in an AtomicReferenceArray, so it can be shared with any number
+ * of threads without locking.
+ * </p>
+ *
+ * @author Brian Pontarelli
+ */
+public final class MappedGraph<T, U> implements Graph<T, U> {
+  private final int adjacencyOffset;
+
+  private final ByteBuffer buffer;
+
+  private final ValueCodec<U> edgeCodec;
+
+  private final int edgeCount;
+
+  private final int edgesOffset;
+
+  private final AtomicReferenceArray<U> edgeValues;
+
+  private final ValueCodec<T> nodeCodec;
+
+  private final int nodeCount;
+
+  private final AtomicReferenceArray<T> nodeValues;
+
+  private final int stringOffset;
+
+  private final int stringsStart;
+
+  private final int tableMask;
+
+  private final int tableOffset;
+
+  private final int tableSlots;
+
+  private volatile ReachabilityIndex<T> reachabilityIndex;
+
+  MappedGraph(ByteBuffer buffer, ValueCodec<T> nodeCodec, ValueCodec<U> edgeCodec) {
+    if (buffer.limit() < GraphSerializer.HEADER_SIZE || buffer.getInt(0) != GraphSerializer.MAGIC) {
+      throw new GraphFormatException("The buffer doesn't contain a serialized graph");
+    }
+
+    int version = buffer.getInt(4);
+    if (version != GraphSerializer.VERSION) {
+      throw new GraphFormatException("Unsupported graph format version [" + version + "]");
+    }
+
+    int length = buffer.getInt(36);
+    if (buffer.limit() != length) {
+      throw new GraphFormatException("The serialized graph is [" + buffer.limit() + "] bytes but should be [" + length + "] bytes");
+    }
+
+    int nodeCount = buffer.getInt(8);
+    int edgeCount = buffer.getInt(12);
+    int stringCount = buffer.getInt(16);
+    if (nodeCount < 0 || edgeCount < 0 || stringCount < nodeCount) {
+      throw new GraphFormatException("The serialized graph has an invalid number of nodes [" + nodeCount + "], edges [" + edgeCount + "] or strings [" + stringCount + "]");
+    }
+
+    // The node table must have an empty slot, otherwise looking up a value that isn't in the graph never ends
+    int tableSlots = buffer.getInt(28);
+    if (tableSlots <= nodeCount || Integer.bitCount(tableSlots) != 1) {
+      throw new GraphFormatException("The node table of the serialized graph has an invalid number of slots [" + tableSlots + "]");
+    }
+
+    // The sections must be in the order the GraphSerializer writes them and inside the buffer
+    int stringOffset = buffer.getInt(20);
+    int tableOffset = buffer.getInt(24);
+    int adjacencyOffset = buffer.getInt(32);
+    long stringsStart = stringOffset + 4L * (stringCount + 1);
+    long edgesOffset = adjacencyOffset + 8L * (nodeCount + 1);
+    if (stringOffset < GraphSerializer.HEADER_SIZE || stringsStart > tableOffset ||
+        tableOffset + 4L * tableSlots > adjacencyOffset || edgesOffset > length) {
+      throw new GraphFormatException("The sections of the serialized graph are out of bounds");
+    }
+
+    // The last offset of the strings and of the edges mark where the sections end, which catches most truncated graphs
+    if (buffer.getInt((int) stringsStart - 4) != tableOffset || buffer.getInt((int) edgesOffset - 4) != length) {
+      throw new GraphFormatException("The strings or the edges of the serialized graph don't end where the header says they do");
+    }
+
+    // Each edge takes at least two bytes as an outbound edge and two more as an inbound edge
+    if (edgeCount > (length - edgesOffset) / 4) {
+      throw new GraphFormatException("The serialized graph has more edges [" + edgeCount + "] than fit in its edges section");
+    }
+
+    this.buffer = buffer;
+    this.nodeCodec = nodeCodec;
+    this.edgeCodec = edgeCodec;
+    this.nodeCount = nodeCount;
+    this.edgeCount = edgeCount;
+    this.stringOffset = stringOffset;
+    this.stringsStart = (int) stringsStart;
+    this.tableOffset = tableOffset;
+    this.tableSlots = tableSlots;
+    this.tableMask = tableSlots - 1;
+    this.adjacencyOffset = adjacencyOffset;
+    this.edgesOffset = (int) edgesOffset;
+    this.nodeValues = new AtomicReferenceArray<>(nodeCount);
+    this.edgeValues = new AtomicReferenceArray<>(stringCount);
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable.
+   */
+  @Override
+  public void addEdge(T origin, T destination, U edgeValue) {
+    throw new UnsupportedOperationException("A MappedGraph cannot be modified");
+  }
+
+  @Override
+  public boolean contains(T value) {
+    return value != null && indexOf(value) >= 0;
+  }
+
+  /**
+   * Finds the first node in the graph that satisfies the predicate using {@link GraphTools#find}.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param predicate The predicate used to find the node.
+   * @return The value of the first node that matches the predicate starting at the rootValue node. Null if the
+   * rootValue not doesn't exist or if no nodes match the predicate.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public T find(T rootValue, Predicate<T> predicate) throws CyclicException {
+    return GraphTools.find(this, rootValue, predicate);
+  }
+
+  /**
+   * Decodes the inbound edges of the node.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or an empty list if the node exists and has no edges or null if the node does not exist.
+   */
+  @Override
+  public List<Edge<T, U>> getInboundEdges(T value) {
+    int node = value != null ? indexOf(value) : -1;
+    return node >= 0 ? edges(node, adjacencyOffset + 4 * (nodeCount + 1), false) : null;
+  }
+
+  /**
+   * Decodes the outbound edges of the node.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or an empty list if the node exists and has no edges or null if the node does not exist.
+   */
+  @Override
+  public List<Edge<T, U>> getOutboundEdges(T value) {
+    int node = value != null ? indexOf(value) : -1;
+    return node >= 0 ? edges(node, adjacencyOffset, true) : null;
+  }
+
+  /**
+   * Determines all the paths from the origin to the destination using {@link GraphTools#streamPaths}.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @return A list of all the paths between the two nodes or an empty list if there are none or null if either of the
+   * nodes don't exist.
+   * @throws CyclicException If there is a cycle between the origin and the destination.
+   */
+  @Override
+  public List<Path<T>> getPaths(T origin, T destination) {
+    if (!contains(origin) || !contains(destination)) {
+      return null;
+    }
+
+    return GraphTools.streamPaths(this, origin, destination).collect(Collectors.toList());
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void prune(T... excludes) {
+    throw new UnsupportedOperationException("A MappedGraph cannot be modified");
+  }
+
+  /**
+   * Returns the reachability index for the graph. Since the graph cannot be modified, the index is built once and
+   * cached. Building the index decodes the entire graph.
+   *
+   * @return The index.
+   */
+  @Override
+  public ReachabilityIndex<T> reachabilityIndex() {
+    ReachabilityIndex<T> index = reachabilityIndex;
+    if (index == null) {
+      index = new ReachabilityIndex<>(this);
+      reachabilityIndex = index;
+    }
+
+    return index;
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable.
+   */
+  @Override
+  public void removeEdge(T origin, T destination, U value) {
+    throw new UnsupportedOperationException("A MappedGraph cannot be modified");
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable.
+   */
+  @Override
+  public void removeNode(T value) throws CyclicException {
+    throw new UnsupportedOperationException("A MappedGraph cannot be modified");
+  }
+
+  @Override
+  public int size() {
+    return nodeCount;
+  }
+
+  /**
+   * Performs a depth first traversal of the graph using {@link GraphTools#traverse}.
+   *
+   * @param rootValue      The value of the node to start the traversal from.
+   * @param visitNodesOnce Determines if nodes are visited once if they have multiple links.
+   * @param edgeFilter     The EdgeFilter that is used to control the traversal.
+   * @param consumer       The GraphConsumer that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public void traverse(T rootValue, boolean visitNodesOnce, EdgeFilter<T, U> edgeFilter, GraphConsumer<T, U> consumer) throws CyclicException {
+    GraphTools.traverse(this, rootValue, visitNodesOnce, edgeFilter, consumer);
+  }
+
+  /**
+   * Performs a depth first traversal of the graph using {@link GraphTools#traverseUp}.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param visitor   The GraphVisitor that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public void traverseUp(T rootValue, GraphVisitor<T, U> visitor) throws CyclicException {
+    GraphTools.traverseUp(this, rootValue, visitor);
+  }
+
+  /**
+   * Returns a Set that contains all of the values in the graph in the order they were written. This decodes every node.
+   *
+   * @return All the values.
+   */
+  @Override
+  public Set<T> values() {
+    Set<T> values = new LinkedHashSet<>();
+    for (int node = 0; node < nodeCount; node++) {
+      values.add(nodeValue(node));
+    }
+    return values;
+  }
+
+  /**
+   * Decodes the entire graph into a CompactGraph. The outbound edges are decoded first and then the inbound edges are
+   * matched to them, so that the CompactGraph keeps the order of both.
+   *
+   * @return The CompactGraph.
+   */
+  CompactGraph<T, U> load() {
+    ValueTable<T> nodes = new ValueTable<>(nodeCount);
+    for (int node = 0; node < nodeCount; node++) {
+      nodes.add(nodeValue(node));
+    }
+
+    int[] origins = new int[edgeCount];
+    int[] destinations = new int[edgeCount];
+    Object[] values = new Object[edgeCount];
+    int[] valueIds = new int[edgeCount];
+    int edge = 0;
+    VarintReader reader = new VarintReader(offset(adjacencyOffset, edgesOffset, buffer.limit()));
+    for (int node = 0; node < nodeCount; node++) {
+      int count = reader.count();
+      if (count > edgeCount - edge) {
+        throw new GraphFormatException("The serialized graph has more edges than the [" + edgeCount + "] in its header");
+      }
+
+      for (int i = 0; i < count; i++) {
+        origins[edge] = node;
+        destinations[edge] = reader.next(nodeCount);
+        valueIds[edge] = reader.next(edgeValues.length());
+        values[edge] = edgeValue(valueIds[edge]);
+        edge++;
+      }
+    }
+
+    if (edge != edgeCount) {
+      throw new GraphFormatException("The serialized graph has [" + edge + "] edges but should have [" + edgeCount + "] edges");
+    }
+
+    return new CompactGraph<>(nodes, origins, destinations, values, edgeCount, inboundOrder(origins, destinations, valueIds));
+  }
+
+  private U edgeValue(int string) {
+    U value = edgeValues.get(string);
+    if (value == null) {
+      value = edgeCodec.decode(string(string));
+      edgeValues.compareAndSet(string, null, value);
+      value = edgeValues.get(string);
+    }
+
+    return value;
+  }
+
+  private List<Edge<T, U>> edges(int node, int offsets, boolean outbound) {
+    VarintReader reader = new VarintReader(offset(offsets + 4 * node, edgesOffset, buffer.limit()));
+    int count = reader.count();
+    if (count == 0) {
+      return Collections.emptyList();
+    }
+
+    T value = nodeValue(node);
+    List<Edge<T, U>> edges = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      T other = nodeValue(reader.next(nodeCount));
+      U edgeValue = edgeValue(reader.next(edgeValues.length()));
+      edges.add(outbound ? new BaseEdge<>(value, other, edgeValue) : new BaseEdge<>(other, value, edgeValue));
+    }
+
+    return Collections.unmodifiableList(edges);
+  }
+
+  /**
+   * Decodes the inbound edges of every node and finds the outbound edge that each one is. The edges are grouped by
+   * destination and, since the outbound edges are decoded in the order of their origins, each group is sorted by origin
+   * and the edge is found using a binary search.
+   *
+   * @return The indexes of the edges in the order of the inbound edges of each node.
+   */
+  private int[] inboundOrder(int[] origins, int[] destinations, int[] valueIds) {
+    int[] offsets = new int[nodeCount + 1];
+    for (int edge = 0; edge < edgeCount; edge++) {
+      offsets[destinations[edge] + 1]++;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      offsets[node + 1] += offsets[node];
+    }
+
+    int[] cursors = Arrays.copyOf(offsets, nodeCount);
+    int[] byDestination = new int[edgeCount];
+    for (int edge = 0; edge < edgeCount; edge++) {
+      byDestination[cursors[destinations[edge]]++] = edge;
+    }
+
+    boolean[] matched = new boolean[edgeCount];
+    int[] inboundOrder = new int[edgeCount];
+    int position = 0;
+    VarintReader reader = new VarintReader(offset(adjacencyOffset + 4 * (nodeCount + 1), edgesOffset, buffer.limit()));
+    for (int node = 0; node < nodeCount; node++) {
+      int count = reader.count();
+      if (count != offsets[node + 1] - offsets[node]) {
+        throw new GraphFormatException("The serialized graph has [" + count + "] inbound edges for the node [" + node + "] but [" + (offsets[node + 1] - offsets[node]) + "] outbound edges to it");
+      }
+
+      for (int i = 0; i < count; i++) {
+        int origin = reader.next(nodeCount);
+        int valueId = reader.next(edgeValues.length());
+        int low = offsets[node];
+        int high = offsets[node + 1];
+        while (low < high) {
+          int middle = (low + high) >>> 1;
+          if (origins[byDestination[middle]] < origin) {
+            low = middle + 1;
+          } else {
+            high = middle;
+          }
+        }
+
+        int edge = -1;
+        for (int j = low; j < offsets[node + 1] && origins[byDestination[j]] == origin; j++) {
+          int candidate = byDestination[j];
+          if (valueIds[candidate] == valueId && !matched[candidate]) {
+            edge = candidate;
+            break;
+          }
+        }
+
+        if (edge < 0) {
+          throw new GraphFormatException("The serialized graph has an inbound edge from the node [" + origin + "] to the node [" + node + "] that isn't one of the outbound edges");
+        }
+
+        matched[edge] = true;
+        inboundOrder[position++] = edge;
+      }
+    }
+
+    return inboundOrder;
+  }
+
+  private int indexOf(T value) {
+    byte[] bytes = nodeCodec.encode(value);
+    int slot = GraphSerializer.hash(ByteBuffer.wrap(bytes), 0, bytes.length) & tableMask;
+    // A corrupt table might not have an empty slot, so the probing stops after it has seen every slot
+    for (int probes = 0; probes < tableSlots; probes++) {
+      int id = buffer.getInt(tableOffset + 4 * slot);
+      if (id == 0) {
+        return -1;
+      }
+
+      if (id < 0 || id > nodeCount) {
+        throw new GraphFormatException("The node table of the serialized graph has an invalid node id [" + (id - 1) + "]");
+      }
+
+      int node = id - 1;
+      int start = offset(stringOffset + 4 * node, stringsStart, tableOffset);
+      int end = offset(stringOffset + 4 * node + 4, start, tableOffset);
+      if (end - start == bytes.length && matches(start, bytes)) {
+        return node;
+      }
+      slot = (slot + 1) & tableMask;
+    }
+
+    return -1;
+  }
+
+  private boolean matches(int start, byte[] bytes) {
+    for (int i = 0; i < bytes.length; i++) {
+      if (buffer.get(start + i) != bytes[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Reads an offset from the buffer and checks that it is inside the section it points into.
+   *
+   * @param position The position of the offset.
+   * @param min      The start of the section.
+   * @param max      The end of the section. An offset can be equal to it, since the offsets also mark where things
+   *                 end.
+   * @return The offset.
+   * @throws GraphFormatException If the offset is outside the section.
+   */
+  private int offset(int position, int min, int max) {
+    int offset = buffer.getInt(position);
+    if (offset < min || offset > max) {
+      throw new GraphFormatException("The serialized graph has an offset [" + offset + "] at position [" + position + "] that is outside of [" + min + ", " + max + "]");
+    }
+
+    return offset;
+  }
+
+  private T nodeValue(int node) {
+    T value = nodeValues.get(node);
+    if (value == null) {
+      value = nodeCodec.decode(string(node));
+      nodeValues.compareAndSet(node, null, value);
+      value = nodeValues.get(node);
+    }
+
+    return value;
+  }
+
+  private byte[] string(int string) {
+    int start = offset(stringOffset + 4 * string, stringsStart, tableOffset);
+    int end = offset(stringOffset + 4 * string + 4, start, tableOffset);
+    byte[] bytes = new byte[end - start];
+    buffer.get(start, bytes);
+    return bytes;
+  }
+
+  /**
+   * Reads the unsigned varints that the {@link GraphSerializer} writes starting at a position of the buffer. A varint
+   * that runs past the end of the buffer or doesn't fit in an int throws a GraphFormatException.
+   */
+  private final class VarintReader {
+    private int position;
+
+    private VarintReader(int position) {
+      this.position = position;
+    }
+
+    /**
+     * Reads the edge count of a node. Every edge takes at least two bytes, so the count is checked against the rest of
+     * the buffer.
+     */
+    public int count() {
+      int count = next(Integer.MAX_VALUE);
+      if (count > (buffer.limit() - position) / 2) {
+        throw new GraphFormatException("The serialized graph has an edge count [" + count + "] at position [" + position + "] that is larger than the rest of the graph");
+      }
+
+      return count;
+    }
+
+    /**
+     * Reads an id.
+     *
+     * @param bound The number of ids.
+     * @return The id.
+     * @throws GraphFormatException If the id is not less than the bound.
+     */
+    public int next(int bound) {
+      int start = position;
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        if (position >= buffer.limit() || shift > 28) {
+          throw new GraphFormatException("The serialized graph has an invalid varint at position [" + start + "]");
+        }
+
+        b = buffer.get(position++);
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+
+      if (value < 0 || value >= bound) {
+        throw new GraphFormatException("The serialized graph has an invalid id [" + value + "] at position [" + start + "]");
+      }
+
+      return value;
+    }
+  }
+}
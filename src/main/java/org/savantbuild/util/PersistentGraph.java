@@ -0,0 +1,503 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+
+import static java.util.Arrays.asList;
+
+/**
+ * <p>
+ * An immutable graph where each modification returns a new version of the graph that shares all of the unchanged nodes
+ * with the original. This is useful for backtracking searches that explore many variations of a graph, because keeping
+ * a version only costs memory for the nodes that changed rather than a copy of the entire graph.
+ * </p>
+ * <h3>Modification</h3>
+ * <p>
+ * The graph is modified using {@link #withEdge}, {@link #withoutEdge}, {@link #withoutNode} and {@link #pruned}, which
+ * return the new version and leave this one untouched. They follow the same rules as the {@link HashGraph} methods
+ * they replace. The mutating methods of the Graph interface ({@link #addEdge}, {@link #removeEdge},
+ * {@link #removeNode} and {@link #prune}) throw an UnsupportedOperationException.
+ * </p>
+ * <h3>Internals</h3>
+ * <p>
+ * The nodes are stored in a hash array mapped trie ({@link PersistentMap}), so changing a node copies the path of the
+ * trie to the node (a handful of small arrays) and shares the rest. The edges of each node are stored in immutable
+ * arrays, so adding or removing an edge copies the edges of its origin and destination. Removing a node only copies the
+ * nodes that had edges to or from it.
+ * </p>
+ * <h3>Thread safety</h3>
+ * <p>
+ * Every version is immutable, so it can be shared with any number of threads without locking.
+ * </p>
+ *
+ * @author Brian Pontarelli
+ */
+public final class PersistentGraph<T, U> implements Graph<T, U> {
+  private static final PersistentGraph<?, ?> EMPTY = new PersistentGraph<>(PersistentMap.empty(), 0);
+
+  private final long nextSequence;
+
+  private final PersistentMap<T, PersistentNode<T, U>> nodes;
+
+  private volatile ReachabilityIndex<T> reachabilityIndex;
+
+  private PersistentGraph(PersistentMap<T, PersistentNode<T, U>> nodes, long nextSequence) {
+    this.nodes = nodes;
+    this.nextSequence = nextSequence;
+  }
+
+  /**
+   * Copies the given graph into a PersistentGraph. The nodes are added in the iteration order of the graph's
+   * {@link Graph#values()}.
+   *
+   * @param graph The graph to copy.
+   * @param <T>   The node value type.
+   * @param <U>   The edge value type.
+   * @return The PersistentGraph.
+   */
+  public static <T, U> PersistentGraph<T, U> copyOf(Graph<T, U> graph) {
+    if (graph instanceof PersistentGraph) {
+      return (PersistentGraph<T, U>) graph;
+    }
+
+    // Build the complete edge lists of every node before putting the nodes in the trie, so nothing is copied twice. The
+    // edges are copied so the new graph doesn't reference the internals of the original graph and each copy is shared
+    // by the outbound list of its origin and the inbound list of its destination. Both lists keep their original order
+    Set<T> values = graph.values();
+    Map<Edge<T, U>, Edge<T, U>> copies = new HashMap<>();
+    Map<T, List<Edge<T, U>>> inbound = new HashMap<>();
+    Map<T, List<Edge<T, U>>> outbound = new HashMap<>();
+    values.forEach((value) -> graph.getOutboundEdges(value).forEach((edge) -> {
+      Edge<T, U> copy = new BaseEdge<>(edge.getOrigin(), edge.getDestination(), edge.getValue());
+      copies.put(copy, copy);
+      outbound.computeIfAbsent(copy.getOrigin(), (key) -> new ArrayList<>()).add(copy);
+    }));
+    values.forEach((value) -> graph.getInboundEdges(value).forEach((edge) -> inbound.computeIfAbsent(value, (key) -> new ArrayList<>()).add(copies.get(edge))));
+
+    PersistentMap<T, PersistentNode<T, U>> nodes = PersistentMap.empty();
+    long sequence = 0;
+    for (T value : values) {
+      Edge<T, U>[] in = toArray(inbound.getOrDefault(value, Collections.emptyList()));
+      Edge<T, U>[] out = toArray(outbound.getOrDefault(value, Collections.emptyList()));
+      nodes = nodes.put(value, new PersistentNode<>(value, sequence++, in, out));
+    }
+
+    return new PersistentGraph<>(nodes, sequence);
+  }
+
+  /**
+   * @param <T> The node value type.
+   * @param <U> The edge value type.
+   * @return The empty PersistentGraph.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T, U> PersistentGraph<T, U> empty() {
+    return (PersistentGraph<T, U>) EMPTY;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T, U> Edge<T, U>[] toArray(List<Edge<T, U>> edges) {
+    return edges.toArray(new Edge[0]);
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable. Use {@link #withEdge} instead.
+   */
+  @Override
+  public void addEdge(T origin, T destination, U edgeValue) {
+    throw new UnsupportedOperationException("A PersistentGraph cannot be modified. Use withEdge instead");
+  }
+
+  @Override
+  public boolean contains(T value) {
+    return nodes.get(value) != null;
+  }
+
+  /**
+   * Finds the first node in the graph that satisfies the predicate using {@link GraphTools#find}.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param predicate The predicate used to find the node.
+   * @return The value of the first node that matches the predicate starting at the rootValue node. Null if the
+   * rootValue not doesn't exist or if no nodes match the predicate.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public T find(T rootValue, Predicate<T> predicate) throws CyclicException {
+    return GraphTools.find(this, rootValue, predicate);
+  }
+
+  @Override
+  public List<Edge<T, U>> getInboundEdges(T value) {
+    PersistentNode<T, U> node = nodes.get(value);
+    return node != null ? node.inboundView : null;
+  }
+
+  @Override
+  public List<Edge<T, U>> getOutboundEdges(T value) {
+    PersistentNode<T, U> node = nodes.get(value);
+    return node != null ? node.outboundView : null;
+  }
+
+  /**
+   * Determines all the paths from the origin to the destination using {@link GraphTools#streamPaths}.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @return A list of all the paths between the two nodes or an empty list if there are none or null if either of the
+   * nodes don't exist.
+   * @throws CyclicException If there is a cycle between the origin and the destination.
+   */
+  @Override
+  public List<Path<T>> getPaths(T origin, T destination) {
+    if (!contains(origin) || !contains(destination)) {
+      return null;
+    }
+
+    return GraphTools.streamPaths(this, origin, destination).collect(Collectors.toList());
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable. Use {@link #pruned} instead.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void prune(T... excludes) {
+    throw new UnsupportedOperationException("A PersistentGraph cannot be modified. Use pruned instead");
+  }
+
+  /**
+   * Returns a version of the graph without the nodes that have no inbound edges (except the given nodes) and without
+   * the nodes that are orphaned by removing them.
+   *
+   * @param excludes The nodes to exclude from pruning.
+   * @return The new version or this graph if nothing was removed.
+   */
+  @SuppressWarnings("unchecked")
+  public PersistentGraph<T, U> pruned(T... excludes) {
+    Set<T> excludeValues = new HashSet<>(asList(excludes));
+    List<PersistentNode<T, U>> orphans = new ArrayList<>();
+    nodes.forEach((value, node) -> {
+      if (!excludeValues.contains(value) && node.inbound.length == 0) {
+        orphans.add(node);
+      }
+    });
+
+    return withoutNodes(orphans);
+  }
+
+  /**
+   * Returns the reachability index for the graph. Since this version of the graph cannot change, the index is built
+   * once and cached.
+   *
+   * @return The index.
+   */
+  @Override
+  public ReachabilityIndex<T> reachabilityIndex() {
+    ReachabilityIndex<T> index = reachabilityIndex;
+    if (index == null) {
+      index = new ReachabilityIndex<>(this);
+      reachabilityIndex = index;
+    }
+
+    return index;
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable. Use {@link #withoutEdge} instead.
+   */
+  @Override
+  public void removeEdge(T origin, T destination, U value) {
+    throw new UnsupportedOperationException("A PersistentGraph cannot be modified. Use withoutEdge instead");
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is immutable. Use {@link #withoutNode} instead.
+   */
+  @Override
+  public void removeNode(T value) {
+    throw new UnsupportedOperationException("A PersistentGraph cannot be modified. Use withoutNode instead");
+  }
+
+  @Override
+  public int size() {
+    return nodes.size();
+  }
+
+  /**
+   * Performs a depth first traversal of the graph using {@link GraphTools#traverse}.
+   *
+   * @param rootValue      The value of the node to start the traversal from.
+   * @param visitNodesOnce Determines if nodes are visited once if they have multiple links.
+   * @param edgeFilter     The EdgeFilter that is used to control the traversal.
+   * @param consumer       The GraphConsumer that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public void traverse(T rootValue, boolean visitNodesOnce, EdgeFilter<T, U> edgeFilter, GraphConsumer<T, U> consumer) throws CyclicException {
+    GraphTools.traverse(this, rootValue, visitNodesOnce, edgeFilter, consumer);
+  }
+
+  /**
+   * Performs a depth first traversal of the graph using {@link GraphTools#traverseUp}.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param visitor   The GraphVisitor that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public void traverseUp(T rootValue, GraphVisitor<T, U> visitor) throws CyclicException {
+    GraphTools.traverseUp(this, rootValue, visitor);
+  }
+
+  /**
+   * Returns a Set that contains all of the values in the graph in the order their nodes were added to the graph
+   * (including the versions this version was created from).
+   *
+   * @return All the values.
+   */
+  @Override
+  public Set<T> values() {
+    List<PersistentNode<T, U>> sorted = new ArrayList<>(nodes.size());
+    nodes.forEach((value, node) -> sorted.add(node));
+    sorted.sort(Comparator.comparingLong((node) -> node.sequence));
+
+    Set<T> values = new LinkedHashSet<>();
+    sorted.forEach((node) -> values.add(node.value));
+    return values;
+  }
+
+  /**
+   * Returns a version of the graph that contains the edge, creating the nodes if necessary.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @param edgeValue   The edge value.
+   * @return The new version or this graph if it already contains the edge.
+   */
+  public PersistentGraph<T, U> withEdge(T origin, T destination, U edgeValue) {
+    long sequence = nextSequence;
+    PersistentNode<T, U> originNode = nodes.get(origin);
+    if (originNode == null) {
+      originNode = new PersistentNode<>(origin, sequence++);
+    }
+
+    Edge<T, U> edge = new BaseEdge<>(origin, destination, edgeValue);
+    if (originNode.outboundView.contains(edge)) {
+      return this;
+    }
+
+    // The origin and destination share the same edge instance
+    PersistentMap<T, PersistentNode<T, U>> newNodes;
+    if (origin.equals(destination)) {
+      newNodes = nodes.put(origin, originNode.withOutbound(edge).withInbound(edge));
+    } else {
+      PersistentNode<T, U> destinationNode = nodes.get(destination);
+      if (destinationNode == null) {
+        destinationNode = new PersistentNode<>(destination, sequence++);
+      }
+
+      newNodes = nodes.put(origin, originNode.withOutbound(edge)).put(destination, destinationNode.withInbound(edge));
+    }
+
+    return new PersistentGraph<>(newNodes, sequence);
+  }
+
+  /**
+   * Returns a version of the graph without the edge. The nodes are not removed.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @param edgeValue   The edge value.
+   * @return The new version or this graph if it doesn't contain the edge.
+   */
+  public PersistentGraph<T, U> withoutEdge(T origin, T destination, U edgeValue) {
+    PersistentNode<T, U> originNode = nodes.get(origin);
+    PersistentNode<T, U> destinationNode = nodes.get(destination);
+    if (originNode == null || destinationNode == null) {
+      return this;
+    }
+
+    Edge<T, U> edge = new BaseEdge<>(origin, destination, edgeValue);
+    PersistentNode<T, U> newOrigin = originNode.without(edge::equals, (e) -> false);
+    if (newOrigin == originNode) {
+      return this;
+    }
+
+    if (origin.equals(destination)) {
+      return new PersistentGraph<>(nodes.put(origin, newOrigin.without((e) -> false, edge::equals)), nextSequence);
+    }
+
+    PersistentNode<T, U> newDestination = destinationNode.without((e) -> false, edge::equals);
+    return new PersistentGraph<>(nodes.put(origin, newOrigin).put(destination, newDestination), nextSequence);
+  }
+
+  /**
+   * Returns a version of the graph without the node and without every node that is orphaned by removing it, which is
+   * the same as {@link HashGraph#removeNode}.
+   *
+   * @param value The value to remove.
+   * @return The new version or this graph if it doesn't contain the node.
+   */
+  public PersistentGraph<T, U> withoutNode(T value) {
+    PersistentNode<T, U> node = nodes.get(value);
+    if (node == null) {
+      return this;
+    }
+
+    return withoutNodes(Collections.singletonList(node));
+  }
+
+  /**
+   * Removes the given nodes and every node that is orphaned by removing them using the same reference counting pass as
+   * {@link HashGraph#removeNodes}. Only the remaining nodes that had edges to or from the removed nodes are copied.
+   */
+  private PersistentGraph<T, U> withoutNodes(Collection<PersistentNode<T, U>> seeds) {
+    if (seeds.isEmpty()) {
+      return this;
+    }
+
+    Set<T> removed = new HashSet<>();
+    Map<T, int[]> remainingInbound = new HashMap<>();
+    Deque<PersistentNode<T, U>> queue = new ArrayDeque<>();
+    for (PersistentNode<T, U> seed : seeds) {
+      if (removed.add(seed.value)) {
+        queue.add(seed);
+      }
+    }
+
+    while (!queue.isEmpty()) {
+      PersistentNode<T, U> node = queue.poll();
+      for (Edge<T, U> edge : node.outbound) {
+        T destination = edge.getDestination();
+        if (removed.contains(destination)) {
+          continue;
+        }
+
+        PersistentNode<T, U> destinationNode = nodes.get(destination);
+        int[] count = remainingInbound.computeIfAbsent(destination, (key) -> new int[]{destinationNode.inbound.length});
+        if (--count[0] == 0) {
+          removed.add(destination);
+          queue.add(destinationNode);
+        }
+      }
+    }
+
+    // Find the remaining nodes that have edges to or from the removed nodes
+    Set<T> affected = new LinkedHashSet<>();
+    for (T value : removed) {
+      PersistentNode<T, U> node = nodes.get(value);
+      Arrays.stream(node.outbound).map(Edge::getDestination).filter((other) -> !removed.contains(other)).forEach(affected::add);
+      Arrays.stream(node.inbound).map(Edge::getOrigin).filter((other) -> !removed.contains(other)).forEach(affected::add);
+    }
+
+    PersistentMap<T, PersistentNode<T, U>> newNodes = nodes;
+    for (T value : removed) {
+      newNodes = newNodes.remove(value);
+    }
+    for (T value : affected) {
+      PersistentNode<T, U> node = nodes.get(value);
+      newNodes = newNodes.put(value, node.without((edge) -> removed.contains(edge.getDestination()), (edge) -> removed.contains(edge.getOrigin())));
+    }
+
+    return new PersistentGraph<>(newNodes, nextSequence);
+  }
+
+  /**
+   * A single immutable node of the graph. The sequence is the order the node was added to the graph.
+   */
+  private static final class PersistentNode<T, U> {
+    @SuppressWarnings("unchecked")
+    private static final Edge[] NO_EDGES = new Edge[0];
+
+    public final Edge<T, U>[] inbound;
+
+    public final List<Edge<T, U>> inboundView;
+
+    public final Edge<T, U>[] outbound;
+
+    public final List<Edge<T, U>> outboundView;
+
+    public final long sequence;
+
+    public final T value;
+
+    @SuppressWarnings("unchecked")
+    public PersistentNode(T value, long sequence) {
+      this(value, sequence, NO_EDGES, NO_EDGES);
+    }
+
+    public PersistentNode(T value, long sequence, Edge<T, U>[] inbound, Edge<T, U>[] outbound) {
+      this.value = value;
+      this.sequence = sequence;
+      this.inbound = inbound;
+      this.outbound = outbound;
+      this.inboundView = Collections.unmodifiableList(Arrays.asList(inbound));
+      this.outboundView = Collections.unmodifiableList(Arrays.asList(outbound));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, U> Edge<T, U>[] filter(Edge<T, U>[] edges, Predicate<Edge<T, U>> remove) {
+      List<Edge<T, U>> kept = new ArrayList<>(edges.length);
+      for (Edge<T, U> edge : edges) {
+        if (!remove.test(edge)) {
+          kept.add(edge);
+        }
+      }
+
+      return kept.size() == edges.length ? edges : kept.toArray(new Edge[0]);
+    }
+
+    public PersistentNode<T, U> withInbound(Edge<T, U> edge) {
+      Edge<T, U>[] newInbound = Arrays.copyOf(inbound, inbound.length + 1);
+      newInbound[inbound.length] = edge;
+      return new PersistentNode<>(value, sequence, newInbound, outbound);
+    }
+
+    public PersistentNode<T, U> withOutbound(Edge<T, U> edge) {
+      Edge<T, U>[] newOutbound = Arrays.copyOf(outbound, outbound.length + 1);
+      newOutbound[outbound.length] = edge;
+      return new PersistentNode<>(value, sequence, inbound, newOutbound);
+    }
+
+    public PersistentNode<T, U> without(Predicate<Edge<T, U>> removeOutbound, Predicate<Edge<T, U>> removeInbound) {
+      Edge<T, U>[] newOutbound = filter(outbound, removeOutbound);
+      Edge<T, U>[] newInbound = filter(inbound, removeInbound);
+      if (newOutbound == outbound && newInbound == inbound) {
+        return this;
+      }
+
+      return new PersistentNode<>(value, sequence, newInbound, newOutbound);
+    }
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map that is stored as a hash array mapped trie (HAMT). Each level of the trie uses 5 bits of the
+ * hash of the key and stores only the entries that exist along with a bitmap of which ones those are. Adding or
+ * removing an entry copies the path from the root to the entry (at most 7 small arrays) and shares everything else with
+ * the original map, so many versions of a large map can be kept in memory at once.
+ * <p>
+ * Keys must have a good equals and hashCode implementation and keys and values can't be null.
+ *
+ * @author Brian Pontarelli
+ */
+final class PersistentMap<K, V> {
+  private static final BitmapNode EMPTY_NODE = new BitmapNode(0, new Object[0]);
+
+  private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(EMPTY_NODE, 0);
+
+  private final Node root;
+
+  private final int size;
+
+  private PersistentMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Calls the consumer for each entry in the map. The entries are in hash order.
+   *
+   * @param consumer The consumer.
+   */
+  @SuppressWarnings("unchecked")
+  void forEach(BiConsumer<? super K, ? super V> consumer) {
+    root.forEach((BiConsumer<Object, Object>) consumer);
+  }
+
+  /**
+   * @param key The key.
+   * @return The value for the key or null if the map doesn't contain the key.
+   */
+  @SuppressWarnings("unchecked")
+  V get(Object key) {
+    if (key == null) {
+      return null;
+    }
+
+    return (V) root.find(hash(key), 0, key);
+  }
+
+  /**
+   * Returns a map that contains the entry. The map is returned as is if it already contains the same value (by
+   * identity) for the key.
+   *
+   * @param key   The key.
+   * @param value The value.
+   * @return The new map.
+   */
+  PersistentMap<K, V> put(K key, V value) {
+    boolean[] added = new boolean[1];
+    Node newRoot = root.put(hash(key), 0, key, value, added);
+    if (newRoot == root) {
+      return this;
+    }
+
+    return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+  }
+
+  /**
+   * Returns a map that doesn't contain the key. The map is returned as is if it doesn't contain the key.
+   *
+   * @param key The key.
+   * @return The new map.
+   */
+  PersistentMap<K, V> remove(Object key) {
+    Node newRoot = root.remove(hash(key), 0, key);
+    if (newRoot == root) {
+      return this;
+    }
+
+    return new PersistentMap<>(newRoot != null ? newRoot : EMPTY_NODE, size - 1);
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * A node of the trie. The methods that modify the node return the node itself if nothing changed and remove returns
+   * null if the node is empty after the removal.
+   */
+  private interface Node {
+    Object find(int hash, int shift, Object key);
+
+    void forEach(BiConsumer<Object, Object> consumer);
+
+    Node put(int hash, int shift, Object key, Object value, boolean[] added);
+
+    Node remove(int hash, int shift, Object key);
+  }
+
+  /**
+   * A node that stores the entries whose hashes share the same prefix. The array contains a key and value pair for each
+   * bit that is set in the bitmap. If the key is null, the value is the child node for the bit.
+   */
+  private static final class BitmapNode implements Node {
+    private final Object[] array;
+
+    private final int bitmap;
+
+    private BitmapNode(int bitmap, Object[] array) {
+      this.bitmap = bitmap;
+      this.array = array;
+    }
+
+    private static Node create(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+      int hash1 = hash(key1);
+      if (hash1 == hash2) {
+        return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+      }
+
+      boolean[] added = new boolean[1];
+      return EMPTY_NODE.put(hash1, shift, key1, value1, added).put(hash2, shift, key2, value2, added);
+    }
+
+    @Override
+    public Object find(int hash, int shift, Object key) {
+      int bit = 1 << ((hash >>> shift) & 31);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+
+      int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+      Object existingKey = array[index];
+      if (existingKey == null) {
+        return ((Node) array[index + 1]).find(hash, shift + 5, key);
+      }
+
+      return key.equals(existingKey) ? array[index + 1] : null;
+    }
+
+    @Override
+    public void forEach(BiConsumer<Object, Object> consumer) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (array[i] == null) {
+          ((Node) array[i + 1]).forEach(consumer);
+        } else {
+          consumer.accept(array[i], array[i + 1]);
+        }
+      }
+    }
+
+    @Override
+    public Node put(int hash, int shift, Object key, Object value, boolean[] added) {
+      int bit = 1 << ((hash >>> shift) & 31);
+      int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+      if ((bitmap & bit) == 0) {
+        Object[] newArray = new Object[array.length + 2];
+        System.arraycopy(array, 0, newArray, 0, index);
+        newArray[index] = key;
+        newArray[index + 1] = value;
+        System.arraycopy(array, index, newArray, index + 2, array.length - index);
+        added[0] = true;
+        return new BitmapNode(bitmap | bit, newArray);
+      }
+
+      Object existingKey = array[index];
+      Object existingValue = array[index + 1];
+      if (existingKey == null) {
+        Node child = ((Node) existingValue).put(hash, shift + 5, key, value, added);
+        return child == existingValue ? this : with(index, null, child);
+      }
+
+      if (key.equals(existingKey)) {
+        return existingValue == value ? this : with(index, existingKey, value);
+      }
+
+      added[0] = true;
+      return with(index, null, create(shift + 5, existingKey, existingValue, hash, key, value));
+    }
+
+    @Override
+    public Node remove(int hash, int shift, Object key) {
+      int bit = 1 << ((hash >>> shift) & 31);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+
+      int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+      Object existingKey = array[index];
+      if (existingKey == null) {
+        Node child = (Node) array[index + 1];
+        Node newChild = child.remove(hash, shift + 5, key);
+        if (newChild == child) {
+          return this;
+        }
+        if (newChild == null) {
+          return without(index, bit);
+        }
+
+        // Pull a child with a single entry up into this node so the trie stays as shallow as possible
+        Object[] single = singleEntry(newChild);
+        if (single != null) {
+          return with(index, single[0], single[1]);
+        }
+
+        return with(index, null, newChild);
+      }
+
+      if (!key.equals(existingKey)) {
+        return this;
+      }
+
+      return without(index, bit);
+    }
+
+    private Object[] singleEntry(Node node) {
+      if (node instanceof BitmapNode) {
+        BitmapNode bitmapNode = (BitmapNode) node;
+        return bitmapNode.array.length == 2 && bitmapNode.array[0] != null ? bitmapNode.array : null;
+      }
+
+      CollisionNode collisionNode = (CollisionNode) node;
+      return collisionNode.array.length == 2 ? collisionNode.array : null;
+    }
+
+    private BitmapNode with(int index, Object key, Object value) {
+      Object[] newArray = array.clone();
+      newArray[index] = key;
+      newArray[index + 1] = value;
+      return new BitmapNode(bitmap, newArray);
+    }
+
+    private BitmapNode without(int index, int bit) {
+      if (bitmap == bit) {
+        return null;
+      }
+
+      Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, index);
+      System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+      return new BitmapNode(bitmap & ~bit, newArray);
+    }
+  }
+
+  /**
+   * A node that stores the entries whose keys have the exact same hash as key and value pairs.
+   */
+  private static final class CollisionNode implements Node {
+    private final Object[] array;
+
+    private final int hash;
+
+    private CollisionNode(int hash, Object[] array) {
+      this.hash = hash;
+      this.array = array;
+    }
+
+    @Override
+    public Object find(int hash, int shift, Object key) {
+      int index = indexOf(key);
+      return index >= 0 ? array[index + 1] : null;
+    }
+
+    @Override
+    public void forEach(BiConsumer<Object, Object> consumer) {
+      for (int i = 0; i < array.length; i += 2) {
+        consumer.accept(array[i], array[i + 1]);
+      }
+    }
+
+    @Override
+    public Node put(int hash, int shift, Object key, Object value, boolean[] added) {
+      if (hash != this.hash) {
+        // Nest this node in a BitmapNode and add the new entry to that
+        BitmapNode parent = new BitmapNode(1 << ((this.hash >>> shift) & 31), new Object[]{null, this});
+        return parent.put(hash, shift, key, value, added);
+      }
+
+      int index = indexOf(key);
+      if (index >= 0) {
+        if (array[index + 1] == value) {
+          return this;
+        }
+
+        Object[] newArray = array.clone();
+        newArray[index + 1] = value;
+        return new CollisionNode(hash, newArray);
+      }
+
+      Object[] newArray = new Object[array.length + 2];
+      System.arraycopy(array, 0, newArray, 0, array.length);
+      newArray[array.length] = key;
+      newArray[array.length + 1] = value;
+      added[0] = true;
+      return new CollisionNode(hash, newArray);
+    }
+
+    @Override
+    public Node remove(int hash, int shift, Object key) {
+      int index = indexOf(key);
+      if (index < 0) {
+        return this;
+      }
+      if (array.length == 2) {
+        return null;
+      }
+
+      Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, index);
+      System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+      return new CollisionNode(hash, newArray);
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (key.equals(array[i])) {
+          return i;
+        }
+      }
+
+      return -1;
+    }
+  }
+}
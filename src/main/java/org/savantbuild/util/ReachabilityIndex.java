@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * <p>
+ * An index that answers reachability questions about a graph (does A transitively depend on B?) without traversing the
+ * graph. A node reaches another node if there is a path of one or more edges from the first node to the second. A node
+ * only reaches itself if it is part of a cycle.
+ * </p>
+ * <h3>Internals</h3>
+ * <p>
+ * The strongly connected components of the graph are collapsed into single nodes, which makes the graph acyclic. The
+ * components are then numbered using a post-order traversal of a spanning forest of the acyclic graph. Every component
+ * is labeled with the set of post-order intervals that it reaches. The spanning tree below a component is a single
+ * interval and each edge that isn't part of the spanning tree adds the intervals of its destination (adjacent intervals
+ * are merged). Checking if A reaches B is a binary search of the intervals of A's component for the post-order number
+ * of B's component. For the tree shaped graphs that are common for dependencies, most components have a single
+ * interval.
+ * </p>
+ * <h3>Graph modification</h3>
+ * <p>
+ * The index is a snapshot of the graph when it was created and it is not updated when the graph is modified. Use
+ * {@link Graph#reachabilityIndex()} to get an index for the current state of the graph. Graphs like the
+ * {@link HashGraph} cache the index and discard it when they are modified.
+ * </p>
+ *
+ * @author Brian Pontarelli
+ */
+public class ReachabilityIndex<T> {
+  private final int[] components;
+
+  private final int[] componentsByPost;
+
+  private final boolean[] cyclic;
+
+  private final int[][] labels;
+
+  private final int[] memberOffsets;
+
+  private final int[] members;
+
+  private final ValueTable<T> nodes;
+
+  private final int[] posts;
+
+  public ReachabilityIndex(Graph<T, ?> graph) {
+    CompactGraph<T, ?> compact = GraphTools.compact(graph);
+    int nodeCount = compact.size();
+    int[] offsets = compact.outboundOffsets;
+    int[] targets = compact.outboundDestinations;
+    this.nodes = compact.nodes;
+    this.components = GraphTools.stronglyConnectedComponents(nodeCount, offsets, targets);
+
+    int componentCount = 0;
+    for (int component : components) {
+      componentCount = Math.max(componentCount, component + 1);
+    }
+
+    // Group the nodes by component
+    this.memberOffsets = new int[componentCount + 1];
+    this.members = new int[nodeCount];
+    for (int component : components) {
+      memberOffsets[component + 1]++;
+    }
+    for (int i = 0; i < componentCount; i++) {
+      memberOffsets[i + 1] += memberOffsets[i];
+    }
+    int[] cursors = Arrays.copyOf(memberOffsets, componentCount);
+    for (int node = 0; node < nodeCount; node++) {
+      members[cursors[components[node]]++] = node;
+    }
+
+    // Build the edges between the components, skipping duplicates and edges inside a component
+    this.cyclic = new boolean[componentCount];
+    int[] componentOffsets = new int[componentCount + 1];
+    int[] componentTargets = new int[targets.length];
+    int[] seen = new int[componentCount];
+    Arrays.fill(seen, -1);
+    int edgeCount = 0;
+    for (int component = 0; component < componentCount; component++) {
+      componentOffsets[component] = edgeCount;
+      cyclic[component] = memberOffsets[component + 1] - memberOffsets[component] > 1;
+      for (int i = memberOffsets[component]; i < memberOffsets[component + 1]; i++) {
+        int node = members[i];
+        for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+          int target = components[targets[edge]];
+          if (target == component) {
+            cyclic[component] = true;
+          } else if (seen[target] != component) {
+            seen[target] = component;
+            componentTargets[edgeCount++] = target;
+          }
+        }
+      }
+    }
+    componentOffsets[componentCount] = edgeCount;
+
+    // Number the components using a post-order traversal of a spanning forest. The roots are visited from the highest
+    // component number down, which is a topological order
+    this.posts = new int[componentCount];
+    this.componentsByPost = new int[componentCount];
+    int[] lows = new int[componentCount];
+    boolean[] visited = new boolean[componentCount];
+    int[] stack = new int[componentCount];
+    int[] stackCursors = new int[componentCount];
+    int post = 0;
+    for (int root = componentCount - 1; root >= 0; root--) {
+      if (visited[root]) {
+        continue;
+      }
+
+      int top = 0;
+      stack[0] = root;
+      stackCursors[0] = componentOffsets[root];
+      visited[root] = true;
+      lows[root] = post;
+      while (top >= 0) {
+        int component = stack[top];
+        if (stackCursors[top] < componentOffsets[component + 1]) {
+          int next = componentTargets[stackCursors[top]++];
+          if (!visited[next]) {
+            visited[next] = true;
+            lows[next] = post;
+            top++;
+            stack[top] = next;
+            stackCursors[top] = componentOffsets[next];
+          }
+          continue;
+        }
+
+        posts[component] = post;
+        componentsByPost[post] = component;
+        post++;
+        top--;
+      }
+    }
+
+    // Label the components. Tarjan's numbering is a reverse topological order, so the destinations of a component's
+    // edges are always labeled before the component
+    this.labels = new int[componentCount][];
+    for (int component = 0; component < componentCount; component++) {
+      int intervalCount = 1;
+      for (int i = componentOffsets[component]; i < componentOffsets[component + 1]; i++) {
+        intervalCount += labels[componentTargets[i]].length / 2;
+      }
+
+      long[] intervals = new long[intervalCount];
+      int count = 0;
+      intervals[count++] = ((long) lows[component] << 32) | posts[component];
+      for (int i = componentOffsets[component]; i < componentOffsets[component + 1]; i++) {
+        int[] label = labels[componentTargets[i]];
+        for (int j = 0; j < label.length; j += 2) {
+          intervals[count++] = ((long) label[j] << 32) | label[j + 1];
+        }
+      }
+
+      labels[component] = merge(intervals);
+    }
+  }
+
+  /**
+   * Sorts the intervals (encoded as start &lt;&lt; 32 | end) and merges the ones that overlap or are adjacent.
+   *
+   * @return The merged intervals as start, end pairs.
+   */
+  private static int[] merge(long[] intervals) {
+    Arrays.sort(intervals);
+    int[] merged = new int[intervals.length * 2];
+    int count = 0;
+    for (long interval : intervals) {
+      int start = (int) (interval >>> 32);
+      int end = (int) interval;
+      if (count > 0 && start <= merged[count - 1] + 1) {
+        merged[count - 1] = Math.max(merged[count - 1], end);
+      } else {
+        merged[count++] = start;
+        merged[count++] = end;
+      }
+    }
+
+    return Arrays.copyOf(merged, count);
+  }
+
+  /**
+   * Returns all of the nodes that the given node reaches (its transitive dependencies). The node itself is only
+   * included if it is part of a cycle.
+   *
+   * @param value The node value.
+   * @return The nodes or null if the node is not in the graph.
+   */
+  public Set<T> descendants(T value) {
+    int node = nodes.indexOf(value);
+    if (node < 0) {
+      return null;
+    }
+
+    int component = components[node];
+    int[] label = labels[component];
+    Set<T> descendants = new LinkedHashSet<>();
+    for (int i = 0; i < label.length; i += 2) {
+      for (int post = label[i]; post <= label[i + 1]; post++) {
+        int descendant = componentsByPost[post];
+        if (descendant == component && !cyclic[component]) {
+          continue;
+        }
+
+        for (int j = memberOffsets[descendant]; j < memberOffsets[descendant + 1]; j++) {
+          descendants.add(nodes.get(members[j]));
+        }
+      }
+    }
+
+    return descendants;
+  }
+
+  /**
+   * Determines if there is a path of one or more edges from the origin to the destination.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @return True if the origin reaches the destination, false if it doesn't or either node is not in the graph.
+   */
+  public boolean reaches(T origin, T destination) {
+    int originNode = nodes.indexOf(origin);
+    int destinationNode = nodes.indexOf(destination);
+    if (originNode < 0 || destinationNode < 0) {
+      return false;
+    }
+
+    int originComponent = components[originNode];
+    int destinationComponent = components[destinationNode];
+    if (originComponent == destinationComponent) {
+      return cyclic[originComponent];
+    }
+
+    // A component can only reach components that Tarjan's algorithm completed before it
+    if (destinationComponent > originComponent) {
+      return false;
+    }
+
+    int post = posts[destinationComponent];
+    int[] label = labels[originComponent];
+    int low = 0;
+    int high = label.length / 2 - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (label[middle * 2 + 1] < post) {
+        low = middle + 1;
+      } else if (label[middle * 2] > post) {
+        high = middle - 1;
+      } else {
+        return true;
+      }
+    }
+
+    return false;
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * A read-only view of the part of another graph that is reachable from a root node. The view is created by
+ * {@link Graph#reachableView}, which finds the reachable nodes and edges once. Nothing is copied. The view only keeps
+ * the set of reachable nodes and edges and filters the edges of the parent graph when they are requested, so many views
+ * of the same large graph (like the classpath of every module of a build) share the nodes and edges of the parent.
+ * </p>
+ * <h3>Edge filtering</h3>
+ * <p>
+ * The view contains the same edges that {@link Graph#traverse} would traverse from the root using the same EdgeFilter.
+ * All the edges of the root are in the view. Every other edge is in the view if the EdgeFilter accepts it for at least
+ * one of the edges of the view that lead to its origin (the entry points). The inbound edges of a node in the view are
+ * only the edges of the view, so the root has no inbound edges unless it is part of a cycle.
+ * </p>
+ * <h3>Mutation</h3>
+ * <p>
+ * The view cannot be modified. All of the methods that modify the graph throw an UnsupportedOperationException. The
+ * view reflects the parent graph at the time it was created, so the parent should not be modified while the view is
+ * being used. The views that a {@link HashGraph} creates detect this and throw a ConcurrentModificationException.
+ * </p>
+ * <h3>Thread safety</h3>
+ * <p>
+ * The view is as thread safe as its parent graph, because it only reads the parent.
+ * </p>
+ *
+ * @author Brian Pontarelli
+ */
+public final class ReachableGraph<T, U> implements Graph<T, U> {
+  private final Set<Edge<T, U>> edges = new HashSet<>();
+
+  private final int expectedModCount;
+
+  private final IntSupplier modCount;
+
+  private final Set<T> nodes = new LinkedHashSet<>();
+
+  private final Graph<T, U> parent;
+
+  private volatile ReachabilityIndex<T> reachabilityIndex;
+
+  /**
+   * Creates the view and finds the reachable nodes and edges using a breadth first search of the parent graph.
+   *
+   * @param parent     The parent graph.
+   * @param root       The value of the root node.
+   * @param edgeFilter The EdgeFilter that determines which edges are in the view or null to include every reachable
+   *                   edge.
+   * @param modCount   Returns the modification count of the parent graph, which is checked each time the view is used,
+   *                   or null if the parent graph doesn't track modifications.
+   * @throws IllegalArgumentException If the root doesn't exist.
+   */
+  ReachableGraph(Graph<T, U> parent, T root, EdgeFilter<T, U> edgeFilter, IntSupplier modCount) {
+    List<Edge<T, U>> rootEdges = parent.getOutboundEdges(root);
+    if (rootEdges == null) {
+      throw new IllegalArgumentException("Invalid root [" + root + "] to create the view from.");
+    }
+
+    this.parent = parent;
+    this.modCount = modCount;
+    this.expectedModCount = modCount != null ? modCount.getAsInt() : 0;
+
+    // Each edge of the view is an entry point to its destination and is only queued once, so the EdgeFilter is called
+    // at most once for each pair of an edge and one of its entry points
+    nodes.add(root);
+    Deque<Edge<T, U>> queue = new ArrayDeque<>();
+    for (Edge<T, U> edge : rootEdges) {
+      add(edge, queue);
+    }
+
+    while (!queue.isEmpty()) {
+      Edge<T, U> entryPoint = queue.poll();
+      for (Edge<T, U> edge : parent.getOutboundEdges(entryPoint.getDestination())) {
+        if (!edges.contains(edge) && (edgeFilter == null || edgeFilter.filter(edge, entryPoint))) {
+          add(edge, queue);
+        }
+      }
+    }
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is a read-only view.
+   */
+  @Override
+  public void addEdge(T origin, T destination, U edgeValue) {
+    throw new UnsupportedOperationException("A ReachableGraph cannot be modified");
+  }
+
+  @Override
+  public boolean contains(T value) {
+    checkModCount();
+    return nodes.contains(value);
+  }
+
+  /**
+   * Finds the first node in the view that satisfies the predicate using {@link GraphTools#find}.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param predicate The predicate used to find the node.
+   * @return The value of the first node that matches the predicate starting at the rootValue node. Null if the
+   * rootValue not doesn't exist or if no nodes match the predicate.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public T find(T rootValue, Predicate<T> predicate) throws CyclicException {
+    return GraphTools.find(this, rootValue, predicate);
+  }
+
+  /**
+   * Returns the inbound edges of the node that are in the view. The edges are the parent graph's edges.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or null if the node is not in the view.
+   */
+  @Override
+  public List<Edge<T, U>> getInboundEdges(T value) {
+    checkModCount();
+    return nodes.contains(value) ? filter(parent.getInboundEdges(value)) : null;
+  }
+
+  /**
+   * Returns the outbound edges of the node that are in the view. The edges are the parent graph's edges.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or null if the node is not in the view.
+   */
+  @Override
+  public List<Edge<T, U>> getOutboundEdges(T value) {
+    checkModCount();
+    return nodes.contains(value) ? filter(parent.getOutboundEdges(value)) : null;
+  }
+
+  /**
+   * Determines all the paths from the origin to the destination in the view using {@link GraphTools#streamPaths}.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @return A list of all the paths between the two nodes or an empty list if there are none or null if either of the
+   * nodes aren't in the view.
+   * @throws CyclicException If there is a cycle between the origin and the destination.
+   */
+  @Override
+  public List<Path<T>> getPaths(T origin, T destination) {
+    if (!contains(origin) || !contains(destination)) {
+      return null;
+    }
+
+    return GraphTools.streamPaths(this, origin, destination).collect(Collectors.toList());
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is a read-only view.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void prune(T... excludes) {
+    throw new UnsupportedOperationException("A ReachableGraph cannot be modified");
+  }
+
+  /**
+   * Returns the reachability index for the view. Since the view cannot change, the index is built once and cached.
+   *
+   * @return The index.
+   */
+  @Override
+  public ReachabilityIndex<T> reachabilityIndex() {
+    checkModCount();
+    ReachabilityIndex<T> index = reachabilityIndex;
+    if (index == null) {
+      index = new ReachabilityIndex<>(this);
+      reachabilityIndex = index;
+    }
+
+    return index;
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is a read-only view.
+   */
+  @Override
+  public void removeEdge(T origin, T destination, U value) {
+    throw new UnsupportedOperationException("A ReachableGraph cannot be modified");
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is a read-only view.
+   */
+  @Override
+  public void removeNode(T value) throws CyclicException {
+    throw new UnsupportedOperationException("A ReachableGraph cannot be modified");
+  }
+
+  @Override
+  public int size() {
+    checkModCount();
+    return nodes.size();
+  }
+
+  /**
+   * Performs a depth first traversal of the view using {@link GraphTools#traverse}.
+   *
+   * @param rootValue      The value of the node to start the traversal from.
+   * @param visitNodesOnce Determines if nodes are visited once if they have multiple links.
+   * @param edgeFilter     The EdgeFilter that is used to control the traversal.
+   * @param consumer       The GraphConsumer that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public void traverse(T rootValue, boolean visitNodesOnce, EdgeFilter<T, U> edgeFilter, GraphConsumer<T, U> consumer) throws CyclicException {
+    GraphTools.traverse(this, rootValue, visitNodesOnce, edgeFilter, consumer);
+  }
+
+  /**
+   * Performs a depth first traversal of the view using {@link GraphTools#traverseUp}.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param visitor   The GraphVisitor that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public void traverseUp(T rootValue, GraphVisitor<T, U> visitor) throws CyclicException {
+    GraphTools.traverseUp(this, rootValue, visitor);
+  }
+
+  /**
+   * Returns a Set that contains all of the values in the view in the order they were reached (breadth first from the
+   * root).
+   *
+   * @return All the values.
+   */
+  @Override
+  public Set<T> values() {
+    checkModCount();
+    return new LinkedHashSet<>(nodes);
+  }
+
+  private void add(Edge<T, U> edge, Deque<Edge<T, U>> queue) {
+    edges.add(edge);
+    nodes.add(edge.getDestination());
+    queue.add(edge);
+  }
+
+  private void checkModCount() {
+    if (modCount != null && modCount.getAsInt() != expectedModCount) {
+      throw new ConcurrentModificationException("The graph was modified after the ReachableGraph was created");
+    }
+  }
+
+  private List<Edge<T, U>> filter(List<Edge<T, U>> parentEdges) {
+    List<Edge<T, U>> result = new ArrayList<>(parentEdges.size());
+    for (Edge<T, U> edge : parentEdges) {
+      if (edges.contains(edge)) {
+        result.add(edge);
+      }
+    }
+
+    return Collections.unmodifiableList(result);
+  }
+}
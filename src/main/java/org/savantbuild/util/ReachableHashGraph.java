@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.savantbuild.util.HashGraph.HashEdge;
+import org.savantbuild.util.HashGraph.HashNode;
+
+/**
+ * The {@link ReachableGraph} for a {@link HashGraph}. It contains the same nodes and edges as a ReachableGraph, but it
+ * stores them in BitSets that are indexed by the ordinals that the HashGraph assigns to its nodes and edges. Finding
+ * the view never calls the hashCode or equals methods of the values and the view uses a bit for each node and edge of
+ * the parent graph rather than a hash set entry for each node and edge of the view.
+ *
+ * @author Brian Pontarelli
+ */
+final class ReachableHashGraph<T, U> implements Graph<T, U> {
+  private final BitSet edges = new BitSet();
+
+  private final int expectedModCount;
+
+  private final IntSupplier modCount;
+
+  private final BitSet nodes = new BitSet();
+
+  private final HashGraph<T, U> parent;
+
+  private final List<HashNode<T, U>> reached = new ArrayList<>();
+
+  private volatile ReachabilityIndex<T> reachabilityIndex;
+
+  /**
+   * Creates the view and finds the reachable nodes and edges using a breadth first search of the parent graph.
+   *
+   * @param parent     The parent graph.
+   * @param root       The value of the root node.
+   * @param edgeFilter The EdgeFilter that determines which edges are in the view or null to include every reachable
+   *                   edge.
+   * @param modCount   Returns the modification count of the parent graph, which is checked each time the view is used.
+   * @throws IllegalArgumentException If the root doesn't exist.
+   */
+  ReachableHashGraph(HashGraph<T, U> parent, T root, EdgeFilter<T, U> edgeFilter, IntSupplier modCount) {
+    HashNode<T, U> rootNode = parent.getNode(root);
+    if (rootNode == null) {
+      throw new IllegalArgumentException("Invalid root [" + root + "] to create the view from.");
+    }
+
+    this.parent = parent;
+    this.modCount = modCount;
+    this.expectedModCount = modCount.getAsInt();
+
+    // Each edge of the view is an entry point to its destination and is only queued once, so the EdgeFilter is called
+    // at most once for each pair of an edge and one of its entry points
+    nodes.set(rootNode.ordinal);
+    reached.add(rootNode);
+    Deque<HashEdge<T, U>> queue = new ArrayDeque<>();
+    for (HashEdge<T, U> edge : rootNode.outbound) {
+      add(edge, queue);
+    }
+
+    while (!queue.isEmpty()) {
+      HashEdge<T, U> entryPoint = queue.poll();
+      for (HashEdge<T, U> edge : entryPoint.destination.outbound) {
+        if (!edges.get(edge.ordinal) && (edgeFilter == null || edgeFilter.filter(edge, entryPoint))) {
+          add(edge, queue);
+        }
+      }
+    }
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is a read-only view.
+   */
+  @Override
+  public void addEdge(T origin, T destination, U edgeValue) {
+    throw new UnsupportedOperationException("A ReachableGraph cannot be modified");
+  }
+
+  @Override
+  public boolean contains(T value) {
+    return getNode(value) != null;
+  }
+
+  /**
+   * Finds the first node in the view that satisfies the predicate using {@link GraphTools#find}.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param predicate The predicate used to find the node.
+   * @return The value of the first node that matches the predicate starting at the rootValue node. Null if the
+   * rootValue not doesn't exist or if no nodes match the predicate.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public T find(T rootValue, Predicate<T> predicate) throws CyclicException {
+    return GraphTools.find(this, rootValue, predicate);
+  }
+
+  /**
+   * Returns the inbound edges of the node that are in the view. The edges are the parent graph's edges.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or null if the node is not in the view.
+   */
+  @Override
+  public List<Edge<T, U>> getInboundEdges(T value) {
+    HashNode<T, U> node = getNode(value);
+    return node != null ? filter(node.inbound) : null;
+  }
+
+  /**
+   * Returns the outbound edges of the node that are in the view. The edges are the parent graph's edges.
+   *
+   * @param value The value to find the edges for.
+   * @return The edges or null if the node is not in the view.
+   */
+  @Override
+  public List<Edge<T, U>> getOutboundEdges(T value) {
+    HashNode<T, U> node = getNode(value);
+    return node != null ? filter(node.outbound) : null;
+  }
+
+  /**
+   * Determines all the paths from the origin to the destination in the view using {@link GraphTools#streamPaths}.
+   *
+   * @param origin      The origin value.
+   * @param destination The destination value.
+   * @return A list of all the paths between the two nodes or an empty list if there are none or null if either of the
+   * nodes aren't in the view.
+   * @throws CyclicException If there is a cycle between the origin and the destination.
+   */
+  @Override
+  public List<Path<T>> getPaths(T origin, T destination) {
+    if (!contains(origin) || !contains(destination)) {
+      return null;
+    }
+
+    return GraphTools.streamPaths(this, origin, destination).collect(Collectors.toList());
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is a read-only view.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void prune(T... excludes) {
+    throw new UnsupportedOperationException("A ReachableGraph cannot be modified");
+  }
+
+  /**
+   * Returns the reachability index for the view. Since the view cannot change, the index is built once and cached.
+   *
+   * @return The index.
+   */
+  @Override
+  public ReachabilityIndex<T> reachabilityIndex() {
+    checkModCount();
+    ReachabilityIndex<T> index = reachabilityIndex;
+    if (index == null) {
+      index = new ReachabilityIndex<>(this);
+      reachabilityIndex = index;
+    }
+
+    return index;
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is a read-only view.
+   */
+  @Override
+  public void removeEdge(T origin, T destination, U value) {
+    throw new UnsupportedOperationException("A ReachableGraph cannot be modified");
+  }
+
+  /**
+   * Always throws an UnsupportedOperationException because this graph is a read-only view.
+   */
+  @Override
+  public void removeNode(T value) throws CyclicException {
+    throw new UnsupportedOperationException("A ReachableGraph cannot be modified");
+  }
+
+  @Override
+  public int size() {
+    checkModCount();
+    return reached.size();
+  }
+
+  /**
+   * Performs a depth first traversal of the view using {@link GraphTools#traverse}.
+   *
+   * @param rootValue      The value of the node to start the traversal from.
+   * @param visitNodesOnce Determines if nodes are visited once if they have multiple links.
+   * @param edgeFilter     The EdgeFilter that is used to control the traversal.
+   * @param consumer       The GraphConsumer that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public void traverse(T rootValue, boolean visitNodesOnce, EdgeFilter<T, U> edgeFilter, GraphConsumer<T, U> consumer) throws CyclicException {
+    GraphTools.traverse(this, rootValue, visitNodesOnce, edgeFilter, consumer);
+  }
+
+  /**
+   * Performs a depth first traversal of the view using {@link GraphTools#traverseUp}.
+   *
+   * @param rootValue The value of the node to start the traversal from.
+   * @param visitor   The GraphVisitor that is called for each edge.
+   * @throws CyclicException If there is a cycle in the graph.
+   */
+  @Override
+  public void traverseUp(T rootValue, GraphVisitor<T, U> visitor) throws CyclicException {
+    GraphTools.traverseUp(this, rootValue, visitor);
+  }
+
+  /**
+   * Returns a Set that contains all of the values in the view in the order they were reached (breadth first from the
+   * root).
+   *
+   * @return All the values.
+   */
+  @Override
+  public Set<T> values() {
+    checkModCount();
+    Set<T> values = new LinkedHashSet<>();
+    for (HashNode<T, U> node : reached) {
+      values.add(node.value);
+    }
+
+    return values;
+  }
+
+  private void add(HashEdge<T, U> edge, Deque<HashEdge<T, U>> queue) {
+    edges.set(edge.ordinal);
+    if (!nodes.get(edge.destination.ordinal)) {
+      nodes.set(edge.destination.ordinal);
+      reached.add(edge.destination);
+    }
+    queue.add(edge);
+  }
+
+  private void checkModCount() {
+    if (modCount.getAsInt() != expectedModCount) {
+      throw new ConcurrentModificationException("The graph was modified after the ReachableGraph was created");
+    }
+  }
+
+  private List<Edge<T, U>> filter(List<HashEdge<T, U>> parentEdges) {
+    List<Edge<T, U>> result = new ArrayList<>(parentEdges.size());
+    for (HashEdge<T, U> edge : parentEdges) {
+      if (edges.get(edge.ordinal)) {
+        result.add(edge);
+      }
+    }
+
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * @return The node of the parent graph if it is in the view or null if it isn't.
+   */
+  private HashNode<T, U> getNode(T value) {
+    checkModCount();
+    HashNode<T, U> node = parent.getNode(value);
+    return node != null && nodes.get(node.ordinal) ? node : null;
+  }
+}
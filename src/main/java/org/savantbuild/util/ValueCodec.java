@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Converts node and edge values to and from bytes so that a graph can be written out using the
+ * {@link GraphSerializer}. Two values that are equal must be encoded to the same bytes and two node values that are not
+ * equal must be encoded to different bytes.
+ *
+ * @author Brian Pontarelli
+ */
+public interface ValueCodec<T> {
+  /**
+   * Encodes Strings as UTF-8.
+   */
+  ValueCodec<String> STRING = of(Function.identity(), Function.identity());
+
+  /**
+   * Creates a ValueCodec for values that can be converted to and from Strings (for example an artifact and its
+   * <code>group:name:version</code> form). The Strings are encoded as UTF-8.
+   *
+   * @param toString   Converts a value to a String.
+   * @param fromString Converts a String back to a value.
+   * @param <T>        The value type.
+   * @return The ValueCodec.
+   */
+  static <T> ValueCodec<T> of(Function<? super T, String> toString, Function<String, ? extends T> fromString) {
+    return new ValueCodec<>() {
+      @Override
+      public T decode(byte[] bytes) {
+        return fromString.apply(new String(bytes, StandardCharsets.UTF_8));
+      }
+
+      @Override
+      public byte[] encode(T value) {
+        return toString.apply(value).getBytes(StandardCharsets.UTF_8);
+      }
+    };
+  }
+
+  /**
+   * Decodes a value.
+   *
+   * @param bytes The bytes that {@link #encode} returned for the value.
+   * @return The value.
+   */
+  T decode(byte[] bytes);
+
+  /**
+   * Encodes a value.
+   *
+   * @param value The value.
+   * @return The bytes.
+   */
+  byte[] encode(T value);
+}
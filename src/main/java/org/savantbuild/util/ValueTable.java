@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.Arrays;
+
+/**
+ * Interns values to dense int ids (0, 1, 2, ...) in the order they are added. The lookup table is an open addressing
+ * hash table of ids, so looking up a value does not box anything. Values must have a good equals and hashCode
+ * implementation, just like the values of a {@link HashGraph}.
+ *
+ * @author Brian Pontarelli
+ */
+final class ValueTable<T> {
+  private int[] hashes;
+
+  private int mask;
+
+  private int size;
+
+  private int[] slots;
+
+  private Object[] values;
+
+  ValueTable(int expectedSize) {
+    int capacity = tableCapacity(expectedSize);
+    this.slots = new int[capacity];
+    this.mask = capacity - 1;
+    this.values = new Object[Math.max(expectedSize, 4)];
+    this.hashes = new int[values.length];
+  }
+
+  private static int spread(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static int tableCapacity(int expectedSize) {
+    int capacity = 8;
+    while (capacity < expectedSize * 2) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  /**
+   * Adds the value to the table if it isn't already in it.
+   *
+   * @param value The value.
+   * @return The id of the value.
+   */
+  int add(T value) {
+    int hash = spread(value.hashCode());
+    int slot = hash & mask;
+    while (slots[slot] != 0) {
+      int id = slots[slot] - 1;
+      if (hashes[id] == hash && values[id].equals(value)) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+      hashes = Arrays.copyOf(hashes, size * 2);
+    }
+
+    int id = size++;
+    values[id] = value;
+    hashes[id] = hash;
+    slots[slot] = id + 1;
+
+    if (size * 2 > slots.length) {
+      rehash();
+    }
+
+    return id;
+  }
+
+  /**
+   * @return A copy of the values in id order.
+   */
+  Object[] copyValues() {
+    return Arrays.copyOf(values, size);
+  }
+
+  @SuppressWarnings("unchecked")
+  T get(int id) {
+    return (T) values[id];
+  }
+
+  /**
+   * Looks up the id of the given value.
+   *
+   * @param value The value.
+   * @return The id or -1 if the value is not in the table.
+   */
+  int indexOf(Object value) {
+    if (value == null) {
+      return -1;
+    }
+
+    int hash = spread(value.hashCode());
+    int slot = hash & mask;
+    while (slots[slot] != 0) {
+      int id = slots[slot] - 1;
+      if (hashes[id] == hash && values[id].equals(value)) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    return -1;
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void rehash() {
+    int[] newSlots = new int[slots.length * 2];
+    int newMask = newSlots.length - 1;
+    for (int id = 0; id < size; id++) {
+      int slot = hashes[id] & newMask;
+      while (newSlots[slot] != 0) {
+        slot = (slot + 1) & newMask;
+      }
+      newSlots[slot] = id + 1;
+    }
+
+    slots = newSlots;
+    mask = newMask;
+  }
+}
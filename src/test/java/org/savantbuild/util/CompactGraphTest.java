@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.savantbuild.BaseUnitTest;
+import org.savantbuild.util.Graph.BasePath;
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+import org.savantbuild.util.Graph.Path;
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the compact graph.
+ *
+ * @author Brian Pontarelli
+ */
+public class CompactGraphTest extends BaseUnitTest {
+  public CompactGraph<String, String> graph;
+
+  /**
+   * Graph:
+   * <p>
+   * <pre>
+   *   one --(one-two)--> two --(two-three)--> three --(three-five)--> five
+   *    |                  |                    /\
+   *    |              (two-four)               |
+   *    |                  |                    |
+   *    |                  \/                   |
+   *    |                four                   |
+   *    |                                       |
+   *    |                                       |
+   *    |--------------(one-three)--------------|
+   * </pre>
+   */
+  public CompactGraphTest() {
+    HashGraph<String, String> hashGraph = new HashGraph<>();
+    hashGraph.addEdge("one", "two", "one-two");
+    hashGraph.addEdge("two", "three", "two-three");
+    hashGraph.addEdge("one", "three", "one-three");
+    hashGraph.addEdge("two", "four", "two-four");
+    hashGraph.addEdge("three", "five", "three-five");
+    graph = CompactGraph.copyOf(hashGraph);
+  }
+
+  @Test
+  public void builder() {
+    CompactGraph<String, String> graph = CompactGraph.<String, String>builder()
+        .addEdge("one", "two", "edge")
+        .addEdge("one", "two", "edge")
+        .addEdge("one", "two", "other")
+        .addEdge("two", "three", "edge")
+        .addNode("four")
+        .build();
+
+    assertEquals(graph.size(), 4);
+    assertEquals(graph.values(), new HashSet<>(asList("one", "two", "three", "four")));
+    assertEquals(graph.getOutboundEdges("one"), asList(new BaseEdge<>("one", "two", "edge"), new BaseEdge<>("one", "two", "other")));
+    assertEquals(graph.getInboundEdges("three"), asList(new BaseEdge<>("two", "three", "edge")));
+    assertEquals(graph.getOutboundEdges("four"), asList());
+    assertEquals(graph.getInboundEdges("four"), asList());
+  }
+
+  @Test
+  public void contains() {
+    assertTrue(graph.contains("one"));
+    assertTrue(graph.contains("two"));
+    assertTrue(graph.contains("three"));
+    assertTrue(graph.contains("four"));
+    assertTrue(graph.contains("five"));
+    assertFalse(graph.contains("six"));
+  }
+
+  @Test
+  public void find() {
+    assertEquals(graph.find("one", (node) -> node.equals("one")), "one");
+    assertEquals(graph.find("one", (node) -> node.equals("four")), "four");
+    assertEquals(graph.find("one", (node) -> node.equals("five")), "five");
+    assertNull(graph.find("one", (node) -> node.equals("six")));
+    assertNull(graph.find("two", (node) -> node.equals("one")));
+    assertNull(graph.find("six", (node) -> true));
+  }
+
+  @Test(expectedExceptions = CyclicException.class)
+  public void findCycle() {
+    CompactGraph<String, String> graph = CompactGraph.<String, String>builder()
+        .addEdge("one", "two", "edge")
+        .addEdge("two", "three", "edge")
+        .addEdge("three", "one", "edge")
+        .build();
+    graph.find("one", (node) -> false);
+  }
+
+  @Test
+  public void freeze() throws Exception {
+    HashGraph<Integer, String> hashGraph = new HashGraph<>();
+    for (int i = 0; i < 1_000; i++) {
+      hashGraph.addEdge(i, i + 1, "edge");
+      hashGraph.addEdge(i, i + 2, "edge");
+    }
+
+    CompactGraph<Integer, String> frozen = hashGraph.freeze();
+    hashGraph.addEdge(2_000, 0, "edge");
+    hashGraph.removeNode(500);
+    assertFalse(frozen.contains(2_000));
+    assertEquals(frozen.size(), 1_002);
+    assertEquals(new ArrayList<>(frozen.values()).subList(0, 4), asList(0, 1, 2, 3));
+    assertEquals(frozen.getOutboundEdges(499), asList(new BaseEdge<>(499, 500, "edge"), new BaseEdge<>(499, 501, "edge")));
+    assertEquals(frozen.getInboundEdges(500), asList(new BaseEdge<>(498, 500, "edge"), new BaseEdge<>(499, 500, "edge")));
+
+    // The inbound edges are in the order they were added, not the order of their origins
+    HashGraph<String, String> ordered = new HashGraph<>();
+    ordered.addEdge("a", "b", "a-b");
+    ordered.addEdge("b", "c", "b-c");
+    ordered.addEdge("a", "c", "a-c");
+    assertEquals(ordered.freeze().getInboundEdges("c"), ordered.getInboundEdges("c"));
+    assertEquals(ordered.freeze().getInboundEdges("c"), asList(new BaseEdge<>("b", "c", "b-c"), new BaseEdge<>("a", "c", "a-c")));
+
+    // Traverse the frozen graph from many threads at once
+    List<Thread> threads = new ArrayList<>();
+    List<Integer> counts = Collections.synchronizedList(new ArrayList<>());
+    for (int i = 0; i < 8; i++) {
+      Thread thread = new Thread(() -> {
+        int[] count = new int[1];
+        frozen.traverse(0, true, null, (origin, destination, value, depth, isLast) -> {
+          count[0]++;
+          return true;
+        });
+        counts.add(count[0]);
+      });
+      threads.add(thread);
+      thread.start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(counts, Collections.nCopies(8, 1_001));
+  }
+
+  @Test
+  public void getEdges() {
+    assertEquals(graph.getOutboundEdges("one"), asList(new BaseEdge<>("one", "two", "one-two"), new BaseEdge<>("one", "three", "one-three")));
+    assertEquals(graph.getOutboundEdges("two"), asList(new BaseEdge<>("two", "three", "two-three"), new BaseEdge<>("two", "four", "two-four")));
+    assertEquals(graph.getOutboundEdges("five"), asList());
+    assertNull(graph.getOutboundEdges("six"));
+
+    assertEquals(graph.getInboundEdges("one"), asList());
+    assertEquals(graph.getInboundEdges("three"), asList(new BaseEdge<>("two", "three", "two-three"), new BaseEdge<>("one", "three", "one-three")));
+    assertEquals(graph.getInboundEdges("five"), asList(new BaseEdge<>("three", "five", "three-five")));
+    assertNull(graph.getInboundEdges("six"));
+  }
+
+  @Test
+  public void getPaths() {
+    List<Path<String>> paths = graph.getPaths("one", "five");
+    assertEquals(paths.size(), 2);
+    assertEquals(paths.get(0), new BasePath<>(asList("one", "two", "three", "five")));
+    assertEquals(paths.get(1), new BasePath<>(asList("one", "three", "five")));
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void immutable() {
+    graph.addEdge("five", "six", "five-six");
+  }
+
+  @Test
+  public void traverse() {
+    List<String> visits = new ArrayList<>();
+    graph.traverse("one", false, null, (origin, destination, edge, depth, isLast) -> {
+      visits.add(origin + "->" + destination + ":" + depth + ":" + isLast);
+      return true;
+    });
+
+    assertEquals(visits, asList("one->two:1:false", "two->three:2:false", "three->five:3:true", "two->four:2:true",
+        "one->three:1:true", "three->five:2:true"));
+  }
+
+  @Test
+  public void traverseFilter() {
+    List<String> visits = new ArrayList<>();
+    graph.traverse("one", false, (edge, entryPoint) -> !edge.getValue().equals("two-three") && entryPoint.getValue().startsWith("one"),
+        (origin, destination, edge, depth, isLast) -> {
+          visits.add(origin + "->" + destination + ":" + depth + ":" + isLast);
+          return true;
+        });
+
+    assertEquals(visits, asList("one->two:1:false", "two->four:2:true", "one->three:1:true", "three->five:2:true"));
+  }
+
+  @Test
+  public void traverseOnce() {
+    List<String> destinations = new ArrayList<>();
+    graph.traverse("one", true, null, (origin, destination, edge, depth, isLast) -> destinations.add(destination));
+    assertEquals(destinations, asList("two", "three", "five", "four"));
+  }
+
+  @Test
+  public void traverseUp() {
+    List<String> origins = new ArrayList<>();
+    List<String> destinations = new ArrayList<>();
+    List<Integer> depths = new ArrayList<>();
+    graph.traverseUp("one", (origin, destination, edge, depth) -> {
+      origins.add(origin);
+      destinations.add(destination);
+      depths.add(depth);
+    });
+
+    assertEquals(origins, asList("three", "two", "two", "one", "three", "one"));
+    assertEquals(destinations, asList("five", "three", "four", "two", "five", "three"));
+    assertEquals(depths, asList(3, 2, 2, 1, 2, 1));
+  }
+
+  @Test
+  public void values() {
+    assertEquals(graph.size(), 5);
+    assertEquals(new ArrayList<>(graph.values()), asList("one", "two", "three", "four", "five"));
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.savantbuild.BaseUnitTest;
+import org.savantbuild.util.Graph.Edge;
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the concurrent graph.
+ *
+ * @author Brian Pontarelli
+ */
+public class ConcurrentGraphTest extends BaseUnitTest {
+  @Test
+  public void addEdgeConcurrently() throws Exception {
+    ConcurrentGraph<Integer, String> graph = new ConcurrentGraph<>();
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      // Every thread adds the same edges (so they are duplicates) along with its own edges to a shared node
+      for (int thread = 0; thread < 8; thread++) {
+        int id = thread;
+        futures.add(executorService.submit(() -> {
+          start.await();
+          for (int i = 0; i < 1_000; i++) {
+            graph.addEdge(i, i + 1, "edge");
+            graph.addEdge(10_000 + id * 1_000 + i, -1, "edge");
+          }
+          return null;
+        }));
+      }
+
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    assertEquals(graph.size(), 1_001 + 8_001);
+    assertEquals(graph.getInboundEdges(-1).size(), 8_000);
+    for (int i = 0; i < 1_000; i++) {
+      assertEquals(graph.getOutboundEdges(i), asList(new BaseEdge<>(i, i + 1, "edge")));
+      assertEquals(graph.getInboundEdges(i + 1), asList(new BaseEdge<>(i, i + 1, "edge")));
+    }
+  }
+
+  /**
+   * Edges are added while another thread removes and re-adds edges. Every edge that ends up in the graph must be in
+   * both the outbound edges of its origin and the inbound edges of its destination.
+   */
+  @Test
+  public void addEdgeWhileRemoving() throws Exception {
+    ConcurrentGraph<Integer, String> graph = new ConcurrentGraph<>();
+    ExecutorService executorService = Executors.newFixedThreadPool(5);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int thread = 0; thread < 4; thread++) {
+        int id = thread;
+        futures.add(executorService.submit(() -> {
+          start.await();
+          for (int i = 0; i < 5_000; i++) {
+            graph.addEdge(i % 100, 100 + id * 5_000 + i, "edge");
+          }
+          return null;
+        }));
+      }
+
+      futures.add(executorService.submit(() -> {
+        start.await();
+        for (int i = 0; i < 2_000; i++) {
+          graph.removeEdge(i % 100, 100 + i, "edge");
+          graph.addEdge(i % 100, 100 + i, "edge");
+        }
+        return null;
+      }));
+
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    assertEquals(graph.size(), 100 + 20_000);
+    int edges = 0;
+    for (int origin = 0; origin < 100; origin++) {
+      for (Edge<Integer, String> edge : graph.getOutboundEdges(origin)) {
+        assertEquals(graph.getInboundEdges(edge.getDestination()), asList(edge));
+        edges++;
+      }
+    }
+    assertEquals(edges, 20_000);
+  }
+
+  @Test
+  public void find() {
+    ConcurrentGraph<String, String> graph = graph();
+    assertEquals(graph.find("one", (node) -> node.equals("five")), "five");
+    assertEquals(graph.find("one", (node) -> node.equals("one")), "one");
+    assertNull(graph.find("two", (node) -> node.equals("one")));
+    assertNull(graph.find("six", (node) -> true));
+
+    graph.addEdge("five", "one", "five-one");
+    try {
+      graph.find("one", (node) -> false);
+      fail("Should have thrown");
+    } catch (CyclicException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void getPaths() {
+    ConcurrentGraph<String, String> graph = graph();
+    assertEquals(graph.getPaths("one", "five"), hashGraph().getPaths("one", "five"));
+    assertNull(graph.getPaths("one", "six"));
+  }
+
+  @Test
+  public void removeNode() {
+    ConcurrentGraph<String, String> graph = graph();
+    graph.removeNode("two");
+    assertFalse(graph.contains("two"));
+    assertFalse(graph.contains("four"));
+    assertTrue(graph.contains("three"));
+    assertEquals(graph.getOutboundEdges("one"), asList(new BaseEdge<>("one", "three", "one-three")));
+    assertEquals(graph.getInboundEdges("three"), asList(new BaseEdge<>("one", "three", "one-three")));
+
+    graph.removeEdge("one", "three", "one-three");
+    assertEquals(graph.getOutboundEdges("one"), asList());
+    assertEquals(graph.getInboundEdges("three"), asList());
+
+    graph.prune("one");
+    assertEquals(graph.values(), new LinkedHashSet<>(asList("one")));
+  }
+
+  @Test
+  public void snapshots() {
+    ConcurrentGraph<String, String> graph = graph();
+    List<Edge<String, String>> edges = graph.getOutboundEdges("one");
+    graph.addEdge("one", "six", "one-six");
+    graph.removeEdge("one", "two", "one-two");
+
+    assertEquals(edges, asList(new BaseEdge<>("one", "two", "one-two"), new BaseEdge<>("one", "three", "one-three")));
+    assertEquals(graph.getOutboundEdges("one"), asList(new BaseEdge<>("one", "three", "one-three"), new BaseEdge<>("one", "six", "one-six")));
+    assertEquals(new ArrayList<>(graph.values()), asList("one", "two", "three", "four", "five", "six"));
+
+    try {
+      edges.add(new BaseEdge<>("one", "seven", "one-seven"));
+      fail("Should have thrown");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * The traversals should match the HashGraph traversals exactly.
+   */
+  @Test
+  public void traverse() {
+    for (boolean visitNodesOnce : asList(true, false)) {
+      List<String> expected = new ArrayList<>();
+      hashGraph().traverse("one", visitNodesOnce, (edge, entryPoint) -> !edge.getValue().equals("two-four"), (origin, destination, value, depth, isLast) -> {
+        expected.add(origin + "-" + destination + "-" + depth + "-" + isLast);
+        return true;
+      });
+
+      List<String> actual = new ArrayList<>();
+      graph().traverse("one", visitNodesOnce, (edge, entryPoint) -> !edge.getValue().equals("two-four"), (origin, destination, value, depth, isLast) -> {
+        actual.add(origin + "-" + destination + "-" + depth + "-" + isLast);
+        return true;
+      });
+
+      assertEquals(actual, expected);
+    }
+  }
+
+  @Test
+  public void traverseUp() {
+    List<String> expected = new ArrayList<>();
+    hashGraph().traverseUp("one", (origin, destination, value, depth) -> expected.add(origin + "-" + destination + "-" + depth));
+
+    List<String> actual = new ArrayList<>();
+    graph().traverseUp("one", (origin, destination, value, depth) -> actual.add(origin + "-" + destination + "-" + depth));
+
+    assertEquals(actual, expected);
+  }
+
+  /**
+   * Graph:
+   * <p>
+   * <pre>
+   *   one --(one-two)--> two --(two-three)--> three --(three-five)--> five
+   *    |                  |                    /\
+   *    |              (two-four)               |
+   *    |                  \/                   |
+   *    |                four                   |
+   *    |--------------(one-three)--------------|
+   * </pre>
+   */
+  private ConcurrentGraph<String, String> graph() {
+    ConcurrentGraph<String, String> graph = new ConcurrentGraph<>();
+    graph.addEdge("one", "two", "one-two");
+    graph.addEdge("two", "three", "two-three");
+    graph.addEdge("one", "three", "one-three");
+    graph.addEdge("two", "four", "two-four");
+    graph.addEdge("three", "five", "three-five");
+    return graph;
+  }
+
+  private HashGraph<String, String> hashGraph() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "one-two");
+    graph.addEdge("two", "three", "two-three");
+    graph.addEdge("one", "three", "one-three");
+    graph.addEdge("two", "four", "two-four");
+    graph.addEdge("three", "five", "three-five");
+    return graph;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.savantbuild.BaseUnitTest;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the graph executor.
+ *
+ * @author Brian Pontarelli
+ */
+public class GraphExecutorTest extends BaseUnitTest {
+  public final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+  @AfterClass
+  public void afterClass() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void execute() {
+    HashGraph<Integer, String> graph = new HashGraph<>();
+    for (int i = 0; i < 200; i++) {
+      graph.addEdge(i, i * 2 + 1, "edge");
+      graph.addEdge(i, i * 2 + 2, "edge");
+      graph.addEdge(i, 1_000, "edge");
+    }
+
+    List<Integer> completed = new CopyOnWriteArrayList<>();
+    new GraphExecutor<>(graph, executorService).execute((value) -> {
+      // Every dependency must have completed before the node starts
+      graph.getOutboundEdges(value).forEach((edge) -> assertTrue(completed.contains(edge.getDestination())));
+      completed.add(value);
+    });
+
+    assertEquals(completed.size(), graph.size());
+    assertEquals(completed.get(completed.size() - 1), (Integer) 0);
+  }
+
+  @Test
+  public void executeCycle() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "edge");
+    graph.addEdge("two", "one", "edge");
+
+    Set<String> executed = ConcurrentHashMap.newKeySet();
+    try {
+      new GraphExecutor<>(graph, executorService).execute(executed::add);
+      fail("Should have thrown");
+    } catch (CyclicException e) {
+      assertTrue(executed.isEmpty());
+    }
+  }
+
+  @Test
+  public void executeFailure() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "edge");
+    graph.addEdge("two", "three", "edge");
+    graph.addEdge("one", "four", "edge");
+
+    Set<String> executed = ConcurrentHashMap.newKeySet();
+    try {
+      new GraphExecutor<>(graph, executorService).execute((value) -> {
+        if (value.equals("three")) {
+          throw new IOException("Bad");
+        }
+        executed.add(value);
+      });
+      fail("Should have thrown");
+    } catch (GraphExecutionException e) {
+      assertEquals(e.getMessage(), "The task for the graph node [three] failed");
+      assertTrue(e.getCause() instanceof IOException);
+      assertFalse(executed.contains("two"));
+      assertFalse(executed.contains("one"));
+    }
+  }
+
+  /**
+   * A task that ignores the interrupt keeps running after a sibling fails, and execute must wait for it.
+   */
+  @Test
+  public void executeFailureWaitsForRunningTasks() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "busy", "edge");
+    graph.addEdge("one", "bad", "edge");
+
+    CountDownLatch busy = new CountDownLatch(1);
+    AtomicBoolean finished = new AtomicBoolean();
+    try {
+      new GraphExecutor<>(graph, executorService).execute((value) -> {
+        if (value.equals("busy")) {
+          busy.countDown();
+          long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+          while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+          }
+          finished.set(true);
+        } else if (value.equals("bad")) {
+          busy.await();
+          throw new IOException("Bad");
+        }
+      });
+      fail("Should have thrown");
+    } catch (GraphExecutionException e) {
+      assertTrue(e.getCause() instanceof IOException);
+      assertTrue(finished.get());
+    }
+  }
+}
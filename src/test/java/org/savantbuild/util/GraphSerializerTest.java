@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.savantbuild.BaseUnitTest;
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the graph serializer.
+ *
+ * @author Brian Pontarelli
+ */
+public class GraphSerializerTest extends BaseUnitTest {
+  @Test
+  public void invalid() throws IOException {
+    try {
+      GraphSerializer.read(ByteBuffer.wrap(new byte[64]), ValueCodec.STRING, ValueCodec.STRING);
+      fail("Should have thrown");
+    } catch (GraphFormatException e) {
+      // Expected
+    }
+
+    byte[] bytes = serialize(graph());
+    try {
+      GraphSerializer.map(ByteBuffer.wrap(bytes, 0, bytes.length - 1).slice(), ValueCodec.STRING, ValueCodec.STRING);
+      fail("Should have thrown");
+    } catch (GraphFormatException e) {
+      // Expected
+    }
+
+    try {
+      ValueCodec<String> codec = ValueCodec.of((value) -> value.substring(0, 1), (string) -> string);
+      GraphSerializer.write(graph(), new ByteArrayOutputStream(), codec, ValueCodec.STRING);
+      fail("Should have thrown");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * A truncated or corrupt graph must fail with a GraphFormatException rather than an IndexOutOfBoundsException or a
+   * BufferUnderflowException, whether it is read or mapped and then used.
+   */
+  @Test
+  public void invalidSections() throws IOException {
+    byte[] bytes = serialize(graph());
+    ByteBuffer header = ByteBuffer.wrap(bytes);
+    int tableOffset = header.getInt(24);
+    int adjacencyOffset = header.getInt(32);
+
+    // Truncated, with the length in the header fixed up to match
+    for (int length = GraphSerializer.HEADER_SIZE; length < bytes.length; length++) {
+      byte[] truncated = Arrays.copyOf(bytes, length);
+      ByteBuffer.wrap(truncated).putInt(36, length);
+      assertInvalid(truncated);
+    }
+
+    // Header offsets and counts
+    assertInvalid(corrupt(bytes, 8, Integer.MAX_VALUE));
+    assertInvalid(corrupt(bytes, 16, -1));
+    assertInvalid(corrupt(bytes, 20, 4));
+    assertInvalid(corrupt(bytes, 24, bytes.length));
+    assertInvalid(corrupt(bytes, 28, 3));
+    assertInvalid(corrupt(bytes, 32, bytes.length - 4));
+
+    // A string offset, an adjacency offset and the node table entries (which only the mapped graph uses)
+    assertInvalid(corrupt(bytes, GraphSerializer.HEADER_SIZE + 4, bytes.length));
+    assertInvalid(corrupt(bytes, adjacencyOffset, 0));
+    for (int slot = tableOffset; slot < adjacencyOffset; slot += 4) {
+      if (header.getInt(slot) != 0) {
+        assertMappedInvalid(corrupt(bytes, slot, 1_000));
+      }
+    }
+
+    // The edges themselves (an unterminated varint and a node id that doesn't exist)
+    int edgesOffset = header.getInt(adjacencyOffset);
+    byte[] corrupt = bytes.clone();
+    Arrays.fill(corrupt, edgesOffset, corrupt.length, (byte) 0x81);
+    assertInvalid(corrupt);
+    corrupt = bytes.clone();
+    corrupt[edgesOffset + 1] = 0x7F;
+    assertInvalid(corrupt);
+  }
+
+  @Test
+  public void large() throws IOException {
+    HashGraph<Integer, String> graph = new HashGraph<>();
+    for (int i = 0; i < 20_000; i++) {
+      for (int j = 1; j <= 5; j++) {
+        graph.addEdge(i, i + j * 7, j % 2 == 0 ? "compile" : "runtime");
+      }
+    }
+
+    ValueCodec<Integer> codec = ValueCodec.of(String::valueOf, Integer::valueOf);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    GraphSerializer.write(graph, os, codec, ValueCodec.STRING);
+    CompactGraph<Integer, String> read = GraphSerializer.read(new ByteArrayInputStream(os.toByteArray()), codec, ValueCodec.STRING);
+    assertEquals(new ArrayList<>(read.values()), new ArrayList<>(graph.values()));
+    for (Integer value : graph.values()) {
+      assertEquals(read.getOutboundEdges(value), graph.getOutboundEdges(value));
+    }
+    assertSame(read.getOutboundEdges(0).get(0).getValue(), read.getOutboundEdges(1).get(0).getValue());
+
+    MappedGraph<Integer, String> mapped = GraphSerializer.map(ByteBuffer.wrap(os.toByteArray()), codec, ValueCodec.STRING);
+    assertEquals(mapped.getInboundEdges(20_000), graph.getInboundEdges(20_000));
+    assertFalse(mapped.contains(-1));
+  }
+
+  @Test
+  public void map() throws IOException {
+    Path file = Files.createTempFile("graph-serializer-test", ".graph");
+    try {
+      GraphSerializer.write(graph(), file, ValueCodec.STRING, ValueCodec.STRING);
+      MappedGraph<String, String> graph = GraphSerializer.map(file, ValueCodec.STRING, ValueCodec.STRING);
+      assertEquals(graph.size(), 6);
+      assertTrue(graph.contains("four"));
+      assertFalse(graph.contains("seven"));
+      assertFalse(graph.contains(null));
+      assertNull(graph.getOutboundEdges("seven"));
+      assertEquals(graph.getOutboundEdges("six"), asList());
+      assertEquals(graph.getOutboundEdges("one"), asList(new BaseEdge<>("one", "two", "one-two"), new BaseEdge<>("one", "three", "one-three")));
+      assertEquals(graph.getInboundEdges("three"), asList(new BaseEdge<>("two", "three", "two-three"), new BaseEdge<>("one", "three", "one-three")));
+      assertSame(graph.getOutboundEdges("one").get(0).getDestination(), graph.getInboundEdges("four").get(0).getOrigin());
+      assertEquals(new ArrayList<>(graph.values()), new ArrayList<>(graph().values()));
+      assertEquals(graph.getPaths("one", "five"), graph().getPaths("one", "five"));
+      assertEquals(graph.topologicalSort(), graph().topologicalSort());
+
+      List<String> expected = new ArrayList<>();
+      graph().traverse("one", false, null, (origin, destination, value, depth, isLast) -> expected.add(origin + "-" + destination + "-" + depth + "-" + isLast));
+      List<String> actual = new ArrayList<>();
+      graph.traverse("one", false, null, (origin, destination, value, depth, isLast) -> actual.add(origin + "-" + destination + "-" + depth + "-" + isLast));
+      assertEquals(actual, expected);
+
+      try {
+        graph.addEdge("one", "seven", "one-seven");
+        fail("Should have thrown");
+      } catch (UnsupportedOperationException e) {
+        // Expected
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void read() throws IOException {
+    CompactGraph<String, String> graph = GraphSerializer.read(new ByteArrayInputStream(serialize(graph())), ValueCodec.STRING, ValueCodec.STRING);
+    assertEquals(new ArrayList<>(graph.values()), new ArrayList<>(graph().values()));
+    for (String value : graph().values()) {
+      assertEquals(graph.getOutboundEdges(value), graph().getOutboundEdges(value));
+      assertEquals(graph.getInboundEdges(value), graph().getInboundEdges(value));
+    }
+
+    // The inbound edges of c are in the order they were added rather than grouped by origin
+    HashGraph<String, String> ordered = new HashGraph<>();
+    ordered.addEdge("b", "x", "b-x");
+    ordered.addEdge("a", "c", "a-c");
+    ordered.addEdge("b", "c", "b-c");
+    CompactGraph<String, String> read = GraphSerializer.read(ByteBuffer.wrap(serialize(ordered)), ValueCodec.STRING, ValueCodec.STRING);
+    assertEquals(read.getInboundEdges("c"), asList(new BaseEdge<>("a", "c", "a-c"), new BaseEdge<>("b", "c", "b-c")));
+    assertEquals(read.getInboundEdges("c"), ordered.getInboundEdges("c"));
+
+    CompactGraph<String, String> empty = GraphSerializer.read(ByteBuffer.wrap(serialize(new HashGraph<>())), ValueCodec.STRING, ValueCodec.STRING);
+    assertEquals(empty.size(), 0);
+  }
+
+  /**
+   * Graph:
+   * <p>
+   * <pre>
+   *   one --(one-two)--> two --(two-three)--> three --(three-five)--> five
+   *    |                  |                    /\
+   *    |              (two-four)               |
+   *    |                  \/                   |
+   *    |                four --(four-six)--> six
+   *    |--------------(one-three)--------------|
+   * </pre>
+   */
+  private HashGraph<String, String> graph() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "one-two");
+    graph.addEdge("two", "three", "two-three");
+    graph.addEdge("one", "three", "one-three");
+    graph.addEdge("two", "four", "two-four");
+    graph.addEdge("three", "five", "three-five");
+    graph.addEdge("four", "six", "four-six");
+    return graph;
+  }
+
+  /**
+   * Reads the graph and also maps it and uses every node of the mapped graph, which must both fail with a
+   * GraphFormatException.
+   */
+  private void assertInvalid(byte[] bytes) {
+    try {
+      GraphSerializer.read(ByteBuffer.wrap(bytes), ValueCodec.STRING, ValueCodec.STRING);
+      fail("Should have thrown");
+    } catch (GraphFormatException e) {
+      // Expected
+    }
+
+    assertMappedInvalid(bytes);
+  }
+
+  private void assertMappedInvalid(byte[] bytes) {
+    try {
+      Graph<String, String> mapped = GraphSerializer.map(ByteBuffer.wrap(bytes), ValueCodec.STRING, ValueCodec.STRING);
+      for (String value : graph().values()) {
+        mapped.getOutboundEdges(value);
+        mapped.getInboundEdges(value);
+      }
+      mapped.values();
+      fail("Should have thrown");
+    } catch (GraphFormatException e) {
+      // Expected
+    }
+  }
+
+  private byte[] corrupt(byte[] bytes, int position, int value) {
+    byte[] corrupt = bytes.clone();
+    ByteBuffer.wrap(corrupt).putInt(position, value);
+    return corrupt;
+  }
+
+  private byte[] serialize(Graph<String, String> graph) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    GraphSerializer.write(graph, os, ValueCodec.STRING, ValueCodec.STRING);
+    return os.toByteArray();
+  }
+}
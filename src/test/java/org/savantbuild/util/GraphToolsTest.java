@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.savantbuild.BaseUnitTest;
+import org.savantbuild.util.Graph.BasePath;
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+import org.savantbuild.util.Graph.Path;
+import org.savantbuild.util.Graph.TraversalOrder;
+import org.savantbuild.util.Graph.Visit;
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the graph algorithms.
+ *
+ * @author Brian Pontarelli
+ */
+public class GraphToolsTest extends BaseUnitTest {
+  public HashGraph<String, String> graph;
+
+  /**
+   * Graph:
+   * <p>
+   * <pre>
+   *   one --(one-two)--> two --(two-three)--> three --(three-five)--> five
+   *    |                  |                    /\
+   *    |              (two-four)               |
+   *    |                  |                    |
+   *    |                  \/                   |
+   *    |                four                   |
+   *    |                                       |
+   *    |                                       |
+   *    |--------------(one-three)--------------|
+   * </pre>
+   */
+  public GraphToolsTest() {
+    graph = new HashGraph<>();
+    graph.addEdge("one", "two", "one-two");
+    graph.addEdge("two", "three", "two-three");
+    graph.addEdge("one", "three", "one-three");
+    graph.addEdge("two", "four", "two-four");
+    graph.addEdge("three", "five", "three-five");
+  }
+
+  @Test
+  public void condensation() {
+    HashGraph<String, String> graph = cyclicGraph();
+    Graph<Set<String>, String> condensation = graph.condensation();
+    assertEquals(condensation.size(), 4);
+    assertEquals(condensation.topologicalSort(), asList(set("six"), set("four", "five"), set("two", "three"), set("one")));
+    assertEquals(condensation.getOutboundEdges(set("one")), asList(new BaseEdge<>(set("one"), set("two", "three"), "edge")));
+    assertEquals(condensation.getOutboundEdges(set("two", "three")), asList(new BaseEdge<>(set("two", "three"), set("four", "five"), "edge"),
+        new BaseEdge<>(set("two", "three"), set("four", "five"), "other")));
+    assertEquals(condensation.getOutboundEdges(set("four", "five")), asList(new BaseEdge<>(set("four", "five"), set("six"), "edge")));
+
+    // Edges from different nodes of a component to the same component are only added once
+    graph.addEdge("two", "four", "edge");
+    graph.addEdge("two", "five", "other");
+    condensation = graph.condensation();
+    assertEquals(condensation.getInboundEdges(set("four", "five")), asList(new BaseEdge<>(set("two", "three"), set("four", "five"), "edge"),
+        new BaseEdge<>(set("two", "three"), set("four", "five"), "other")));
+
+    HashGraph<Set<String>, String> expected = new HashGraph<>();
+    expected.addEdge(set("one"), set("two", "three"), "edge");
+    expected.addEdge(set("two", "three"), set("four", "five"), "edge");
+    expected.addEdge(set("two", "three"), set("four", "five"), "other");
+    expected.addEdge(set("four", "five"), set("six"), "edge");
+    assertEquals(condensation, expected);
+    assertEquals(condensation.hashCode(), expected.hashCode());
+  }
+
+  @Test
+  public void countPaths() {
+    assertEquals(graph.countPaths("one", "five"), 2);
+    assertEquals(graph.countPaths("one", "four"), 1);
+    assertEquals(graph.countPaths("two", "one"), 0);
+    assertEquals(graph.countPaths("one", "one"), 0);
+    assertEquals(graph.countPaths("one", "six"), 0);
+
+    // 62 diamonds in a row have 2^62 paths
+    HashGraph<Integer, String> diamonds = diamonds(62);
+    assertEquals(diamonds.countPaths(0, 62 * 3), 1L << 62);
+  }
+
+  @Test(expectedExceptions = ArithmeticException.class)
+  public void countPathsOverflow() {
+    diamonds(64).countPaths(0, 64 * 3);
+  }
+
+  @Test
+  public void countPathsIgnoresCyclesThatCannotReachTheDestination() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "edge");
+    graph.addEdge("one", "three", "edge");
+    graph.addEdge("three", "four", "edge");
+    graph.addEdge("four", "three", "edge");
+    assertEquals(graph.countPaths("one", "two"), 1);
+  }
+
+  @Test(expectedExceptions = CyclicException.class)
+  public void countPathsCycle() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "edge");
+    graph.addEdge("two", "three", "edge");
+    graph.addEdge("three", "two", "edge");
+    graph.addEdge("three", "four", "edge");
+    graph.countPaths("one", "four");
+  }
+
+  @Test
+  public void cycles() {
+    assertEquals(graph.cycles(), asList());
+    assertEquals(cyclicGraph().cycles(), asList(set("four", "five"), set("two", "three")));
+
+    HashGraph<String, String> selfCycle = new HashGraph<>();
+    selfCycle.addEdge("one", "one", "edge");
+    assertEquals(selfCycle.cycles(), asList(set("one")));
+  }
+
+  @Test
+  public void diff() {
+    HashGraph<String, String> to = new HashGraph<>();
+    to.addEdge("one", "two", "one-two");
+    to.addEdge("one", "three", "one-three");
+    to.addEdge("two", "three", "two-three");
+    to.addEdge("two", "three", "two-three-runtime");
+    to.addEdge("three", "six", "three-six");
+    to.addEdge("six", "seven", "six-seven");
+    to.removeEdge("six", "seven", "six-seven");
+
+    GraphDiff<String, String> diff = graph.diff(CompactGraph.copyOf(to));
+    assertEquals(diff.addedNodes, asList("six", "seven"));
+    assertEquals(diff.removedNodes, asList("four", "five"));
+    assertEquals(diff.addedEdges, asList(new BaseEdge<>("two", "three", "two-three-runtime"), new BaseEdge<>("three", "six", "three-six")));
+    assertEquals(diff.removedEdges, asList(new BaseEdge<>("two", "four", "two-four"), new BaseEdge<>("three", "five", "three-five")));
+    assertEquals(diff.affectedNodes(), new HashSet<>(asList("two", "three", "four", "five", "six", "seven")));
+    assertEquals(diff.inverse(), to.diff(graph));
+
+    assertTrue(graph.diff(graph).isEmpty());
+    assertTrue(graph.diff(CompactGraph.copyOf(graph)).isEmpty());
+  }
+
+  @Test
+  public void reduceUp() {
+    assertEquals(graph.reduceUp("one", (node) -> node, (result, dependency) -> result + "(" + dependency + ")"),
+        "one(two(three(five))(four))(three(five))");
+    assertEquals(graph.reduceUp("five", (node) -> node, (result, dependency) -> result + dependency), "five");
+
+    // There are 2^40 paths through the diamonds, so this only finishes if each node is computed once
+    HashGraph<Integer, String> diamonds = diamonds(40);
+    AtomicInteger calls = new AtomicInteger();
+    long paths = diamonds.reduceUp(0, (node) -> {
+      calls.incrementAndGet();
+      return diamonds.getOutboundEdges(node).isEmpty() ? 1L : 0L;
+    }, Long::sum);
+    assertEquals(paths, 1L << 40);
+    assertEquals(calls.get(), diamonds.size());
+
+    // The tasks don't wait for each other, so a deep chain doesn't overflow the stack
+    HashGraph<Integer, String> chain = new HashGraph<>();
+    for (int i = 0; i < 100_000; i++) {
+      chain.addEdge(i, i + 1, "edge");
+    }
+    assertEquals(chain.reduceUp(0, (node) -> 1, Integer::sum), Integer.valueOf(100_001));
+
+    try {
+      cyclicGraph().reduceUp("one", (node) -> node, (result, dependency) -> result + dependency);
+      fail("Should have thrown");
+    } catch (CyclicException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void shortestPath() {
+    assertEquals(graph.shortestPath("one", "five"), new BasePath<>(asList("one", "three", "five")));
+    assertEquals(graph.shortestPath("one", "four"), new BasePath<>(asList("one", "two", "four")));
+    assertEquals(graph.shortestPath("two", "two"), new BasePath<>(asList("two")));
+    assertNull(graph.shortestPath("four", "one"));
+    assertNull(graph.shortestPath("one", "six"));
+    assertEquals(cyclicGraph().shortestPath("one", "six"), new BasePath<>(asList("one", "two", "three", "four", "five", "six")));
+    assertNull(cyclicGraph().shortestPath("five", "three"));
+  }
+
+  /**
+   * Compares the bidirectional search to the lengths found by a plain breadth first search of a random graph.
+   */
+  @Test
+  public void shortestPathRandom() {
+    Random random = new Random(11);
+    HashGraph<Integer, String> graph = new HashGraph<>();
+    for (int i = 0; i < 3_000; i++) {
+      graph.addEdge(random.nextInt(1_000), random.nextInt(1_000), "edge");
+    }
+
+    for (int origin = 0; origin < 1_000; origin += 97) {
+      if (!graph.contains(origin)) {
+        continue;
+      }
+
+      Map<Integer, Integer> depths = new HashMap<>();
+      depths.put(origin, 0);
+      Deque<Integer> queue = new ArrayDeque<>(List.of(origin));
+      while (!queue.isEmpty()) {
+        int node = queue.poll();
+        graph.getOutboundEdges(node).forEach((edge) -> {
+          if (depths.putIfAbsent(edge.getDestination(), depths.get(node) + 1) == null) {
+            queue.add(edge.getDestination());
+          }
+        });
+      }
+
+      for (Integer destination : graph.values()) {
+        Path<Integer> path = graph.shortestPath(origin, destination);
+        if (!depths.containsKey(destination)) {
+          assertNull(path);
+          continue;
+        }
+
+        List<Integer> values = path.get();
+        assertEquals(values.size(), depths.get(destination) + 1);
+        assertEquals(values.get(0), (Integer) origin);
+        assertEquals(values.get(values.size() - 1), destination);
+        for (int i = 0; i + 1 < values.size(); i++) {
+          int from = values.get(i);
+          int to = values.get(i + 1);
+          assertTrue(graph.getOutboundEdges(from).stream().anyMatch((edge) -> edge.getDestination() == to));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shortestPathWeighted() {
+    HashGraph<String, Integer> graph = new HashGraph<>();
+    graph.addEdge("one", "two", 1);
+    graph.addEdge("two", "three", 1);
+    graph.addEdge("three", "four", 1);
+    graph.addEdge("one", "four", 5);
+    graph.addEdge("four", "one", 1);
+    assertEquals(graph.shortestPath("one", "four", (cost) -> cost), new BasePath<>(asList("one", "two", "three", "four")));
+    assertEquals(graph.shortestPath("one", "four", (cost) -> 1), new BasePath<>(asList("one", "four")));
+    assertEquals(graph.shortestPath("four", "three", (cost) -> cost), new BasePath<>(asList("four", "one", "two", "three")));
+    assertNull(graph.shortestPath("one", "five", (cost) -> cost));
+
+    try {
+      graph.shortestPath("one", "four", (cost) -> -cost);
+      fail("Should have thrown");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void stream() {
+    List<Visit<String, String>> expected = new ArrayList<>();
+    graph.traverse("one", false, null, (origin, destination, value, depth, isLast) -> expected.add(new Visit<>(origin, destination, value, depth)));
+    assertEquals(graph.stream("one", TraversalOrder.PRE_ORDER).collect(Collectors.toList()), expected);
+
+    expected.clear();
+    graph.traverseUp("one", (origin, destination, value, depth) -> expected.add(new Visit<>(origin, destination, value, depth)));
+    assertEquals(graph.stream("one", TraversalOrder.POST_ORDER).collect(Collectors.toList()), expected);
+
+    assertEquals(graph.stream("one", TraversalOrder.BREADTH_FIRST).collect(Collectors.toList()), asList(
+        new Visit<>("one", "two", "one-two", 1),
+        new Visit<>("one", "three", "one-three", 1),
+        new Visit<>("two", "three", "two-three", 2),
+        new Visit<>("two", "four", "two-four", 2),
+        new Visit<>("three", "five", "three-five", 2)
+    ));
+    assertEquals(cyclicGraph().stream("one", TraversalOrder.BREADTH_FIRST).count(), 8);
+
+    try {
+      cyclicGraph().stream("one", TraversalOrder.PRE_ORDER).count();
+      fail("Should have thrown");
+    } catch (CyclicException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void streamParallel() {
+    HashGraph<Integer, String> graph = diamonds(10);
+    for (int i = 0; i < 20; i++) {
+      graph.addEdge(-1, i, "edge");
+    }
+
+    for (TraversalOrder order : asList(TraversalOrder.PRE_ORDER, TraversalOrder.POST_ORDER)) {
+      List<Visit<Integer, String>> sequential = graph.stream(-1, order).collect(Collectors.toList());
+      List<Visit<Integer, String>> parallel = graph.stream(-1, order).parallel().collect(Collectors.toList());
+      assertEquals(parallel, sequential);
+    }
+  }
+
+  @Test
+  public void streamShortCircuit() {
+    // There are 2^60 paths through the diamonds, so this only finishes if the Stream stops early
+    HashGraph<Integer, String> graph = diamonds(60);
+    Visit<Integer, String> visit = graph.stream(0, TraversalOrder.PRE_ORDER).filter((candidate) -> candidate.destination == 180).findFirst().orElseThrow();
+    assertEquals(visit.depth, 120);
+    assertEquals(graph.stream(0, TraversalOrder.PRE_ORDER).limit(10).count(), 10);
+  }
+
+  @Test
+  public void streamPaths() {
+    assertEquals(graph.streamPaths("one", "five").collect(Collectors.toList()),
+        asList(new BasePath<>(asList("one", "two", "three", "five")), new BasePath<>(asList("one", "three", "five"))));
+    assertEquals(graph.streamPaths("one", "six").count(), 0);
+
+    // Only enumerate the first few paths of a graph that has 2^62 of them
+    List<Path<Integer>> paths = diamonds(62).streamPaths(0, 62 * 3).limit(3).collect(Collectors.toList());
+    assertEquals(paths.size(), 3);
+    assertEquals(paths.get(0).get().size(), 62 * 2 + 1);
+    assertEquals(paths.get(0).get().subList(0, 3), asList(0, 1, 3));
+    assertEquals(paths.get(2).get().subList(0, 3), asList(0, 1, 3));
+  }
+
+  @Test
+  public void stronglyConnectedComponents() {
+    assertEquals(graph.stronglyConnectedComponents(), asList(set("five"), set("three"), set("four"), set("two"), set("one")));
+    assertEquals(cyclicGraph().stronglyConnectedComponents(), asList(set("six"), set("four", "five"), set("two", "three"), set("one")));
+  }
+
+  @Test
+  public void topologicalLevels() {
+    List<Set<String>> levels = graph.topologicalLevels();
+    assertEquals(levels, asList(new HashSet<>(asList("four", "five")), new HashSet<>(asList("three")), new HashSet<>(asList("two")), new HashSet<>(asList("one"))));
+    assertEquals(CompactGraph.copyOf(graph).topologicalLevels(), levels);
+  }
+
+  @Test
+  public void topologicalLevelsCycle() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "one-two");
+    graph.addEdge("two", "three", "two-three");
+    graph.addEdge("three", "five", "three-five");
+    graph.addEdge("five", "six", "five-six");
+    graph.addEdge("six", "two", "six-two");
+    try {
+      graph.topologicalLevels();
+      fail("Should have thrown");
+    } catch (CyclicException e) {
+      assertEquals(e.getMessage(), "Your graph has a cycle [two -> three -> five -> six -> two]");
+    }
+  }
+
+  @Test
+  public void topologicalSort() {
+    assertEquals(graph.topologicalSort(), asList("four", "five", "three", "two", "one"));
+
+    HashGraph<String, String> empty = new HashGraph<>();
+    assertEquals(empty.topologicalSort(), asList());
+  }
+
+  @Test(expectedExceptions = CyclicException.class)
+  public void topologicalSortSelfCycle() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "one-two");
+    graph.addEdge("two", "two", "two-two");
+    graph.topologicalSort();
+  }
+
+  /**
+   * Creates a chain of diamonds. Diamond i is the nodes i * 3 (top), i * 3 + 1 and i * 3 + 2 (sides) and the top of the
+   * next diamond.
+   */
+  private HashGraph<Integer, String> diamonds(int count) {
+    HashGraph<Integer, String> graph = new HashGraph<>();
+    for (int i = 0; i < count; i++) {
+      int top = i * 3;
+      graph.addEdge(top, top + 1, "edge");
+      graph.addEdge(top, top + 2, "edge");
+      graph.addEdge(top + 1, top + 3, "edge");
+      graph.addEdge(top + 2, top + 3, "edge");
+    }
+    return graph;
+  }
+
+  /**
+   * Graph:
+   * <p>
+   * <pre>
+   *   one --&gt; two &lt;--&gt; three --&gt; four &lt;--&gt; five --&gt; six
+   * </pre>
+   * <p>
+   * There are two edges between three and four (edge and other).
+   */
+  private HashGraph<String, String> cyclicGraph() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "edge");
+    graph.addEdge("two", "three", "edge");
+    graph.addEdge("three", "two", "edge");
+    graph.addEdge("three", "four", "edge");
+    graph.addEdge("three", "four", "other");
+    graph.addEdge("four", "five", "edge");
+    graph.addEdge("five", "four", "edge");
+    graph.addEdge("five", "six", "edge");
+    return graph;
+  }
+
+  private Set<String> set(String... values) {
+    return new HashSet<>(asList(values));
+  }
+}
@@ -16,9 +16,12 @@
 package org.savantbuild.util;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
 
 import org.savantbuild.BaseUnitTest;
 import org.savantbuild.util.Graph.BasePath;
@@ -30,8 +33,11 @@ import org.testng.annotations.Test;
 import static java.util.Arrays.asList;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * This tests the graph.
@@ -65,6 +71,88 @@ public class HashGraphTest extends BaseUnitTest {
     graph.addEdge("three", "five", "three-five");
   }
 
+  /**
+   * Adding the edges in bulk should produce the same graph as adding them one at a time, including the order of the
+   * nodes and edges and the duplicates.
+   */
+  @Test
+  public void addEdges() {
+    for (HashGraph.EdgeStorage edgeStorage : HashGraph.EdgeStorage.values()) {
+      Random random = new Random(42);
+      List<Edge<Integer, String>> edges = new ArrayList<>();
+      for (int i = 0; i < 5_000; i++) {
+        edges.add(new BaseEdge<>(random.nextInt(500), random.nextInt(500), random.nextBoolean() ? "compile" : "test"));
+      }
+
+      HashGraph<Integer, String> expected = new HashGraph<>(edgeStorage);
+      HashGraph<Integer, String> actual = new HashGraph<>(edgeStorage, 500);
+      expected.addEdge(1, 2, "compile");
+      actual.addEdge(1, 2, "compile");
+      edges.forEach((edge) -> expected.addEdge(edge.getOrigin(), edge.getDestination(), edge.getValue()));
+      actual.addEdges(edges);
+
+      assertEquals(actual, expected);
+      assertEquals(new ArrayList<>(actual.values()), new ArrayList<>(expected.values()));
+      for (Integer value : expected.values()) {
+        assertEquals(actual.getOutboundEdges(value), expected.getOutboundEdges(value));
+        assertEquals(actual.getInboundEdges(value), expected.getInboundEdges(value));
+      }
+
+      // The graph is still consistent after removing the bulk edges
+      actual.removeNode(1);
+      expected.removeNode(1);
+      assertEquals(actual, expected);
+    }
+  }
+
+  @Test
+  public void apply() {
+    HashGraph<String, String> to = new HashGraph<>();
+    to.addEdge("one", "two", "one-two");
+    to.addEdge("two", "three", "two-three");
+    to.addEdge("three", "six", "three-six");
+    to.addEdge("six", "seven", "six-seven");
+    to.removeEdge("six", "seven", "six-seven");
+
+    HashGraph<String, String> from = new HashGraph<>();
+    from.addEdge("one", "two", "one-two");
+    from.addEdge("two", "three", "two-three");
+    from.addEdge("one", "three", "one-three");
+    from.addEdge("two", "four", "two-four");
+    from.addEdge("three", "five", "three-five");
+    GraphDiff<String, String> diff = from.diff(to);
+    from.apply(diff);
+    assertEquals(from, to);
+    assertTrue(from.contains("seven"));
+    assertFalse(from.contains("five"));
+    assertEquals(from.getInboundEdges("three"), asList(new BaseEdge<>("two", "three", "two-three")));
+
+    from.apply(diff.inverse());
+    assertEquals(from, graph);
+
+    // Applying it again skips the changes that are already there
+    from.apply(diff);
+    from.apply(diff);
+    assertEquals(from, to);
+  }
+
+  @Test
+  public void builder() {
+    HashGraph<String, String> graph = HashGraph.<String, String>builder(5, 4)
+        .edgeStorage(HashGraph.EdgeStorage.INDEXED)
+        .addEdge("one", "two", "one-two")
+        .addNode("six")
+        .addEdges(asList(new BaseEdge<>("two", "three", "two-three"), new BaseEdge<>("one", "three", "one-three")))
+        .addEdge("one", "two", "one-two")
+        .build();
+
+    assertEquals(new ArrayList<>(graph.values()), asList("one", "two", "six", "three"));
+    assertEquals(graph.getOutboundEdges("one"), asList(new BaseEdge<>("one", "two", "one-two"), new BaseEdge<>("one", "three", "one-three")));
+    assertEquals(graph.getInboundEdges("three"), asList(new BaseEdge<>("two", "three", "two-three"), new BaseEdge<>("one", "three", "one-three")));
+    assertEquals(graph.getOutboundEdges("six"), asList());
+    assertEquals(graph.size(), 4);
+  }
+
   @Test
   public void contains() {
     assertTrue(graph.contains("one"));
@@ -87,6 +175,50 @@ public class HashGraphTest extends BaseUnitTest {
     assertEquals(graph, graph2);
   }
 
+  @Test
+  public void equalsAfterModification() {
+    Random random = new Random(7);
+    HashGraph<Integer, String> graph = new HashGraph<>();
+    for (int i = 0; i < 5_000; i++) {
+      int operation = random.nextInt(20);
+      int origin = random.nextInt(200);
+      int destination = random.nextInt(200);
+      String value = random.nextBoolean() ? "compile" : "runtime";
+      if (operation == 0 && graph.contains(origin)) {
+        graph.removeNode(origin);
+      } else if (operation < 5 && graph.contains(origin) && graph.contains(destination)) {
+        graph.removeEdge(origin, destination, value);
+      } else if (operation == 5) {
+        graph.prune(origin);
+      } else {
+        graph.addEdge(origin, destination, value);
+      }
+    }
+
+    // Rebuild the graph with the nodes and edges in reverse order
+    List<Integer> values = new ArrayList<>(graph.values());
+    Collections.reverse(values);
+    HashGraph<Integer, String> copy = new HashGraph<>(HashGraph.EdgeStorage.INDEXED);
+    for (Integer value : values) {
+      List<Edge<Integer, String>> edges = new ArrayList<>(graph.getOutboundEdges(value));
+      Collections.reverse(edges);
+      edges.forEach((edge) -> copy.addEdge(edge.getOrigin(), edge.getDestination(), edge.getValue()));
+    }
+
+    // Add the nodes without edges by adding an edge to a temporary node and then removing that node
+    values.stream().filter((value) -> !copy.contains(value)).forEach((value) -> copy.addEdge(value, -1, "edge"));
+    copy.removeNode(-1);
+
+    assertEquals(copy, graph);
+    assertEquals(copy.hashCode(), graph.hashCode());
+
+    copy.addEdge(values.get(0), values.get(1), "other");
+    assertNotEquals(copy, graph);
+    copy.removeEdge(values.get(0), values.get(1), "other");
+    assertEquals(copy, graph);
+    assertEquals(copy.hashCode(), graph.hashCode());
+  }
+
   @Test
   public void find() {
     assertEquals(graph.find("one", (node) -> node.equals("one")), "one");
@@ -103,6 +235,36 @@ public class HashGraphTest extends BaseUnitTest {
     assertNull(graph.find("two", (node) -> node.equals("six")));
   }
 
+  @Test
+  public void edgeViews() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "edge");
+
+    List<Edge<String, String>> outbound = graph.getOutboundEdges("one");
+    List<Edge<String, String>> inbound = graph.getInboundEdges("two");
+    assertSame(graph.getOutboundEdges("one"), outbound);
+    assertSame(inbound.get(0), outbound.get(0));
+    assertEquals(outbound.get(0), new BaseEdge<>("one", "two", "edge"));
+    assertEquals(new BaseEdge<>("one", "two", "edge"), outbound.get(0));
+    assertEquals(outbound.get(0).hashCode(), new BaseEdge<>("one", "two", "edge").hashCode());
+
+    try {
+      outbound.add(new BaseEdge<>("one", "three", "edge"));
+      fail("Should have thrown");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+
+    graph.addEdge("one", "three", "edge");
+    assertEquals(outbound, asList(new BaseEdge<>("one", "two", "edge"), new BaseEdge<>("one", "three", "edge")));
+
+    List<Edge<String, String>> edges = new ArrayList<>();
+    graph.forEachOutbound("one", edges::add);
+    graph.forEachInbound("three", edges::add);
+    graph.forEachInbound("four", edges::add);
+    assertEquals(edges, asList(new BaseEdge<>("one", "two", "edge"), new BaseEdge<>("one", "three", "edge"), new BaseEdge<>("one", "three", "edge")));
+  }
+
   @Test
   public void getInboundEdges() {
     List<Edge<String, String>> edges = graph.getInboundEdges("one");
@@ -177,6 +339,121 @@ public class HashGraphTest extends BaseUnitTest {
     assertEquals(paths.get(1), new BasePath<>(asList("one", "three", "five")));
   }
 
+  @Test
+  public void indexedEdgeStorage() {
+    HashGraph<String, String> graph = new HashGraph<>(HashGraph.EdgeStorage.INDEXED);
+    for (int i = 0; i < 5_000; i++) {
+      graph.addEdge("module" + i, "logging", "compile");
+      graph.addEdge("module" + i, "logging", "compile");
+    }
+    graph.addEdge("logging", "api", "compile");
+
+    assertEquals(graph.size(), 5_002);
+    assertEquals(graph.getInboundEdges("logging").size(), 5_000);
+    assertEquals(graph.getInboundEdges("logging").get(0), new BaseEdge<>("module0", "logging", "compile"));
+    assertEquals(graph.getInboundEdges("logging").get(4_999), new BaseEdge<>("module4999", "logging", "compile"));
+
+    for (int i = 0; i < 5_000; i += 2) {
+      graph.removeEdge("module" + i, "logging", "compile");
+    }
+
+    List<Edge<String, String>> edges = graph.getInboundEdges("logging");
+    assertEquals(edges.size(), 2_500);
+    assertEquals(edges.get(0), new BaseEdge<>("module1", "logging", "compile"));
+    assertEquals(edges.get(2_499), new BaseEdge<>("module4999", "logging", "compile"));
+    assertEquals(graph.getOutboundEdges("module0"), asList());
+    assertEquals(graph.getOutboundEdges("module1"), asList(new BaseEdge<>("module1", "logging", "compile")));
+
+    graph.removeNode("module1");
+    assertFalse(graph.contains("module1"));
+    assertEquals(graph.getInboundEdges("logging").size(), 2_499);
+    assertEquals(graph.getInboundEdges("logging").get(0), new BaseEdge<>("module3", "logging", "compile"));
+  }
+
+  /**
+   * This ensures that the paths are correct when they branch below the origin.
+   */
+  @Test
+  public void getPathsBranches() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "edge");
+    graph.addEdge("two", "three", "edge");
+    graph.addEdge("three", "four", "edge");
+    graph.addEdge("two", "four", "edge");
+    graph.addEdge("two", "five", "edge");
+
+    List<Path<String>> paths = graph.getPaths("one", "four");
+    assertEquals(paths, asList(new BasePath<>(asList("one", "two", "three", "four")), new BasePath<>(asList("one", "two", "four"))));
+    assertEquals(graph.getPaths("two", "one"), asList());
+    assertNull(graph.getPaths("one", "six"));
+    assertNull(graph.getPaths("six", "one"));
+  }
+
+  /**
+   * Graph:
+   * <p>
+   * <pre>
+   *   one --> one-two --> one-three --|
+   *       |                 /\        |
+   *       |                 |         |
+   *       |-> two ------> four        |
+   *       |    |           |          |
+   *       |    |          \/          |
+   *       |    |-------> five         |
+   *       |    |                      |
+   *       |    |-------> six <--------|
+   *       |    |
+   *       |   \/
+   *       |-> three
+   * </pre>
+   * <p>
+   * The edge between one and two is removed before pruning.
+   */
+  @Test
+  public void prune() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "one-two", "edge");
+    graph.addEdge("one-two", "one-three", "edge");
+    graph.addEdge("one-three", "six", "edge");
+    graph.addEdge("one", "two", "edge");
+    graph.addEdge("one", "three", "edge");
+    graph.addEdge("two", "three", "edge");
+    graph.addEdge("two", "four", "edge");
+    graph.addEdge("two", "five", "edge");
+    graph.addEdge("two", "six", "edge");
+    graph.addEdge("four", "five", "edge");
+    graph.addEdge("four", "one-three", "edge");
+    graph.addEdge("seven", "eight", "edge");
+
+    graph.removeEdge("one", "two", "edge");
+    graph.prune("one");
+    assertEquals(graph.values(), new HashSet<>(asList("one", "one-two", "one-three", "three", "six")));
+
+    assertEquals(graph.getOutboundEdges("one"), asList(new BaseEdge<>("one", "one-two", "edge"), new BaseEdge<>("one", "three", "edge")));
+    assertEquals(graph.getOutboundEdges("one-three"), asList(new BaseEdge<>("one-three", "six", "edge")));
+    assertEquals(graph.getInboundEdges("one-three"), asList(new BaseEdge<>("one-two", "one-three", "edge")));
+    assertEquals(graph.getInboundEdges("three"), asList(new BaseEdge<>("one", "three", "edge")));
+    assertEquals(graph.getInboundEdges("six"), asList(new BaseEdge<>("one-three", "six", "edge")));
+  }
+
+  @Test
+  public void pruneLargeGraph() {
+    HashGraph<Integer, String> graph = new HashGraph<>();
+    for (int i = 0; i < 100_000; i++) {
+      graph.addEdge(i, i + 1, "edge");
+      graph.addEdge(i, i + 2, "edge");
+    }
+    graph.addEdge(-1, 50_000, "edge");
+
+    graph.removeEdge(0, 1, "edge");
+    graph.prune(-1);
+    assertEquals(graph.size(), 50_003);
+    assertFalse(graph.contains(0));
+    assertFalse(graph.contains(49_999));
+    assertTrue(graph.contains(50_000));
+    assertEquals(graph.getInboundEdges(50_001), asList(new BaseEdge<>(50_000, 50_001, "edge")));
+  }
+
   /**
    * Graph:
    * <p>
@@ -317,6 +594,50 @@ public class HashGraphTest extends BaseUnitTest {
     assertEquals(graph.getInboundEdges("six"), asList(new BaseEdge<>("one-three", "six", "edge")));
   }
 
+  @Test
+  public void stats() {
+    GraphStats stats = graph.stats();
+    assertEquals(stats.nodeCount, 5);
+    assertEquals(stats.edgeCount, 5);
+    assertEquals(stats.averageDegree, 1.0);
+    assertEquals(stats.maxInDegree, 2);
+    assertEquals(stats.maxOutDegree, 2);
+    assertTrue(stats.estimatedBytes > 0);
+    assertTrue(stats.operations.isEmpty());
+
+    // The generic version matches, but has no memory estimate
+    GraphStats generic = GraphTools.stats(graph);
+    assertEquals(generic.nodeCount, 5);
+    assertEquals(generic.edgeCount, 5);
+    assertEquals(generic.maxInDegree, 2);
+    assertEquals(generic.maxOutDegree, 2);
+    assertEquals(generic.estimatedBytes, -1);
+
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "one-two");
+    graph.addEdge("two", "three", "two-three");
+    graph.instrument(true);
+    graph.addEdge("three", "four", "three-four");
+    graph.addEdges(asList(new BaseEdge<>("one", "four", "one-four"), new BaseEdge<>("four", "five", "four-five")));
+    graph.traverse("one", false, null, (origin, destination, value, depth, isLast) -> true);
+    graph.traverse("two", false, null, (origin, destination, value, depth, isLast) -> true);
+    graph.removeNode("five");
+    graph.removeNode("six");
+    graph.prune("one");
+
+    stats = graph.stats();
+    assertEquals(stats.operations.keySet(), new HashSet<>(asList(GraphStats.Operation.values())));
+    assertEquals(stats.operations.get(GraphStats.Operation.ADD_EDGE).count, 1);
+    assertEquals(stats.operations.get(GraphStats.Operation.PRUNE).count, 1);
+    assertEquals(stats.operations.get(GraphStats.Operation.REMOVE_NODE).count, 2);
+    assertEquals(stats.operations.get(GraphStats.Operation.TRAVERSE).count, 2);
+    assertTrue(stats.operations.get(GraphStats.Operation.TRAVERSE).totalNanos >= stats.operations.get(GraphStats.Operation.TRAVERSE).maxNanos);
+
+    graph.instrument(false);
+    graph.addEdge("four", "five", "four-five");
+    assertTrue(graph.stats().operations.isEmpty());
+  }
+
   @Test
   public void traverse() {
     List<String> origins = new ArrayList<>();
@@ -397,6 +718,107 @@ public class HashGraphTest extends BaseUnitTest {
     assertEquals(destinations, asList("two", "three", "five", "four"));
   }
 
+  /**
+   * This test ensures that the traversal does not use the thread stack for each level of the graph.
+   */
+  @Test
+  public void traverseDeepGraph() {
+    HashGraph<Integer, String> graph = new HashGraph<>();
+    for (int i = 0; i < 100_000; i++) {
+      graph.addEdge(i, i + 1, "edge");
+    }
+
+    int[] count = new int[1];
+    int[] maxDepth = new int[1];
+    graph.traverse(0, false, null, (origin, destination, edge, depth, isLast) -> {
+      assertEquals((int) destination, origin + 1);
+      assertEquals(depth, (int) destination);
+      assertTrue(isLast);
+      count[0]++;
+      maxDepth[0] = Math.max(maxDepth[0], depth);
+      return true;
+    });
+
+    assertEquals(count[0], 100_000);
+    assertEquals(maxDepth[0], 100_000);
+  }
+
+  @Test
+  public void traverseFilterAndIsLast() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "compile");
+    graph.addEdge("one", "three", "test");
+    graph.addEdge("two", "four", "compile");
+    graph.addEdge("two", "five", "test");
+    graph.addEdge("two", "six", "compile");
+    graph.addEdge("three", "seven", "compile");
+
+    List<String> visits = new ArrayList<>();
+    graph.traverse("one", false, (edge, entryPoint) -> edge.getValue().equals("compile") || entryPoint.getValue().equals("test"),
+        (origin, destination, edge, depth, isLast) -> {
+          visits.add(origin + "->" + destination + ":" + depth + ":" + isLast);
+          return true;
+        });
+
+    assertEquals(visits, asList("one->two:1:false", "two->four:2:false", "two->six:2:true", "one->three:1:true", "three->seven:2:true"));
+  }
+
+  /**
+   * Many short traversals from threads that start at the same time, so that they often take the reusable traversal
+   * state at the same time.
+   */
+  @Test
+  public void traverseFromManyThreads() throws Exception {
+    HashGraph<Integer, String> graph = new HashGraph<>();
+    for (int i = 0; i < 20; i++) {
+      graph.addEdge(i, i + 1, "edge");
+      graph.addEdge(i, i + 2, "edge");
+    }
+
+    CyclicBarrier barrier = new CyclicBarrier(8);
+    List<Thread> threads = new ArrayList<>();
+    Set<Integer> counts = Collections.synchronizedSet(new HashSet<>());
+    for (int i = 0; i < 8; i++) {
+      Thread thread = new Thread(() -> {
+        try {
+          barrier.await();
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+
+        for (int j = 0; j < 20_000; j++) {
+          int[] count = new int[1];
+          try {
+            graph.traverse(0, true, null, (origin, destination, value, depth, isLast) -> {
+              count[0]++;
+              return true;
+            });
+          } catch (RuntimeException e) {
+            count[0] = -1;
+          }
+          counts.add(count[0]);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(counts, Collections.singleton(21));
+  }
+
+  @Test(expectedExceptions = CyclicException.class)
+  public void traverseCycle() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "edge");
+    graph.addEdge("two", "three", "edge");
+    graph.addEdge("three", "one", "edge");
+    graph.traverse("one", false, null, (origin, destination, edge, depth, isLast) -> true);
+  }
+
   /**
    * This test ensures that the traversal hits all of the child nodes at least once. We had a bug in 0.4.0 that
    * prevented the traversal from hitting everything. This ensures it is fixed.
@@ -422,6 +844,31 @@ public class HashGraphTest extends BaseUnitTest {
     assertEquals(visited, new HashSet<>(asList("two", "three", "end1", "end2", "end3", "end4", "end5")));
   }
 
+  /**
+   * This test ensures that a GraphConsumer can traverse the graph while it is being traversed without breaking the
+   * visited nodes and cycle check of the outer traversal.
+   */
+  @Test
+  public void traverseNested() {
+    List<String> expected = new ArrayList<>();
+    graph.traverse("one", true, null, (origin, destination, edge, depth, isLast) -> {
+      expected.add(origin + "->" + destination);
+      return true;
+    });
+
+    List<String> visits = new ArrayList<>();
+    List<String> nested = new ArrayList<>();
+    graph.traverse("one", true, null, (origin, destination, edge, depth, isLast) -> {
+      visits.add(origin + "->" + destination);
+      graph.traverse(destination, false, null, (o, d, e, dp, l) -> nested.add(o + "->" + d));
+      return true;
+    });
+
+    assertEquals(visits, expected);
+    assertEquals(visits, asList("one->two", "two->three", "three->five", "two->four"));
+    assertEquals(nested, asList("two->three", "three->five", "two->four", "three->five"));
+  }
+
   @Test
   public void traverseUp() {
     List<String> origins = new ArrayList<>();
@@ -460,8 +907,71 @@ public class HashGraphTest extends BaseUnitTest {
     assertEquals(destinations, asList("five", "three", "four", "two", "five", "three"));
   }
 
+  /**
+   * This test ensures that the traversals track the nodes by their ordinals and only hash the root value to look up the
+   * root node, including after nodes are removed and their ordinals are reused.
+   */
+  @Test
+  public void traverseWithoutHashing() {
+    HashGraph<CountingValue, String> graph = new HashGraph<>();
+    CountingValue[] values = new CountingValue[10];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = new CountingValue(i);
+    }
+    for (int i = 0; i < 8; i++) {
+      graph.addEdge(values[i], values[i + 1], "edge");
+      graph.addEdge(values[i], values[i + 2], "edge");
+    }
+    graph.removeNode(values[9]);
+    graph.addEdge(values[8], values[9], "edge");
+
+    CountingValue.calls = 0;
+    List<Integer> visited = new ArrayList<>();
+    graph.traverse(values[0], true, null, (origin, destination, edge, depth, isLast) -> visited.add(destination.id));
+    assertEquals(visited, asList(1, 2, 3, 4, 5, 6, 7, 8, 9));
+    assertEquals(CountingValue.calls, 1);
+
+    int[] count = new int[1];
+    graph.traverseUp(values[0], (origin, destination, edge, depth) -> count[0]++);
+    assertEquals(count[0], 121);
+    assertEquals(CountingValue.calls, 2);
+
+    assertSame(graph.find(values[0], (value) -> value.id == 9), values[9]);
+    assertEquals(CountingValue.calls, 3);
+  }
+
   @Test
   public void values() {
     assertEquals(graph.values(), new HashSet<>(asList("one", "two", "three", "four", "five")));
   }
+
+  /**
+   * A node value that counts the calls to its hashCode and equals methods.
+   */
+  private static class CountingValue {
+    public static int calls;
+
+    public final int id;
+
+    public CountingValue(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      calls++;
+      return o instanceof CountingValue && ((CountingValue) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      calls++;
+      return id;
+    }
+
+    @Override
+    public String toString() {
+      return Integer.toString(id);
+    }
+  }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.savantbuild.BaseUnitTest;
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the persistent graph.
+ *
+ * @author Brian Pontarelli
+ */
+public class PersistentGraphTest extends BaseUnitTest {
+  @Test
+  public void copyOf() {
+    PersistentGraph<String, String> graph = PersistentGraph.copyOf(hashGraph());
+    assertEquals(new ArrayList<>(graph.values()), asList("one", "two", "three", "four", "five"));
+    assertEquals(graph.getOutboundEdges("one"), hashGraph().getOutboundEdges("one"));
+    assertEquals(graph.getInboundEdges("three"), hashGraph().getInboundEdges("three"));
+    assertEquals(graph.getPaths("one", "five"), hashGraph().getPaths("one", "five"));
+    assertEquals(graph.topologicalSort(), hashGraph().topologicalSort());
+  }
+
+  @Test
+  public void immutable() {
+    PersistentGraph<String, String> graph = graph();
+    try {
+      graph.addEdge("one", "six", "one-six");
+      fail("Should have thrown");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+
+    try {
+      graph.removeNode("one");
+      fail("Should have thrown");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Compares the map to a HashMap for random puts and removes, including keys whose hash codes collide.
+   */
+  @Test
+  public void persistentMap() {
+    Random random = new Random(42);
+    PersistentMap<Key, Integer> map = PersistentMap.empty();
+    Map<Key, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 20_000; i++) {
+      Key key = new Key(random.nextInt(2_000));
+      if (random.nextInt(3) == 0) {
+        map = map.remove(key);
+        expected.remove(key);
+      } else {
+        map = map.put(key, i);
+        expected.put(key, i);
+      }
+
+      assertEquals(map.size(), expected.size());
+    }
+
+    for (int i = 0; i < 2_000; i++) {
+      assertEquals(map.get(new Key(i)), expected.get(new Key(i)));
+    }
+
+    Map<Key, Integer> actual = new HashMap<>();
+    map.forEach(actual::put);
+    assertEquals(actual, expected);
+  }
+
+  @Test
+  public void pruned() {
+    PersistentGraph<String, String> graph = graph().withEdge("six", "five", "six-five");
+    PersistentGraph<String, String> pruned = graph.pruned("one");
+    assertFalse(pruned.contains("six"));
+    assertTrue(pruned.contains("five"));
+    assertEquals(pruned.getInboundEdges("five"), asList(new BaseEdge<>("three", "five", "three-five")));
+    assertTrue(graph.contains("six"));
+    assertSame(pruned.pruned("one"), pruned);
+  }
+
+  @Test
+  public void versions() {
+    PersistentGraph<String, String> original = graph();
+    PersistentGraph<String, String> added = original.withEdge("four", "six", "four-six");
+    PersistentGraph<String, String> removed = added.withoutNode("two");
+
+    assertSame(original.withEdge("one", "two", "one-two"), original);
+    assertSame(original.withoutEdge("one", "six", "one-six"), original);
+    assertSame(original.withoutNode("six"), original);
+
+    assertFalse(original.contains("six"));
+    assertEquals(original.getOutboundEdges("four"), asList());
+    assertEquals(added.getOutboundEdges("four"), asList(new BaseEdge<>("four", "six", "four-six")));
+    assertEquals(added.getInboundEdges("six"), asList(new BaseEdge<>("four", "six", "four-six")));
+
+    // Nodes that the new edge doesn't touch are shared with the original version
+    assertSame(added.getOutboundEdges("one"), original.getOutboundEdges("one"));
+    assertSame(added.getInboundEdges("five"), original.getInboundEdges("five"));
+
+    // Removing two orphans four and six, but not three because one still depends on it
+    assertEquals(new ArrayList<>(removed.values()), asList("one", "three", "five"));
+    assertEquals(removed.getOutboundEdges("one"), asList(new BaseEdge<>("one", "three", "one-three")));
+    assertEquals(removed.getInboundEdges("three"), asList(new BaseEdge<>("one", "three", "one-three")));
+    assertEquals(added.size(), 6);
+
+    PersistentGraph<String, String> withoutEdge = removed.withoutEdge("one", "three", "one-three");
+    assertEquals(withoutEdge.getOutboundEdges("one"), asList());
+    assertEquals(withoutEdge.getInboundEdges("three"), asList());
+    assertEquals(removed.getOutboundEdges("one"), asList(new BaseEdge<>("one", "three", "one-three")));
+
+    PersistentGraph<String, String> selfLoop = PersistentGraph.<String, String>empty().withEdge("one", "one", "edge");
+    assertEquals(selfLoop.getOutboundEdges("one"), selfLoop.getInboundEdges("one"));
+    assertEquals(selfLoop.cycles().size(), 1);
+    assertEquals(selfLoop.withoutEdge("one", "one", "edge").getInboundEdges("one"), asList());
+    assertNull(selfLoop.getInboundEdges("two"));
+  }
+
+  /**
+   * Graph:
+   * <p>
+   * <pre>
+   *   one --(one-two)--> two --(two-three)--> three --(three-five)--> five
+   *    |                  |                    /\
+   *    |              (two-four)               |
+   *    |                  \/                   |
+   *    |                four                   |
+   *    |--------------(one-three)--------------|
+   * </pre>
+   */
+  private PersistentGraph<String, String> graph() {
+    return PersistentGraph.<String, String>empty()
+        .withEdge("one", "two", "one-two")
+        .withEdge("two", "three", "two-three")
+        .withEdge("one", "three", "one-three")
+        .withEdge("two", "four", "two-four")
+        .withEdge("three", "five", "three-five");
+  }
+
+  private HashGraph<String, String> hashGraph() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "one-two");
+    graph.addEdge("two", "three", "two-three");
+    graph.addEdge("one", "three", "one-three");
+    graph.addEdge("two", "four", "two-four");
+    graph.addEdge("three", "five", "three-five");
+    return graph;
+  }
+
+  /**
+   * A key whose hash codes collide for every 10 values.
+   */
+  private static class Key {
+    public final int value;
+
+    public Key(int value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+      return value / 10;
+    }
+  }
+}
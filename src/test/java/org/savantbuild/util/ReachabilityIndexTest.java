@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.savantbuild.BaseUnitTest;
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the reachability index.
+ *
+ * @author Brian Pontarelli
+ */
+public class ReachabilityIndexTest extends BaseUnitTest {
+  @Test
+  public void cycles() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "edge");
+    graph.addEdge("two", "three", "edge");
+    graph.addEdge("three", "two", "edge");
+    graph.addEdge("three", "four", "edge");
+    graph.addEdge("four", "four", "edge");
+
+    ReachabilityIndex<String> index = graph.reachabilityIndex();
+    assertFalse(index.reaches("one", "one"));
+    assertTrue(index.reaches("two", "two"));
+    assertTrue(index.reaches("three", "two"));
+    assertTrue(index.reaches("four", "four"));
+    assertTrue(index.reaches("one", "four"));
+    assertFalse(index.reaches("four", "three"));
+    assertEquals(index.descendants("one"), new HashSet<>(asList("two", "three", "four")));
+    assertEquals(index.descendants("two"), new HashSet<>(asList("two", "three", "four")));
+    assertEquals(index.descendants("four"), new HashSet<>(asList("four")));
+  }
+
+  @Test
+  public void invalidation() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "edge");
+    graph.addEdge("two", "three", "edge");
+
+    ReachabilityIndex<String> index = graph.reachabilityIndex();
+    assertSame(graph.reachabilityIndex(), index);
+    assertTrue(index.reaches("one", "three"));
+
+    graph.addEdge("one", "two", "edge");
+    assertSame(graph.reachabilityIndex(), index);
+
+    graph.removeEdge("two", "three", "edge");
+    assertNotSame(graph.reachabilityIndex(), index);
+    assertFalse(graph.reachabilityIndex().reaches("one", "three"));
+
+    graph.addEdge("three", "four", "edge");
+    graph.addEdge("two", "three", "edge");
+    assertTrue(graph.reachabilityIndex().reaches("one", "four"));
+
+    graph.removeNode("three");
+    assertFalse(graph.reachabilityIndex().reaches("one", "four"));
+    assertFalse(graph.reachabilityIndex().reaches("one", "three"));
+  }
+
+  @Test
+  public void missingNodes() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "edge");
+
+    ReachabilityIndex<String> index = graph.reachabilityIndex();
+    assertFalse(index.reaches("one", "three"));
+    assertFalse(index.reaches("three", "one"));
+    assertNull(index.descendants("three"));
+    assertEquals(index.descendants("two"), new HashSet<>());
+  }
+
+  /**
+   * Compares the index to a brute force traversal for random graphs with and without cycles.
+   */
+  @Test
+  public void randomGraphs() {
+    Random random = new Random(42);
+    for (int round = 0; round < 20; round++) {
+      HashGraph<Integer, String> graph = new HashGraph<>();
+      int nodes = 50 + random.nextInt(100);
+      boolean acyclic = round % 2 == 0;
+      for (int i = 0; i < nodes * 2; i++) {
+        int origin = random.nextInt(nodes);
+        int destination = random.nextInt(nodes);
+        if (acyclic && origin >= destination) {
+          continue;
+        }
+        graph.addEdge(origin, destination, "edge");
+      }
+
+      ReachabilityIndex<Integer> index = CompactGraph.copyOf(graph).reachabilityIndex();
+      for (Integer origin : graph.values()) {
+        Set<Integer> expected = bruteForce(graph, origin);
+        assertEquals(index.descendants(origin), expected);
+        for (Integer destination : graph.values()) {
+          assertEquals(index.reaches(origin, destination), expected.contains(destination), origin + " -> " + destination);
+        }
+      }
+    }
+  }
+
+  private Set<Integer> bruteForce(HashGraph<Integer, String> graph, Integer origin) {
+    Set<Integer> reached = new HashSet<>();
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.add(origin);
+    while (!queue.isEmpty()) {
+      graph.getOutboundEdges(queue.poll()).forEach((edge) -> {
+        if (reached.add(edge.getDestination())) {
+          queue.add(edge.getDestination());
+        }
+      });
+    }
+    return reached;
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2024, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.util;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.savantbuild.BaseUnitTest;
+import org.savantbuild.util.Graph.Edge;
+import org.savantbuild.util.Graph.Edge.BaseEdge;
+import org.savantbuild.util.Graph.EdgeFilter;
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the reachable graph view.
+ *
+ * @author Brian Pontarelli
+ */
+public class ReachableGraphTest extends BaseUnitTest {
+  public static final EdgeFilter<String, String> COMPILE = (edge, entryPoint) -> edge.getValue().equals("compile") || entryPoint.getValue().equals("test");
+
+  @Test
+  public void filtered() {
+    Graph<String, String> view = graph().reachableView("one", COMPILE);
+    assertEquals(view.values(), new LinkedHashSet<>(asList("one", "two", "three", "four", "six", "seven")));
+    assertEquals(view.size(), 6);
+    assertFalse(view.contains("five"));
+    assertFalse(view.contains("eight"));
+    assertNull(view.getOutboundEdges("five"));
+    assertEquals(view.getOutboundEdges("two"), asList(new BaseEdge<>("two", "four", "compile"), new BaseEdge<>("two", "six", "compile")));
+    assertEquals(view.getInboundEdges("one"), asList());
+    assertEquals(view.getInboundEdges("seven"), asList(new BaseEdge<>("three", "seven", "compile")));
+    assertEquals(view.topologicalSort(), asList("four", "six", "seven", "two", "three", "one"));
+  }
+
+  /**
+   * The view should contain exactly the edges that a traversal with the same EdgeFilter traverses.
+   */
+  @Test
+  public void matchesTraversal() {
+    Random random = new Random(42);
+    HashGraph<String, String> graph = new HashGraph<>();
+    for (int i = 0; i < 500; i++) {
+      for (int j = 0; j < 3; j++) {
+        int destination = i + 1 + random.nextInt(20);
+        graph.addEdge("node" + i, "node" + destination, random.nextInt(4) == 0 ? "test" : "compile");
+      }
+    }
+
+    // What is traversed below an edge only depends on the edge, so the traversal stops at edges it has already seen
+    HashGraph<String, String> expected = new HashGraph<>();
+    graph.traverse("node0", false, COMPILE, (origin, destination, value, depth, isLast) -> {
+      boolean seen = expected.contains(origin) && expected.getOutboundEdges(origin).contains(new BaseEdge<>(origin, destination, value));
+      expected.addEdge(origin, destination, value);
+      return !seen;
+    });
+
+    Graph<String, String> view = graph.reachableView("node0", COMPILE);
+    assertEquals(view.size(), expected.size());
+    assertEquals(view.values(), new LinkedHashSet<>(expected.values()));
+    for (String value : expected.values()) {
+      assertEquals(new LinkedHashSet<>(view.getOutboundEdges(value)), new LinkedHashSet<>(expected.getOutboundEdges(value)));
+      assertEquals(new LinkedHashSet<>(view.getInboundEdges(value)), new LinkedHashSet<>(expected.getInboundEdges(value)));
+    }
+  }
+
+  /**
+   * The HashGraph view is found using the ordinals of the nodes and edges, which are reused as edges and nodes are
+   * removed and added. It should match the generic view that hashes the values.
+   */
+  @Test
+  public void matchesGenericView() {
+    for (HashGraph.EdgeStorage edgeStorage : HashGraph.EdgeStorage.values()) {
+      Random random = new Random(42);
+      HashGraph<String, String> graph = new HashGraph<>(edgeStorage);
+      for (int i = 0; i < 300; i++) {
+        for (int j = 0; j < 3; j++) {
+          graph.addEdge("node" + i, "node" + (i + 1 + random.nextInt(20)), random.nextInt(4) == 0 ? "test" : "compile");
+        }
+      }
+
+      for (int i = 0; i < 300; i += 7) {
+        String origin = "node" + i;
+        Edge<String, String> edge = graph.getOutboundEdges(origin).get(0);
+        graph.removeEdge(origin, edge.getDestination(), edge.getValue());
+        graph.addEdge(origin, edge.getDestination(), edge.getValue().equals("test") ? "compile" : "test");
+      }
+      graph.removeNode("node150");
+      graph.addEdge("node149", "node150", "compile");
+
+      Graph<String, String> view = graph.reachableView("node0", COMPILE);
+      Graph<String, String> expected = new ReachableGraph<>(graph, "node0", COMPILE, null);
+      assertEquals(view.values(), expected.values());
+      for (String value : graph.values()) {
+        assertEquals(view.contains(value), expected.contains(value));
+        assertEquals(view.getOutboundEdges(value), expected.getOutboundEdges(value));
+        assertEquals(view.getInboundEdges(value), expected.getInboundEdges(value));
+      }
+    }
+  }
+
+  @Test
+  public void readOnly() {
+    HashGraph<String, String> graph = graph();
+    Graph<String, String> view = graph.reachableView("three", null);
+    assertEquals(view.values(), new LinkedHashSet<>(asList("three", "seven")));
+    assertSame(view.getOutboundEdges("three").get(0), graph.getOutboundEdges("three").get(0));
+
+    try {
+      view.addEdge("three", "eight", "compile");
+      fail("Should have thrown");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+
+    try {
+      view.getOutboundEdges("three").add(new BaseEdge<>("three", "eight", "compile"));
+      fail("Should have thrown");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+
+    try {
+      graph.reachableView("nine", null);
+      fail("Should have thrown");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    graph.addEdge("seven", "eight", "compile");
+    try {
+      view.getOutboundEdges("three");
+      fail("Should have thrown");
+    } catch (ConcurrentModificationException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void traverse() {
+    Graph<String, String> view = graph().reachableView("one", COMPILE);
+    List<String> visits = new ArrayList<>();
+    view.traverse("one", false, null, (origin, destination, value, depth, isLast) -> {
+      visits.add(origin + "->" + destination + ":" + depth + ":" + isLast);
+      return true;
+    });
+
+    assertEquals(visits, asList("one->two:1:false", "two->four:2:false", "two->six:2:true", "one->three:1:true", "three->seven:2:true"));
+    assertTrue(view.reachabilityIndex().reaches("one", "seven"));
+    assertFalse(view.reachabilityIndex().reaches("two", "seven"));
+
+    List<Edge<String, String>> edges = new ArrayList<>();
+    view.forEachOutbound("one", edges::add);
+    assertEquals(edges, asList(new BaseEdge<>("one", "two", "compile"), new BaseEdge<>("one", "three", "test")));
+  }
+
+  /**
+   * Graph:
+   * <p>
+   * <pre>
+   *   one --(compile)--> two --(compile)--> four
+   *    |                  |--(test)-------> five
+   *    |                  |--(compile)----> six
+   *    |--(test)-------> three --(compile)--> seven
+   *
+   *   eight --(compile)--> one
+   * </pre>
+   */
+  private HashGraph<String, String> graph() {
+    HashGraph<String, String> graph = new HashGraph<>();
+    graph.addEdge("one", "two", "compile");
+    graph.addEdge("one", "three", "test");
+    graph.addEdge("two", "four", "compile");
+    graph.addEdge("two", "five", "test");
+    graph.addEdge("two", "six", "compile");
+    graph.addEdge("three", "seven", "compile");
+    graph.addEdge("eight", "one", "compile");
+    return graph;
+  }
+}